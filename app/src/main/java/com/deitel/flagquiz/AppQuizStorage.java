@@ -0,0 +1,69 @@
+// AppQuizStorage.java
+// Loads and saves the QuizEngine's data through the app's stores
+package com.deitel.flagquiz;
+
+import android.content.Context;
+
+import com.deitel.flagquiz.engine.Flag;
+import com.deitel.flagquiz.engine.FlagCatalog;
+import com.deitel.flagquiz.engine.FlagStats;
+import com.deitel.flagquiz.engine.QuizEngine;
+import com.deitel.flagquiz.engine.QuizState;
+import com.deitel.flagquiz.engine.SimilarityIndex;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+// Called on the engine thread; each store writes in the background itself.
+final class AppQuizStorage implements QuizEngine.Storage {
+    private final Context context;
+    private FlagStatsStore statsStore; // opened by loadStats()
+
+    AppQuizStorage(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    @Override
+    public FlagCatalog loadCatalog() throws IOException {
+        InstalledPacks.installIncoming(context);
+        return AssetFlagCatalog.get(context.getAssets(), InstalledPacks.get(context));
+    }
+
+    @Override
+    public FlagStats loadStats(FlagCatalog catalog) {
+        statsStore = FlagStatsStore.get(context, catalog);
+        return statsStore.getStats();
+    }
+
+    @Override
+    public void saveStats(Flag flag, FlagStats stats) {
+        statsStore.save(flag);
+    }
+
+    // built into the assets by the buildSimilarityIndex task
+    @Override
+    public SimilarityIndex loadSimilarityIndex(FlagCatalog catalog) throws IOException {
+        InputStream in;
+        try {
+            in = context.getAssets().open(SimilarityIndex.FILE_NAME);
+        } catch (FileNotFoundException exception) {
+            return null;
+        }
+        try {
+            return SimilarityIndex.read(in, catalog);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Override
+    public QuizState loadState() {
+        return QuizStateStore.get(context).load();
+    }
+
+    @Override
+    public void saveState(QuizState state) {
+        QuizStateStore.get(context).save(state);
+    }
+}
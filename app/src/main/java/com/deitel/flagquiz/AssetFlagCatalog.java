@@ -0,0 +1,41 @@
+// AssetFlagCatalog.java
+// Loads the generated flag catalog and the installed packs' flags once per process
+package com.deitel.flagquiz;
+
+import android.content.res.AssetManager;
+import android.util.Log;
+
+import com.deitel.flagquiz.engine.ContentPacks;
+import com.deitel.flagquiz.engine.FlagCatalog;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// The catalog stays the same for the whole process, as FlagStatsStore
+// numbers its records by flag id; packs installed later join it at the
+// next launch.
+final class AssetFlagCatalog {
+    private static final String TAG = "AssetFlagCatalog";
+
+    private static FlagCatalog catalog; // shared by every quiz in this process
+
+    private AssetFlagCatalog() {
+    }
+
+    static synchronized FlagCatalog get(AssetManager assets, ContentPacks packs)
+            throws IOException {
+        if (catalog == null) {
+            FlagCatalog bundled;
+            try (InputStream stream = assets.open(FlagCatalog.FILE_NAME)) {
+                bundled = FlagCatalog.read(stream);
+            }
+            try {
+                catalog = bundled.plus(packs.getFileNames());
+            } catch (IOException exception) {
+                Log.e(TAG, "Error reading the installed packs", exception);
+                catalog = bundled;
+            }
+        }
+        return catalog;
+    }
+}
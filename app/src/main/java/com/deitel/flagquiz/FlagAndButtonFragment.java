@@ -3,15 +3,17 @@ package com.deitel.flagquiz;
 import android.app.AlertDialog;
 import android.app.Dialog;
 import android.content.DialogInterface;
-import android.content.SharedPreferences;
-import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.preference.PreferenceManager;
-import android.support.annotation.NonNull;
 import android.support.v4.app.DialogFragment;
 import android.support.v4.app.Fragment;
-import android.support.v4.app.FragmentTransaction;
+import android.util.DisplayMetrics;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -23,59 +25,104 @@ import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
+import com.deitel.flagquiz.engine.Flag;
+import com.deitel.flagquiz.engine.QuestionView;
+import com.deitel.flagquiz.engine.QuizEngine;
+import com.deitel.flagquiz.engine.QuizMetrics;
+import com.deitel.flagquiz.engine.QuizResult;
+import com.deitel.flagquiz.engine.QuizSettings;
+import com.deitel.flagquiz.engine.ResponseTimes;
+import com.deitel.flagquiz.engine.SessionStore;
+import com.deitel.flagquiz.engine.SplitMix64;
+
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.security.SecureRandom;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import static com.deitel.flagquiz.MainActivityFragment.FLAGS_IN_QUIZ;
 
 
 
+// Renders the QuestionViews published by a QuizEngine and passes guesses
+// back to it; the quiz itself runs on the engine's thread.
 public class FlagAndButtonFragment extends Fragment {
     private static final String TAG = "FlagQuiz Activity";
+    private static final int LEADERBOARD_SIZE = 100; // players on each board
     private ImageView flagImageView; // displays a flag
     private LinearLayout[] guessLinearLayouts; // rows of answer Buttons
     private TextView answerTextView;
     private TextView questionNumberTextView;
 
-    private List<String> fileNameList; // flag file names
-    private List<String> quizCountriesList; // countries in current quiz
-    private Set<String> regionsSet; // world regions in current quiz
-    private String correctAnswer; // correct country for the current flag
-    private int totalGuesses; // number of guesses made
-    private int correctAnswers; // number of correct guesses
-    private int questionNumber;
-    private int guessForQuestion;
     private int guessRows; // number of rows displaying guess Buttons
-    private SecureRandom random; // used to randomize the quiz
-    private Animation shakeAnimation; // animation for incorrect guess
-
-    private boolean comingBack = false;
-
+    // id of the flag on each guess Button, by the choice index in its tag
+    private final int[] buttonFlagIds = new int[QuizEngine.MAX_CHOICES];
+    private ExecutorService engineExecutor; // the quiz engine's thread
+    private QuizEngine engine; // runs the quiz off the UI thread
+    private QuestionView latestView; // the last view the engine published
+    private FlagImageCache imageCache; // decoded flags shared across quizzes
+    private FlagPrefetcher prefetcher; // decodes the next question's images early
+    private volatile int guessFlagHeight; // height in pixels of a flag shown on a button
+    private volatile int flagWidth; // last laid-out size of flagImageView
+    private volatile int flagHeight;
+    private Animation shakeAnimation; // animation for incorrect guess, loaded after launch
+    private long launchStart; // QuizMetrics start of the launch, 0 once timed
+    private FlagDetailPresenter detailPresenter; // the answer shown between questions
+    private ViewGroup quizFrameLayout; // holds the question and the detail on top
+    private View quizView; // the question, hidden under the detail
+    private SessionStore sessions; // every player's results, written on the engine thread
+    private long quizStart; // elapsedRealtime() of question 1, 0 if the quiz was restored
+    private long questionShownAt; // elapsedRealtime() the question on screen was shown
 
 
     @Override
-    public void onStart() {
-        super.onStart();
-        if (comingBack) {
-            if (questionNumber == FLAGS_IN_QUIZ) {
-                SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(getContext());
-                currentQuestionFromPreferences(preferences);
-                guessForQuestion = 0;
-                showGameOverMessage();
-            }else {
-                initFlags();
-                loadNextFlag();
+    public void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        imageCache = FlagImageCache.get(getContext());
+        prefetcher = new FlagPrefetcher(imageCache);
+
+        // flags are decoded no larger than the screen until flagImageView
+        // is laid out
+        DisplayMetrics metrics = getResources().getDisplayMetrics();
+        flagWidth = metrics.widthPixels;
+        flagHeight = metrics.heightPixels;
+        guessFlagHeight = getResources().getDimensionPixelSize(R.dimen.guess_flag_height);
+        detailPresenter = new FlagDetailPresenter(LayoutInflater.from(getContext()),
+                getResources().getColor(R.color.correct_answer, getContext().getTheme()),
+                getResources().getColor(R.color.incorrect_answer, getContext().getTheme()));
+
+        engineExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "QuizEngine");
+                thread.setDaemon(true);
+                return thread;
             }
-        }
+        });
+        final Handler handler = new Handler(Looper.getMainLooper());
+        Executor uiExecutor = new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                handler.post(runnable);
+            }
+        };
+        // reads nothing until the first quiz ends
+        sessions = new SessionStore(new File(getContext().getFilesDir(), "sessions"),
+                LEADERBOARD_SIZE);
+        engine = new QuizEngine(new AppQuizStorage(getContext()), preloader,
+                engineExecutor, uiExecutor, engineListener, SplitMix64.source(), FLAGS_IN_QUIZ);
+    }
 
+    @Override
+    public void onDestroy() {
+        engineExecutor.shutdown(); // queued saves still run
+        prefetcher.shutdown();
+        super.onDestroy();
     }
 
-    private void showGameOverMessage() {
+    private void showGameOverMessage(final QuestionView view) {
         // DialogFragment to display quiz stats and start new quiz
         DialogFragment quizResults =
                 new DialogFragment() {
@@ -84,9 +131,13 @@ public class FlagAndButtonFragment extends Fragment {
                     public Dialog onCreateDialog(Bundle bundle) {
                         AlertDialog.Builder builder =
                                 new AlertDialog.Builder(getActivity());
-                        builder.setMessage(
-                                getString(R.string.results,totalGuesses,
-                                        (1000 / (double) totalGuesses)));
+                        int totalGuesses = view.getTotalGuesses();
+                        String message = getString(R.string.results, totalGuesses,
+                                (100.0 * view.getQuestionCount() / totalGuesses));
+                        if (view.getMeanResponseMillis() != ResponseTimes.UNTIMED)
+                            message += "\n" + getString(R.string.response_time,
+                                    view.getMeanResponseMillis() / 1000.0);
+                        builder.setMessage(message);
 
                         // "Reset Quiz" Button
                         builder.setPositiveButton(R.string.reset_quiz,
@@ -111,20 +162,26 @@ public class FlagAndButtonFragment extends Fragment {
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
                              Bundle savedInstanceStat) {
         View view = inflater.inflate(R.layout.fragment_flag_and_button, container, false);
-            fileNameList = new ArrayList<>();
-            quizCountriesList = new ArrayList<>();
-            random = new SecureRandom();
+            quizFrameLayout = (ViewGroup) view.findViewById(R.id.flagAndButtonFrameLayout);
+            quizView = view.findViewById(R.id.flagAndButtonDetailLinearLayout);
             questionNumberTextView = (TextView) container.findViewById(R.id.questionNumberTextView);
-            shakeAnimation = AnimationUtils.loadAnimation(getActivity(),
-                    R.anim.incorrect_shake);
-            shakeAnimation.setRepeatCount(3);
 
             initTextAndImageViews(view);
             initButtons(view);
             configureButtonListeners();
-            SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(getContext());
-            updateGuessRows(preferences);
-            updateRegions(preferences);
+            applySettings(QuizSettingsCache.get(getContext()).get());
+
+            // a view created again while the quiz goes on shows the question
+            // until the engine publishes the next one
+            if (latestView != null && latestView.getEvent() == QuestionView.Event.NO_FLAGS) {
+                showNoFlags();
+            } else if (latestView != null) {
+                showQuestion(latestView);
+                if (latestView.getEvent() == QuestionView.Event.CORRECT)
+                    showDetail(latestView, true);
+                else if (latestView.getEvent() == QuestionView.Event.OUT_OF_GUESSES)
+                    showDetail(latestView, false);
+            }
 
         return view;
     }
@@ -135,10 +192,13 @@ public class FlagAndButtonFragment extends Fragment {
         answerTextView.setText("");
         flagImageView = (ImageView) view.findViewById(R.id.flagImageView);
     }
+    // tags every guess Button with its choice index, boxed once here
     private void configureButtonListeners() {
-        for (LinearLayout row : guessLinearLayouts) {
-            for (int column = 0; column < row.getChildCount(); column++) {
-                Button button = (Button) row.getChildAt(column);
+        for (int row = 0; row < guessLinearLayouts.length; row++) {
+            LinearLayout guessRow = guessLinearLayouts[row];
+            for (int column = 0; column < guessRow.getChildCount(); column++) {
+                Button button = (Button) guessRow.getChildAt(column);
+                button.setTag((row * 2) + column);
                 button.setOnClickListener(guessButtonListener);
             }
         }
@@ -155,12 +215,30 @@ public class FlagAndButtonFragment extends Fragment {
                 (LinearLayout) view.findViewById(R.id.row4LinearLayout);
         answerTextView = (TextView) view.findViewById(R.id.answerTextView);
     }
-    public void updateGuessRows(SharedPreferences sharedPreferences) {
-        // get the number of guess buttons that should be displayed
-        String choices =
-                sharedPreferences.getString(MainActivity.CHOICES, null);
+    // called by MainActivity once the first frame is drawn
+    public void finishStartup() {
+        getShakeAnimation();
+    }
 
-        guessRows = Integer.parseInt(choices) / 2;
+    // timed until the first question is shown
+    public void setLaunchStart(long launchStart) {
+        this.launchStart = launchStart;
+    }
+
+    private Animation getShakeAnimation() {
+        if (shakeAnimation == null) {
+            shakeAnimation = AnimationUtils.loadAnimation(getActivity(),
+                    R.anim.incorrect_shake);
+            shakeAnimation.setRepeatCount(3);
+        }
+        return shakeAnimation;
+    }
+
+    // shows settings' number of guess Buttons and hands settings to the
+    // engine for the next question
+    public void applySettings(QuizSettings settings) {
+        guessRows = settings.getChoices() / 2;
+        engine.setSettings(settings);
         // hide all quess button LinearLayouts
         for (LinearLayout layout : guessLinearLayouts)
             layout.setVisibility(View.GONE);
@@ -169,79 +247,153 @@ public class FlagAndButtonFragment extends Fragment {
         for (int row = 0; row < guessRows; row++)
             guessLinearLayouts[row].setVisibility(View.VISIBLE);
     }
-    public void updateRegions(SharedPreferences sharedPreferences) {
-        regionsSet =
-                sharedPreferences.getStringSet(MainActivity.REGIONS, null);
-    }
-
-    private String getCountryName(String name) {
-        return name.substring(name.indexOf('-') + 1).replace('_', ' ');
-    }
 
-    public void signalComingBack() {
-        comingBack = true;
+    // called by MainActivity on Back: leaving the detail goes on to the next
+    // question with the quiz and its view as they were; false if no detail
+    // was showing
+    public boolean onBackPressed() {
+        if (!detailPresenter.isShowing())
+            return false;
+        detailPresenter.hide();
+        quizView.setVisibility(View.VISIBLE);
+        engine.next();
+        return true;
     }
 
     private View.OnClickListener guessButtonListener = new View.OnClickListener() {
         @Override
         public void onClick(View v) {
-            Button guessButton = ((Button) v);
-            String guess = guessButton.getText().toString();
-            String region = correctAnswer.substring(0, correctAnswer.indexOf("-"));
-            String answer = getCountryName(correctAnswer);
-            ++totalGuesses; // increment number of guesses the user has made
-            guessForQuestion++;
-
-            if (guess.equals(answer)) { // if the guess is correct
-                ++correctAnswers; // increment the number of correct answers
-                questionNumber++;
-                guessForQuestion = 0;
-                disableButtons(); // disable all guess Buttons
-                go_FlagDetailFragment(region, true);
+            // the engine checks the guess by flag id and publishes what
+            // happened; nothing here allocates or compares text
+            engine.guess(buttonFlagIds[(Integer) v.getTag()],
+                    SystemClock.elapsedRealtime() - questionShownAt);
+        }
+    };
+
+    // decodes each question's images on the engine thread, so rendering
+    // only finds them in imageCache
+    private final QuizEngine.Preloader preloader = new QuizEngine.Preloader() {
+        @Override
+        public void preload(QuestionView view, Flag next) {
+            try {
+                imageCache.getBitmap(view.getAnswer(), flagWidth, flagHeight);
+                for (int i = 0; i < view.getChoiceCount(); i++)
+                    if (view.isChoiceDisabled(i))
+                        imageCache.getThumbnail(view.getChoice(i), guessFlagHeight);
+            } catch (IOException exception) {
+                Log.w(TAG, "Error preloading " + view.getAnswer(), exception);
             }
-            else { // answer was incorrect
-                answerWasIncorrect(guessButton, guess, region);
-                if (guessForQuestion == Integer.parseInt(PreferenceManager.getDefaultSharedPreferences(getContext()).getString(MainActivity.num_guesses, null))) {
-                    guessForQuestion = 0;
-                    questionNumber++;
-                    go_FlagDetailFragment(region, false);
-                }
+
+            // what the user may need next: the following question's flag
+            // and the thumbnails setButtonImage() shows for wrong guesses
+            if (next != null)
+                prefetcher.prefetch(next, flagWidth, flagHeight);
+            for (int i = 0; i < view.getChoiceCount(); i++)
+                prefetcher.prefetchThumbnail(view.getChoice(i), guessFlagHeight);
+        }
+    };
+
+    private final QuizEngine.Listener engineListener = new QuizEngine.Listener() {
+        @Override
+        public void onQuestionView(QuestionView view) {
+            latestView = view;
+            if (getView() == null)
+                return; // shown once the view is created again
+
+            switch (view.getEvent()) {
+                case QUESTION:
+                    if (view.getQuestionNumber() == 0 && view.getTotalGuesses() == 0)
+                        quizStart = SystemClock.elapsedRealtime();
+                    questionShownAt = SystemClock.elapsedRealtime();
+                    showQuestion(view);
+                    if (launchStart != 0) {
+                        QuizMetrics.stop(QuizMetrics.Timer.FIRST_QUESTION, launchStart);
+                        launchStart = 0;
+                    }
+                    break;
+                case WRONG_GUESS:
+                    answerWasIncorrect(view);
+                    break;
+                case CORRECT:
+                    disableButtons(); // disable all guess Buttons
+                    showDetail(view, true);
+                    break;
+                case OUT_OF_GUESSES:
+                    answerWasIncorrect(view);
+                    showDetail(view, false);
+                    break;
+                case QUIZ_OVER:
+                    showQuestion(view);
+                    recordResult(view);
+                    showGameOverMessage(view);
+                    break;
+                case NO_FLAGS:
+                    showNoFlags();
+                    break;
             }
         }
+
+        @Override
+        public void onError(Exception exception) {
+            Log.e(TAG, "Error running the quiz", exception);
+        }
     };
 
-    private void go_FlagDetailFragment(String region, Boolean isCorrect) {
-        comingBack = false;
-        FlagDetailFragment frag = new FlagDetailFragment();
-        Bundle args = new Bundle();
-        args.putString("Region", region);
-        args.putString("Country", getCountryName(correctAnswer));
-        args.putBoolean("Correct", isCorrect);
-        frag.setArguments(args);
-        FragmentTransaction transaction = getActivity().getSupportFragmentManager().beginTransaction();
-        transaction.replace(R.id.main_fragment_container, frag).addToBackStack(null);
-        transaction.commit();
+    // the enabled regions have no flags to ask, e.g. only ones whose pack
+    // was removed; Settings can enable others
+    private void showNoFlags() {
+        detailPresenter.hide();
+        quizView.setVisibility(View.VISIBLE);
+        questionNumberTextView.setText("");
+        flagImageView.setImageDrawable(null);
+        for (LinearLayout layout : guessLinearLayouts)
+            layout.setVisibility(View.GONE);
+        answerTextView.setText(R.string.no_flags);
+    }
+
+    private void showDetail(QuestionView view, boolean isCorrect) {
+        quizView.setVisibility(View.INVISIBLE);
+        detailPresenter.show(quizFrameLayout, view.getAnswer(), isCorrect);
+    }
+
+    // adds the finished quiz to the player's history and the leaderboards
+    private void recordResult(QuestionView view) {
+        String player = PreferenceManager.getDefaultSharedPreferences(getContext())
+                .getString(MainActivity.PLAYER, getString(R.string.default_player));
+        long millis = quizStart != 0 ?
+                SystemClock.elapsedRealtime() - quizStart : QuizResult.UNTIMED;
+        quizStart = 0;
+        final QuizResult result = new QuizResult(player, view.getCorrectAnswers(),
+                view.getTotalGuesses(), millis, System.currentTimeMillis());
+        engineExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    sessions.record(result);
+                } catch (IOException exception) {
+                    Log.e(TAG, "Error saving " + result, exception);
+                }
+            }
+        });
     }
 
-    private void answerWasIncorrect(Button guessButton, String guess, String region) {
-        flagImageView.startAnimation(shakeAnimation); // play shake
+    private void answerWasIncorrect(QuestionView view) {
+        flagImageView.startAnimation(getShakeAnimation()); // play shake
 
         // display "Incorrect!" in red
         answerTextView.setText(R.string.incorrect_answer);
         answerTextView.setTextColor(getResources().getColor(
                 R.color.incorrect_answer, getContext().getTheme()));
+        int choice = view.getGuessedChoice();
+        Button guessButton = getButton(choice);
         guessButton.setEnabled(false); // disable incorrect answer
-        setButtonImage(guessButton, guess, region);
-
-        SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(getContext());
-        SharedPreferences.Editor editor = preferences.edit();
-        String currentQuestion = preferences.getString(MainActivity.CURRENTQUESTION, null);
-        currentQuestion = currentQuestion.replace(String.format(",%s:T", guess), String.format(",%s:F", guess));
-        currentQuestion = currentQuestion.replaceAll("TotalGuess:\\d+", String.format("TotalGuess:%d", totalGuesses));
-        currentQuestion = currentQuestion.replaceAll("NumCurrentGuess:\\d+", String.format("NumCurrentGuess:%d", guessForQuestion));
-        editor.putString(MainActivity.CURRENTQUESTION, currentQuestion);
-        editor.apply();
+        setButtonImage(guessButton, view.getChoice(choice));
+    }
+
+    private Button getButton(int choice) {
+        return (Button) guessLinearLayouts[choice / 2].getChildAt(choice % 2);
     }
+
     private void disableButtons() {
         for (int row = 0; row < guessRows; row++) {
             LinearLayout guessRow = guessLinearLayouts[row];
@@ -250,224 +402,99 @@ public class FlagAndButtonFragment extends Fragment {
         }
     }
     public void resetQuiz() {
-        // use AssetManager to get image file names for enabled regions
-
-        questionNumber = 0;
-        correctAnswers = 0; // reset the number of correct answers made
-        totalGuesses = 0; // reset the total number of guesses the user made
-        quizCountriesList.clear(); // clear prior list of quiz countries
-
-
-        initFlags();
-        loadNextFlag();
-    }
-    private void initFlags() {
-        addFlagsToList();
-        addFlagsToQuiz();
+        prefetcher.cancel(); // images queued for the old quiz aren't needed
+        engine.reset();
     }
-    private void addFlagsToQuiz() {
-        int flagCounter = 1;
-        int numberOfFlags = fileNameList.size();
-
-        // add FLAGS_IN_QUIZ random file names to the quizCountriesList
-        while (flagCounter <= FLAGS_IN_QUIZ) {
-            int randomIndex = random.nextInt(numberOfFlags);
-
-            // get the random file name
-            String filename = fileNameList.get(randomIndex);
 
-            // if the region is enabled and it hasn't already been chosen
-            if (!quizCountriesList.contains(filename)) {
-                quizCountriesList.add(filename); // add the file to the list
-                ++flagCounter;
-            }
-        }
+    // restores the saved question, or starts a quiz if none was saved
+    public void restoreCurrentQuestion() {
+        engine.restore();
     }
-    private void addFlagsToList() {
-        AssetManager assets = getActivity().getAssets();
-        fileNameList.clear(); // empty list of image file names
 
-        try {
-            // loop through each region
-            for (String region : regionsSet) {
-                // get a list of all flag image files in this region
-                String[] paths = assets.list(region);
+    private void showQuestion(QuestionView view) {
+        // a quiz reset while the detail showed starts over on the question
+        detailPresenter.hide();
+        quizView.setVisibility(View.VISIBLE);
+        setQuestionNumber(view);
+        setFlagImageViewImage(view.getAnswer());
 
-                for (String path : paths)
-                    fileNameList.add(path.replace(".png", ""));
-            }
-        }
-        catch (IOException exception) {
-            Log.e(TAG, "Error loading image file names", exception);
-        }
-    }
-    private ArrayList<String> separateByRegion(ArrayList<String> allCountries, String region) {
-        ArrayList<String> temp = new ArrayList<>();
-        for (String country: allCountries) {
-            if (country.substring(0, country.indexOf("-")).equals(region)) {
-                temp.add(country);
-            }
-        }
-        return temp;
-    }
-    public void loadNextFlag() {
-        String nextImage = pickCorrectAnswer();
-        String region = nextImage.substring(0, nextImage.indexOf('-'));
-        ArrayList<String> unfilteredFileNameList = removeCorrectFlagFromList(region);
-        setQuestionNumber();
-        AssetManager assets = getActivity().getAssets();
-        setFlagImageViewImage(nextImage, assets, region + "/" + nextImage + ".png", "Error loading " + nextImage);
-        initGuessButtons();
-        addCorrectAnswerToGuessButtons(nextImage, unfilteredFileNameList);
-    }
-
-    @NonNull
-    private ArrayList<String> removeCorrectFlagFromList(String region) {
-        Collections.shuffle(fileNameList);
-        ArrayList<String> unfilteredFileNameList = (ArrayList<String>) fileNameList;
-
-        int correct = unfilteredFileNameList.indexOf(correctAnswer);
-        unfilteredFileNameList.add(unfilteredFileNameList.remove(correct));
-
-        fileNameList = separateByRegion((ArrayList<String>) fileNameList, region);
-        return unfilteredFileNameList;
-    }
-
-    private String pickCorrectAnswer() {
-        String nextImage = quizCountriesList.remove(0);
-        correctAnswer = nextImage;
-        return nextImage;
-    }
+        // adaptive difficulty may change the number of choices per question
+        guessRows = (view.getChoiceCount() + 1) / 2;
+        for (int row = 0; row < guessLinearLayouts.length; row++)
+            guessLinearLayouts[row].setVisibility(row < guessRows ? View.VISIBLE : View.GONE);
 
-    private void addCorrectAnswerToGuessButtons(String nextImage, ArrayList<String> unfilteredFileNameList) {
-        // randomly replace one Button with the correct answer
-        int row = random.nextInt(guessRows); // pick random row
-        int column = random.nextInt(2); // pick random column
-        LinearLayout randomRow = guessLinearLayouts[row]; // get the row
-        String countryName = getCountryName(correctAnswer);
-        ((Button) randomRow.getChildAt(column)).setText(countryName);
-        fileNameList = unfilteredFileNameList;
-        setupCurrentQuestionData(nextImage);
-    }
-
-    private void initGuessButtons() {
         // add 2, 4, 6 or 8 guess Buttons based on the value of guessRow
         for (int row = 0; row < guessRows; row++) {
             // place Buttons in currentTableRow
             for (int column = 0;
                  column < guessLinearLayouts[row].getChildCount();
                  column++) {
-                // get reference to Button to configure
                 Button newGuessButton =
                         (Button) guessLinearLayouts[row].getChildAt(column);
-                newGuessButton.setEnabled(true);
-
-                // get country name and set it as newGuessButton's text
-                String filename = fileNameList.get((row * 2) + column);
-                newGuessButton.setText(getCountryName(filename));
-                newGuessButton.setCompoundDrawablesRelativeWithIntrinsicBounds(null, null, null, null);
-            }
-        }
-    }
-
-    private void setupCurrentQuestionData(String answer) {
-        SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(getContext());
-        SharedPreferences.Editor editor = preferences.edit();
-        String currentQuestion = "";
-        currentQuestion = currentQuestion.concat(answer);
-        LinearLayout randomRow;
-        for (int i = 0; i < guessRows; i++) {
-            randomRow = guessLinearLayouts[i];
-            for (int j = 0; j < 2; j++) {
-                currentQuestion = currentQuestion.concat(String.format(",%s:T",(String)((Button) randomRow.getChildAt(j)).getText()));
-            }
-        }
-        currentQuestion = currentQuestion.concat(String.format(",QuestionNum:%d,CorrectAnswers:%d,NumCurrentGuess:%d,TotalGuess:%d", questionNumber, correctAnswers, guessForQuestion, totalGuesses));
-        editor.putString(MainActivity.CURRENTQUESTION, currentQuestion);
-        editor.apply();
-    }
 
-    public void currentQuestionFromPreferences(SharedPreferences preferences) {
-        initFlags();
-        String currentQuestionData = preferences.getString(MainActivity.CURRENTQUESTION, null);
-        String data[] = currentQuestionData.split(",");
-        String nextImage = data[0] + ".png";
-
-        correctAnswer = data[0];
-        assignQuestionIntegers(data);
-        setQuestionNumber();
-
-        String region = data[0].substring(0, data[0].indexOf('-'));
-        AssetManager assets = getActivity().getAssets();
-
-        setFlagImageViewImage(nextImage, assets, region + "/" + nextImage, "Error loading " + nextImage);
-        GuessButtonsWithCurrent(data, region);
-
-    }
+                // hide Buttons the pool of flags is too small to fill
+                int choice = (row * 2) + column;
+                if (choice >= view.getChoiceCount()) {
+                    newGuessButton.setVisibility(View.GONE);
+                    continue;
+                }
+                newGuessButton.setVisibility(View.VISIBLE);
 
-    private void GuessButtonsWithCurrent(String[] data, String region) {
-        int rowIndex = 0;
-        for (int row = 0; row < guessRows; row++) {
-            for (int column = 0;
-                 column < guessLinearLayouts[row].getChildCount();
-                 column++) {
-                Button newGuessButton =
-                        (Button) guessLinearLayouts[row].getChildAt(column);
-                newGuessButton.setEnabled(true);
-                int buttonTextIndex = row + column + 1 + rowIndex;
-                newGuessButton.setText(data[buttonTextIndex].substring(0, data[buttonTextIndex].indexOf(":")));
-                if (data[buttonTextIndex].contains(":T")) {
+                // set the country name as newGuessButton's text
+                Flag flag = view.getChoice(choice);
+                buttonFlagIds[choice] = flag.getId();
+                newGuessButton.setText(flag.getCountryName());
+                if (!view.isChoiceDisabled(choice)) {
                     newGuessButton.setEnabled(true);
                     newGuessButton.setCompoundDrawablesRelativeWithIntrinsicBounds(null, null, null, null);
                 } else {
                     newGuessButton.setEnabled(false);
-                    setButtonImage(newGuessButton, (String)newGuessButton.getText(), region);
+                    setButtonImage(newGuessButton, flag);
                 }
             }
-            rowIndex++;
         }
     }
 
-    private void setFlagImageViewImage(String nextImage, AssetManager assets, String fileName, String msg) {
-        try (InputStream stream =
-                     assets.open(fileName)) {
-            Drawable flag = Drawable.createFromStream(stream, nextImage);
-            flagImageView.setImageDrawable(flag);
+    private void setFlagImageViewImage(Flag flag) {
+        long start = QuizMetrics.start();
+        try {
+            // decoded at the size the preloader used, so this is a cache hit
+            flagImageView.setImageBitmap(imageCache.getBitmap(flag, flagWidth, flagHeight));
         } catch (IOException exception) {
-            Log.e(TAG, msg, exception);
+            Log.e(TAG, "Error loading " + flag, exception);
         }
-    }
 
-    private void assignQuestionIntegers(String[] data) {
-        questionNumber = Integer.parseInt(data[data.length - 4].substring(data[data.length - 4].indexOf(":") + 1));
-        correctAnswers = Integer.parseInt(data[data.length - 3].substring(data[data.length - 3].indexOf(":") + 1));
-        guessForQuestion = Integer.parseInt(data[data.length - 2].substring(data[data.length - 2].indexOf(":") + 1));
-        totalGuesses = Integer.parseInt(data[data.length - 1].substring(data[data.length - 1].indexOf(":") + 1));
+        // decode the following flags at the laid-out size
+        if (flagImageView.getWidth() > 0 && flagImageView.getHeight() > 0) {
+            flagWidth = flagImageView.getWidth();
+            flagHeight = flagImageView.getHeight();
+        }
+        QuizMetrics.stop(QuizMetrics.Timer.SET_FLAG_IMAGE, start);
     }
 
-    private void setButtonImage(Button button, String country, String region) {
-
-        AssetManager assets = getActivity().getAssets();
-        country = country.replace(" ", "_");
-        String countryAndRegion = String.format("%s-%s", region, country);
-        try (InputStream stream =
-                     assets.open(String.format("%s/%s.png", region, countryAndRegion))) {
-
-            Drawable flag = Drawable.createFromStream(stream, countryAndRegion);
+    private void setButtonImage(Button button, Flag flag) {
+        long start = QuizMetrics.start();
+        try {
+            Bitmap bitmap = imageCache.getThumbnail(flag, guessFlagHeight);
 
-            button.setCompoundDrawablesRelativeWithIntrinsicBounds(flag, null, null, null);
+            // scale the thumbnail to the button's flag height
+            Drawable thumbnail = new BitmapDrawable(getResources(), bitmap);
+            thumbnail.setBounds(0, 0,
+                    bitmap.getWidth() * guessFlagHeight / bitmap.getHeight(), guessFlagHeight);
+            button.setCompoundDrawablesRelative(thumbnail, null, null, null);
         }
         catch (IOException exception) {
-            Log.e(TAG, "Error loading " + countryAndRegion, exception);
+            Log.e(TAG, "Error loading " + flag, exception);
         }
+        QuizMetrics.stop(QuizMetrics.Timer.SET_BUTTON_IMAGE, start);
     }
 
-    private void setQuestionNumber() {
+    private void setQuestionNumber(QuestionView view) {
         answerTextView.setText(""); // clear answerTextView
 
         // display current question number
         questionNumberTextView.setText(getString(
-                R.string.question, questionNumber + 1, FLAGS_IN_QUIZ));
+                R.string.question, view.getQuestionNumber() + 1, view.getQuestionCount()));
 
     }
 
@@ -0,0 +1,41 @@
+// FlagAtlases.java
+// Memory-maps each region's packed flag atlas from the app's assets once
+package com.deitel.flagquiz;
+
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+
+import com.deitel.flagquiz.engine.FlagAtlas;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+final class FlagAtlases {
+    // asset directory the packFlagAtlases Gradle task writes to
+    static final String DIRECTORY = "atlas";
+
+    private static final Map<String, FlagAtlas> atlases = new HashMap<>(); // by region
+
+    private FlagAtlases() {
+    }
+
+    static synchronized FlagAtlas get(AssetManager assets, String region) throws IOException {
+        FlagAtlas atlas = atlases.get(region);
+        if (atlas == null) {
+            // atlases are stored uncompressed in the APK (see noCompress in
+            // build.gradle), so their bytes can be mapped where they are;
+            // the mapping stays valid after the descriptor is closed
+            try (AssetFileDescriptor descriptor =
+                         assets.openFd(DIRECTORY + "/" + region + FlagAtlas.EXTENSION);
+                 FileInputStream stream = descriptor.createInputStream()) {
+                atlas = FlagAtlas.read(stream.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                        descriptor.getStartOffset(), descriptor.getLength()));
+            }
+            atlases.put(region, atlas);
+        }
+        return atlas;
+    }
+}
@@ -1,15 +0,0 @@
-package com.deitel.flagquiz;
-
-import android.os.Bundle;
-import android.support.v7.app.AppCompatActivity;
-
-
-
-public class FlagDetailActivity extends AppCompatActivity {
-
-    @Override
-    public void onCreate(Bundle savedInstanceData) {
-        super.onCreate(savedInstanceData);
-        setContentView(R.layout.flag_detail);
-    }
-}
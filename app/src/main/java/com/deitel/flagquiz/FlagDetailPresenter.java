@@ -0,0 +1,82 @@
+// FlagDetailPresenter.java
+// Shows the answer to a finished question on top of the quiz
+package com.deitel.flagquiz;
+
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.deitel.flagquiz.engine.Flag;
+
+// Inflates fragment_flag_detail once and binds it again for every question,
+// so going to the detail and back costs no inflation, fragment transaction or
+// rebuilt quiz view. Each flag's text is formatted the first time it's shown
+// and kept by flag id; a catalog holds a few hundred flags.
+final class FlagDetailPresenter {
+    private static final int DETAIL = 0; // region and country
+    private static final int CORRECT = 1; // "Country!"
+    private static final int INCORRECT = 2; // "The correct answer is Country!"
+
+    private final LayoutInflater inflater;
+    private final int correctColor;
+    private final int incorrectColor;
+    private final SparseArray<String[]> texts = new SparseArray<>();
+    private View view; // inflated by the first show()
+    private TextView detailTextView;
+    private TextView answerTextView;
+    private String detailFormat; // the layout's text, region and country as %s
+
+    FlagDetailPresenter(LayoutInflater inflater, int correctColor, int incorrectColor) {
+        this.inflater = inflater;
+        this.correctColor = correctColor;
+        this.incorrectColor = incorrectColor;
+    }
+
+    // shows flag's detail as the top child of container, moving the view
+    // there if the fragment's view was created again
+    void show(ViewGroup container, Flag flag, boolean correct) {
+        if (view == null) {
+            view = inflater.inflate(R.layout.fragment_flag_detail, container, false);
+            detailTextView = (TextView) view.findViewById(R.id.flagDetailTextView);
+            answerTextView = (TextView) view.findViewById(R.id.flagDetailAnswerTextView);
+            detailFormat = detailTextView.getText().toString();
+        }
+        if (view.getParent() != container) {
+            if (view.getParent() != null)
+                ((ViewGroup) view.getParent()).removeView(view);
+            container.addView(view);
+        }
+
+        String[] text = getTexts(flag);
+        detailTextView.setText(text[DETAIL]);
+        answerTextView.setText(text[correct ? CORRECT : INCORRECT]);
+        answerTextView.setTextColor(correct ? correctColor : incorrectColor);
+        view.setVisibility(View.VISIBLE);
+    }
+
+    void hide() {
+        if (view != null)
+            view.setVisibility(View.GONE);
+    }
+
+    boolean isShowing() {
+        return view != null && view.getVisibility() == View.VISIBLE;
+    }
+
+    // the texts shown for flag, formatted on its first detail
+    private String[] getTexts(Flag flag) {
+        String[] text = texts.get(flag.getId());
+        if (text == null) {
+            String country = flag.getCountryName();
+            text = new String[3];
+            text[DETAIL] = String.format(detailFormat,
+                    flag.getRegion().replace('_', ' '), country);
+            text[CORRECT] = country + "!";
+            text[INCORRECT] = String.format("The correct answer is %s!", country);
+            texts.put(flag.getId(), text);
+        }
+        return text;
+    }
+}
@@ -0,0 +1,152 @@
+// FlagImageCache.java
+// Process-wide cache of flag bitmaps decoded at the size they are displayed
+package com.deitel.flagquiz;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import com.deitel.flagquiz.engine.BoundedLruCache;
+import com.deitel.flagquiz.engine.ByteBufferInputStream;
+import com.deitel.flagquiz.engine.ContentPacks;
+import com.deitel.flagquiz.engine.Downsampling;
+import com.deitel.flagquiz.engine.Flag;
+import com.deitel.flagquiz.engine.FlagAtlas;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+final class FlagImageCache {
+    private static FlagImageCache instance;
+
+    private final AssetManager assets;
+    private final ContentPacks packs;
+    private final BoundedLruCache<String, Bitmap> bitmaps;
+    private final Map<String, Object> decoding = new HashMap<>(); // key -> lock, while it is decoded
+
+    private FlagImageCache(AssetManager assets, ContentPacks packs, int maxBytes) {
+        this.assets = assets;
+        this.packs = packs;
+        bitmaps = new BoundedLruCache<>(maxBytes, new BoundedLruCache.Sizer<Bitmap>() {
+            @Override
+            public int sizeOf(Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        });
+    }
+
+    static synchronized FlagImageCache get(Context context) {
+        if (instance == null) {
+            // use an eighth of the heap for decoded flags
+            int maxBytes = (int) Math.min(Runtime.getRuntime().maxMemory() / 8,
+                    Integer.MAX_VALUE);
+            instance = new FlagImageCache(context.getApplicationContext().getAssets(),
+                    InstalledPacks.get(context), maxBytes);
+        }
+        return instance;
+    }
+
+    // returns flag decoded no larger than needed to fill width x height
+    // pixels; a size of 0 decodes at full resolution
+    Bitmap getBitmap(Flag flag, int width, int height) throws IOException {
+        return get(flag, false, width, height);
+    }
+
+    // returns flag's pre-scaled thumbnail decoded no taller than height
+    Bitmap getThumbnail(Flag flag, int height) throws IOException {
+        return get(flag, true, 0, height);
+    }
+
+    boolean contains(Flag flag, boolean thumbnail, int width, int height) {
+        return bitmaps.contains(key(flag, thumbnail, width, height));
+    }
+
+    // a miss decodes under the key's own lock, so the UI thread and the
+    // prefetcher asking for the same image decode it once between them
+    private Bitmap get(Flag flag, boolean thumbnail, int width, int height) throws IOException {
+        String key = key(flag, thumbnail, width, height);
+        Bitmap bitmap = bitmaps.get(key);
+        if (bitmap != null)
+            return bitmap;
+
+        Object lock;
+        synchronized (decoding) {
+            lock = decoding.get(key);
+            if (lock == null) {
+                lock = new Object();
+                decoding.put(key, lock);
+            }
+        }
+        try {
+            synchronized (lock) {
+                bitmap = bitmaps.get(key); // decoded while this thread waited
+                if (bitmap == null) {
+                    bitmap = decode(flag, thumbnail, width, height);
+                    bitmaps.put(key, bitmap);
+                }
+                return bitmap;
+            }
+        } finally {
+            synchronized (decoding) {
+                if (decoding.get(key) == lock)
+                    decoding.remove(key);
+            }
+        }
+    }
+
+    private static String key(Flag flag, boolean thumbnail, int width, int height) {
+        return flag.getFileName() + (thumbnail ? '#' : '@') + width + 'x' + height;
+    }
+
+    // decodes a pack's flag as it streams out of the pack's zip, and a
+    // bundled one straight from its region's memory-mapped atlas
+    private Bitmap decode(Flag flag, boolean thumbnail, int width, int height)
+            throws IOException {
+        InputStream packImage = packs.openImage(flag);
+        if (packImage != null) {
+            // packs have no pre-scaled thumbnails; the full image is
+            // downsampled to the thumbnail's height instead
+            try {
+                return decode(new BufferedInputStream(packImage), flag, width, height);
+            } finally {
+                packImage.close();
+            }
+        }
+
+        FlagAtlas atlas = FlagAtlases.get(assets, flag.getRegion());
+        ByteBuffer image = thumbnail ?
+                atlas.getThumbnail(flag.getFileName()) : atlas.getImage(flag.getFileName());
+        if (image == null)
+            throw new IOException(flag + " is missing from its atlas");
+        return decode(new ByteBufferInputStream(image), flag, width, height);
+    }
+
+    // stream must support mark() and reset()
+    private static Bitmap decode(InputStream stream, Flag flag, int width, int height)
+            throws IOException {
+        // read only the image bounds first to pick the sample size
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        stream.mark(Integer.MAX_VALUE);
+        BitmapFactory.decodeStream(stream, null, options);
+        stream.reset();
+
+        options.inSampleSize = Downsampling.inSampleSize(
+                options.outWidth, options.outHeight, width, height);
+        options.inJustDecodeBounds = false;
+        Bitmap bitmap = BitmapFactory.decodeStream(stream, null, options);
+        if (bitmap == null)
+            throw new IOException("Unable to decode " + flag);
+        return bitmap;
+    }
+
+    @Override
+    public String toString() {
+        return bitmaps.toString();
+    }
+}
@@ -0,0 +1,114 @@
+// FlagPrefetcher.java
+// Decodes upcoming flags into the FlagImageCache on a background thread
+package com.deitel.flagquiz;
+
+import android.os.Process;
+import android.util.Log;
+
+import com.deitel.flagquiz.engine.Flag;
+import com.deitel.flagquiz.engine.QuizMetrics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+final class FlagPrefetcher {
+    private static final String TAG = "FlagPrefetcher";
+    private static final int MAX_PENDING = 16; // one question's worth of images
+
+    private final FlagImageCache cache;
+    private final ThreadPoolExecutor executor;
+    private final List<Future<?>> pending = new ArrayList<>(); // guarded by this
+
+    FlagPrefetcher(FlagImageCache cache) {
+        this.cache = cache;
+
+        // a single low-priority thread; when the queue is full the oldest
+        // request is dropped since newer ones are closer to being needed,
+        // and its Future cancelled so submit() forgets it
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(MAX_PENDING),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(final Runnable runnable) {
+                        Thread thread = new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                                runnable.run();
+                            }
+                        }, TAG);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                },
+                new RejectedExecutionHandler() {
+                    @Override
+                    public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+                        if (executor.isShutdown())
+                            return;
+                        // the queue holds the FutureTasks submit() returned
+                        Runnable oldest = executor.getQueue().poll();
+                        if (oldest instanceof Future)
+                            ((Future<?>) oldest).cancel(false);
+                        executor.execute(task);
+                    }
+                });
+    }
+
+    // decodes flag at width x height unless it is already cached
+    void prefetch(Flag flag, int width, int height) {
+        submit(flag, false, width, height);
+    }
+
+    // decodes flag's thumbnail at height unless it is already cached
+    void prefetchThumbnail(Flag flag, int height) {
+        submit(flag, true, 0, height);
+    }
+
+    private synchronized void submit(final Flag flag, final boolean thumbnail,
+                        final int width, final int height) {
+        if (cache.contains(flag, thumbnail, width, height))
+            return;
+
+        // forget requests that already ran
+        for (Iterator<Future<?>> iterator = pending.iterator(); iterator.hasNext(); )
+            if (iterator.next().isDone())
+                iterator.remove();
+
+        QuizMetrics.increment(QuizMetrics.Counter.PREFETCHES);
+        pending.add(executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (thumbnail)
+                        cache.getThumbnail(flag, height);
+                    else
+                        cache.getBitmap(flag, width, height);
+                } catch (IOException exception) {
+                    Log.w(TAG, "Error prefetching " + flag, exception);
+                }
+            }
+        }));
+    }
+
+    // drops every queued request, e.g. when the quiz sequence changes
+    synchronized void cancel() {
+        for (Future<?> future : pending)
+            future.cancel(true);
+        pending.clear();
+        executor.getQueue().clear();
+    }
+
+    void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,77 @@
+// FlagStatsStore.java
+// Keeps every flag's answer history and saves each answer in the background
+package com.deitel.flagquiz;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.deitel.flagquiz.engine.Flag;
+import com.deitel.flagquiz.engine.FlagCatalog;
+import com.deitel.flagquiz.engine.FlagStats;
+import com.deitel.flagquiz.engine.FlagStatsFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+// FlagStats is read and changed on the quiz engine's thread only; save()
+// encodes the changed flag's record there and writes just that record on a
+// background thread.
+final class FlagStatsStore {
+    private static final String TAG = "FlagStatsStore";
+    private static final String FILE_NAME = "flag_stats";
+
+    private static FlagStatsStore instance;
+
+    private final FlagStats stats;
+    private FlagStatsFile file; // null if the file can't be opened
+    private final Executor executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, TAG);
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private FlagStatsStore(Context context, FlagCatalog catalog) {
+        stats = new FlagStats(catalog.size());
+        try {
+            file = new FlagStatsFile(new File(context.getFilesDir(), FILE_NAME));
+            file.read(catalog, stats);
+        } catch (IOException exception) {
+            Log.e(TAG, "Error reading flag stats", exception);
+        }
+    }
+
+    static synchronized FlagStatsStore get(Context context, FlagCatalog catalog) {
+        if (instance == null)
+            instance = new FlagStatsStore(context.getApplicationContext(), catalog);
+        return instance;
+    }
+
+    FlagStats getStats() {
+        return stats;
+    }
+
+    // saves flag's history after stats recorded an answer
+    void save(Flag flag) {
+        if (file == null)
+            return;
+
+        final int id = flag.getId();
+        final byte[] record = FlagStatsFile.encode(flag, stats);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    file.write(id, record);
+                } catch (IOException exception) {
+                    Log.e(TAG, "Error saving flag stats", exception);
+                }
+            }
+        });
+    }
+}
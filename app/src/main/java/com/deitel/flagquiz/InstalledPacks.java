@@ -0,0 +1,49 @@
+// InstalledPacks.java
+// Opens the ContentPacks in the app's storage once per process
+package com.deitel.flagquiz;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.deitel.flagquiz.engine.ContentPacks;
+
+import java.io.File;
+import java.io.IOException;
+
+// Packs are kept in files/packs. Zips copied into the app's external files
+// directory under packs/, e.g. with adb push, are installed from there
+// before the catalog is first loaded, so new packs show up at the next
+// launch. Opening the packs reads nothing; see ContentPacks.
+final class InstalledPacks {
+    private static final String TAG = "InstalledPacks";
+    static final String DIRECTORY = "packs";
+
+    private static ContentPacks packs;
+    private static boolean installed; // incoming packs were installed
+
+    private InstalledPacks() {
+    }
+
+    static synchronized ContentPacks get(Context context) {
+        if (packs == null)
+            packs = new ContentPacks(new File(context.getFilesDir(), DIRECTORY));
+        return packs;
+    }
+
+    // installs the incoming packs once per process; call off the UI thread
+    static synchronized void installIncoming(Context context) {
+        if (installed)
+            return;
+        installed = true;
+        File incoming = context.getExternalFilesDir(DIRECTORY); // null if unmounted
+        if (incoming == null)
+            return;
+        try {
+            int count = get(context).installAll(incoming);
+            if (count > 0)
+                Log.i(TAG, "Installed " + count + " packs");
+        } catch (IOException exception) {
+            Log.e(TAG, "Error installing packs", exception);
+        }
+    }
+}
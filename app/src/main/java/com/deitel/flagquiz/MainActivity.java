@@ -14,19 +14,27 @@ import android.support.v4.app.FragmentManager;
 import android.support.v4.app.FragmentTransaction;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.Toolbar;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.widget.Toast;
 
-import java.util.Objects;
+import com.deitel.flagquiz.engine.QuizMetrics;
+import com.deitel.flagquiz.engine.QuizSettings;
+
+import java.util.HashSet;
 import java.util.Set;
 
 public class MainActivity extends AppCompatActivity {
    // keys for reading data from SharedPreferences
    public static final String CHOICES = "pref_numberOfChoices";
    public static final String REGIONS = "pref_regionsToInclude";
-   public static final String CURRENTQUESTION = "pref_currentQuestion";
+   public static final String CURRENTQUESTION = "pref_currentQuestion"; // legacy, see QuizStateStore
    public static final String num_guesses = "pref_numberOfGuesses";
+   public static final String PLAYER = "pref_player"; // whose results are saved
+   public static final String ADAPTIVE = "pref_adaptiveDifficulty";
+   public static final String HARD_MODE = "pref_hardMode"; // lookalike distractors
+   private static final String TAG = "FlagQuiz Metrics";
 
    private boolean phoneMode = true; // used to force portrait mode
    private boolean preferencesChanged = true; // did preferences change?
@@ -37,21 +45,27 @@ public class MainActivity extends AppCompatActivity {
    @Override
    protected void onCreate(Bundle savedInstanceState) {
       super.onCreate(savedInstanceState);
+      QuizMetrics.setEnabled(BuildConfig.DEBUG); // time hot paths in debug builds
+      long launchStart = QuizMetrics.start();
       setContentView(R.layout.activity_main);
       Toolbar toolbar = (Toolbar) findViewById(R.id.toolbar);
       setSupportActionBar(toolbar);
 
       flagAndButtonFragment = new FlagAndButtonFragment();
+      flagAndButtonFragment.setLaunchStart(launchStart);
       FragmentTransaction transaction = getSupportFragmentManager().beginTransaction();
       transaction.replace(R.id.main_fragment_container, flagAndButtonFragment);
       transaction.commit();
-      // set default values in the app's SharedPreferences
-      PreferenceManager.setDefaultValues(this, R.xml.preferences, false);
 
-      // register listener for SharedPreferences changes
-      PreferenceManager.getDefaultSharedPreferences(getApplicationContext()).
-         registerOnSharedPreferenceChangeListener(
-            preferencesChangeListener);
+      // the first question doesn't need the rest of startup; a Runnable
+      // posted to a view that isn't attached yet runs after the first
+      // traversal, i.e. once the first frame is drawn
+      getWindow().getDecorView().post(new Runnable() {
+         @Override
+         public void run() {
+            finishStartup();
+         }
+      });
 
       // determine screen size
       int screenSize = getResources().getConfiguration().screenLayout &
@@ -69,33 +83,56 @@ public class MainActivity extends AppCompatActivity {
    }
 
 
+   // startup work deferred until after the first frame
+   private void finishStartup() {
+      // set default values in the app's SharedPreferences
+      PreferenceManager.setDefaultValues(this, R.xml.preferences, false);
+
+      // register listener for SharedPreferences changes; only now, so that
+      // setting the defaults doesn't restart the quiz
+      PreferenceManager.getDefaultSharedPreferences(getApplicationContext()).
+         registerOnSharedPreferenceChangeListener(
+            preferencesChangeListener);
+
+      flagAndButtonFragment.finishStartup();
+   }
+
    // called after onCreate completes execution
    @Override
    protected void onStart() {
       super.onStart();
 
       if (preferencesChanged) {
-         // now that the default preferences have been set,
-         // initialize MainActivityFragment and start the quiz
+         // initialize MainActivityFragment and start the quiz; defaults
+         // not yet set fall back to those in preferences.xml
          flagAndButtonFragment = (FlagAndButtonFragment)
             getSupportFragmentManager().findFragmentById(
                R.id.main_fragment_container);
 
-         flagAndButtonFragment.updateGuessRows(
-            PreferenceManager.getDefaultSharedPreferences(this));
-         flagAndButtonFragment.updateRegions(
-            PreferenceManager.getDefaultSharedPreferences(this));
+         flagAndButtonFragment.applySettings(QuizSettingsCache.get(this).get());
 
-         if (Objects.equals(PreferenceManager.getDefaultSharedPreferences(this).getString(CURRENTQUESTION, null), "") || formatPreferenceChanged) {
+         if (formatPreferenceChanged) {
             formatPreferenceChanged = false;
             flagAndButtonFragment.resetQuiz();
          } else {
-            flagAndButtonFragment.currentQuestionFromPreferences(PreferenceManager.getDefaultSharedPreferences(this));
+            // restores the saved question, or starts a quiz if none was saved
+            flagAndButtonFragment.restoreCurrentQuestion();
          }
          preferencesChanged = false;
       }
    }
 
+   // the quiz state is written in the background; make sure it is on
+   // disk before the process can be killed
+   @Override
+   protected void onPause() {
+      super.onPause();
+      QuizStateStore.get(this).flush();
+
+      if (QuizMetrics.isEnabled())
+         Log.d(TAG, QuizMetrics.dump());
+   }
+
    // show menu if app is running on a phone or a portrait-oriented tablet
    @Override
    public boolean onCreateOptionsMenu(Menu menu) {
@@ -122,8 +159,8 @@ public class MainActivity extends AppCompatActivity {
 
    @Override
    public void onBackPressed() {
-      flagAndButtonFragment.signalComingBack();
-      super.onBackPressed();
+      if (!flagAndButtonFragment.onBackPressed())
+         super.onBackPressed();
    }
 
    // listener for changes to the app's SharedPreferences
@@ -140,22 +177,24 @@ public class MainActivity extends AppCompatActivity {
                getSupportFragmentManager().findFragmentById(
                   R.id.main_fragment_container);
 
+            // the only place preferences are parsed
+            QuizSettings settings =
+               QuizSettingsCache.get(MainActivity.this).update(sharedPreferences, key);
+
             if (key.equals(CHOICES)) { // # of choices to display changed
-               quizFragment.updateGuessRows(sharedPreferences);
+               quizFragment.applySettings(settings);
                quizFragment.resetQuiz();
             }
             else if (key.equals(REGIONS)) { // regions to include changed
-               Set<String> regions =
-                  sharedPreferences.getStringSet(REGIONS, null);
-
-               if (regions != null && regions.size() > 0) {
-                  quizFragment.updateRegions(sharedPreferences);
+               if (settings.getRegionMask() != 0) {
+                  quizFragment.applySettings(settings);
                   quizFragment.resetQuiz();
                }
                else {
                   // must select one region--set North America as default
                   SharedPreferences.Editor editor =
                      sharedPreferences.edit();
+                  Set<String> regions = new HashSet<>();
                   regions.add(getString(R.string.default_region));
                   editor.putStringSet(REGIONS, regions);
                   editor.apply();
@@ -165,14 +204,21 @@ public class MainActivity extends AppCompatActivity {
                      Toast.LENGTH_SHORT).show();
                }
             }
+            else if (key.equals(num_guesses) || key.equals(ADAPTIVE) ||
+                    key.equals(HARD_MODE)) {
+               // guesses per question, adaptive difficulty or hard mode changed
+               quizFragment.applySettings(settings);
+            }
 
-            if (Integer.parseInt(sharedPreferences.getString(num_guesses, null)) > Integer.parseInt(sharedPreferences.getString(CHOICES, null))) {
+            if (settings.getGuesses() > settings.getChoices()) {
                Toast.makeText(MainActivity.this, "The number of guesses must be less than or equal to the number of choices.\n Setting the number of guess to the number of choices", Toast.LENGTH_SHORT).show();
                SharedPreferences.Editor editor =
                        sharedPreferences.edit();
-               editor.putString(num_guesses, sharedPreferences.getString(CHOICES, null));
+               editor.putString(num_guesses, String.valueOf(settings.getChoices()));
                editor.apply();
-            } else if (!key.equals(CURRENTQUESTION)) {
+            } else if (key.equals(CHOICES) ||
+                    (key.equals(REGIONS) && settings.getRegionMask() != 0)) {
+               // only these settings reset the quiz
                Toast.makeText(MainActivity.this,
                        R.string.restarting_quiz,
                        Toast.LENGTH_SHORT).show();
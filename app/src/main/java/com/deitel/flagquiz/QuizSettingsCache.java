@@ -0,0 +1,69 @@
+// QuizSettingsCache.java
+// Holds the QuizSettings parsed from the app's SharedPreferences
+package com.deitel.flagquiz;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.res.Resources;
+import android.preference.PreferenceManager;
+
+import com.deitel.flagquiz.engine.QuizSettings;
+import com.deitel.flagquiz.engine.Region;
+
+import java.util.Arrays;
+import java.util.Set;
+
+// Preferences are looked up and parsed only when MainActivity's preference
+// listener calls update(); everything else reads the current snapshot from
+// a volatile field. Missing preferences (before MainActivity sets the
+// defaults) fall back to the defaults of preferences.xml.
+final class QuizSettingsCache {
+    private static QuizSettingsCache instance;
+
+    private final QuizSettings defaults;
+    private volatile QuizSettings settings;
+
+    QuizSettingsCache(SharedPreferences preferences, QuizSettings defaults) {
+        this.defaults = defaults;
+        settings = read(preferences);
+    }
+
+    static synchronized QuizSettingsCache get(Context context) {
+        if (instance == null) {
+            Resources resources = context.getResources();
+            QuizSettings defaults = new QuizSettings(
+                    Integer.parseInt(resources.getString(R.string.default_choices)),
+                    Integer.parseInt(resources.getString(R.string.default_guesses)),
+                    Region.maskOf(Arrays.asList(resources.getStringArray(R.array.regions_list))));
+            instance = new QuizSettingsCache(
+                    PreferenceManager.getDefaultSharedPreferences(context), defaults);
+        }
+        return instance;
+    }
+
+    QuizSettings get() {
+        return settings;
+    }
+
+    // rebuilds the snapshot if key is one of the quiz's settings; returns
+    // the current one either way
+    QuizSettings update(SharedPreferences preferences, String key) {
+        if (MainActivity.CHOICES.equals(key) || MainActivity.num_guesses.equals(key) ||
+                MainActivity.REGIONS.equals(key) || MainActivity.ADAPTIVE.equals(key) ||
+                MainActivity.HARD_MODE.equals(key))
+            settings = read(preferences);
+        return settings;
+    }
+
+    private QuizSettings read(SharedPreferences preferences) {
+        String choices = preferences.getString(MainActivity.CHOICES, null);
+        String guesses = preferences.getString(MainActivity.num_guesses, null);
+        Set<String> regions = preferences.getStringSet(MainActivity.REGIONS, null);
+        return new QuizSettings(
+                choices != null ? Integer.parseInt(choices) : defaults.getChoices(),
+                guesses != null ? Integer.parseInt(guesses) : defaults.getGuesses(),
+                regions != null ? Region.maskOf(regions) : defaults.getRegionMask(),
+                preferences.getBoolean(MainActivity.ADAPTIVE, defaults.isAdaptive()),
+                preferences.getBoolean(MainActivity.HARD_MODE, defaults.isLookalikes()));
+    }
+}
@@ -0,0 +1,128 @@
+// QuizStateStore.java
+// Saves the current QuizState to its own file on a background thread
+package com.deitel.flagquiz;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import com.deitel.flagquiz.engine.CoalescingWriter;
+import com.deitel.flagquiz.engine.QuizMetrics;
+import com.deitel.flagquiz.engine.QuizState;
+import com.deitel.flagquiz.engine.QuizStateCodec;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+final class QuizStateStore {
+    private static final String TAG = "QuizStateStore";
+    private static final String FILE_NAME = "quiz_state";
+    private static final long WRITE_DELAY_MILLIS = 500; // coalescing window
+
+    private static QuizStateStore instance;
+
+    private final Context context;
+    private final AtomicFile file;
+    private final CoalescingWriter writer;
+    private String latest; // most recently saved state, written or not
+
+    private QuizStateStore(Context context) {
+        this.context = context;
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+        writer = new CoalescingWriter(
+                new CoalescingWriter.Sink() {
+                    @Override
+                    public void write(String value) throws IOException {
+                        writeFile(value);
+                    }
+                },
+                Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, TAG);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }),
+                WRITE_DELAY_MILLIS,
+                new CoalescingWriter.ErrorListener() {
+                    @Override
+                    public void onWriteFailed(IOException exception) {
+                        Log.e(TAG, "Error saving quiz state", exception);
+                    }
+                });
+    }
+
+    static synchronized QuizStateStore get(Context context) {
+        if (instance == null)
+            instance = new QuizStateStore(context.getApplicationContext());
+        return instance;
+    }
+
+    // queues state to be written, or an empty file if it's null; callers
+    // may keep changing their QuizState because it is encoded right away
+    synchronized void save(QuizState state) {
+        latest = state != null ? QuizStateCodec.encode(state) : "";
+        writer.submit(latest);
+    }
+
+    // returns the saved state, or null if there is none
+    synchronized QuizState load() {
+        if (latest == null)
+            latest = readFile();
+        return QuizStateCodec.decode(latest);
+    }
+
+    // writes any queued state before returning; called from onPause()
+    void flush() {
+        try {
+            writer.flush();
+        } catch (IOException exception) {
+            Log.e(TAG, "Error saving quiz state", exception);
+        }
+    }
+
+    private void writeFile(String value) throws IOException {
+        long start = QuizMetrics.start();
+        FileOutputStream stream = file.startWrite();
+        try {
+            stream.write(value.getBytes(StandardCharsets.UTF_8));
+            file.finishWrite(stream);
+        } catch (IOException exception) {
+            file.failWrite(stream);
+            throw exception;
+        }
+        QuizMetrics.stop(QuizMetrics.Timer.WRITE_STATE, start);
+    }
+
+    private String readFile() {
+        try {
+            return new String(file.readFully(), StandardCharsets.UTF_8);
+        } catch (FileNotFoundException exception) {
+            return readLegacyPreference();
+        } catch (IOException exception) {
+            Log.e(TAG, "Error reading quiz state", exception);
+            return null;
+        }
+    }
+
+    // earlier versions kept the state in the default SharedPreferences;
+    // move it over once so an update doesn't lose the quiz in progress
+    private String readLegacyPreference() {
+        SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(context);
+        String legacy = preferences.getString(MainActivity.CURRENTQUESTION, null);
+        if (legacy != null) {
+            SharedPreferences.Editor editor = preferences.edit();
+            editor.remove(MainActivity.CURRENTQUESTION);
+            editor.apply();
+        }
+        return legacy;
+    }
+}
@@ -4,8 +4,6 @@ package com.deitel.flagquiz;
 
 import android.os.Bundle;
 import android.preference.PreferenceFragment;
-import android.preference.Preference;
-import android.preference.PreferenceScreen;
 
 public class SettingsActivityFragment extends PreferenceFragment {
 
@@ -14,9 +12,6 @@ public class SettingsActivityFragment extends PreferenceFragment {
    public void onCreate(Bundle bundle) {
       super.onCreate(bundle);
       addPreferencesFromResource(R.xml.preferences);// load from XML
-      Preference currentQuestion = findPreference(MainActivity.CURRENTQUESTION);
-      PreferenceScreen screen = getPreferenceScreen();
-      screen.removePreference(currentQuestion);
    }
 }
 
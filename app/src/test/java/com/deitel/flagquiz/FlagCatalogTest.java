@@ -0,0 +1,77 @@
+package com.deitel.flagquiz;
+
+import com.deitel.flagquiz.engine.Flag;
+import com.deitel.flagquiz.engine.FlagCatalog;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the catalog generated by the generateFlagCatalog task against the source flag tree.
+ */
+public class FlagCatalogTest {
+   private static final File ASSETS = new File("src/main/flags");
+   private static final File CATALOG =
+           new File("build/generated/assets/flagCatalog/" + FlagCatalog.FILE_NAME);
+
+   private FlagCatalog catalog;
+
+   @Before
+   public void readCatalog() throws Exception {
+      try (InputStream in = new FileInputStream(CATALOG)) {
+         catalog = FlagCatalog.read(in);
+      }
+   }
+
+   @Test
+   public void regionsMatchAssetDirectories() {
+      Set<String> directories = new TreeSet<>();
+      for (File dir : ASSETS.listFiles())
+         if (dir.isDirectory())
+            directories.add(dir.getName());
+
+      assertEquals(directories, new TreeSet<>(catalog.getRegions()));
+   }
+
+   @Test
+   public void flagsMatchAssetFiles() {
+      int total = 0;
+      for (String region : catalog.getRegions()) {
+         String[] files = new File(ASSETS, region).list();
+         Arrays.sort(files);
+
+         List<String> expected = new ArrayList<>();
+         for (String file : files)
+            if (file.endsWith(".png"))
+               expected.add(file.substring(0, file.length() - ".png".length()));
+
+         List<String> actual = new ArrayList<>();
+         for (Flag flag : catalog.getFlags(region))
+            actual.add(flag.getFileName());
+         assertEquals(region, expected, actual);
+         total += expected.size();
+      }
+      assertEquals(total, catalog.size());
+   }
+
+   @Test
+   public void unknownRegionIsEmpty() {
+      assertTrue(catalog.getFlags("Atlantis").isEmpty());
+   }
+
+   @Test(expected = UnsupportedOperationException.class)
+   public void catalogIsImmutable() {
+      catalog.getFlags("Europe").clear();
+   }
+}
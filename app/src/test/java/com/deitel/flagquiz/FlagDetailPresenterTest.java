@@ -0,0 +1,85 @@
+package com.deitel.flagquiz;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import com.deitel.flagquiz.engine.FlagCatalog;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the answer detail is one view, bound again for each question.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class FlagDetailPresenterTest {
+   private static final int CORRECT_COLOR = 0xff00ff00;
+   private static final int INCORRECT_COLOR = 0xffff0000;
+
+   private final FlagCatalog catalog =
+           FlagCatalog.of(Arrays.asList("Europe-France", "South_America-Brazil"));
+   private FlagDetailPresenter presenter;
+   private FrameLayout container;
+
+   @Before
+   public void createPresenter() {
+      presenter = new FlagDetailPresenter(LayoutInflater.from(RuntimeEnvironment.application),
+              CORRECT_COLOR, INCORRECT_COLOR);
+      container = new FrameLayout(RuntimeEnvironment.application);
+   }
+
+   private String text(int id) {
+      return ((TextView) container.findViewById(id)).getText().toString();
+   }
+
+   @Test
+   public void detailIsInflatedOnce() {
+      assertFalse(presenter.isShowing());
+      presenter.show(container, catalog.getFlag(0), true);
+      View detail = container.getChildAt(0);
+      presenter.hide();
+      assertFalse(presenter.isShowing());
+
+      presenter.show(container, catalog.getFlag(1), false);
+      assertTrue(presenter.isShowing());
+      assertEquals(1, container.getChildCount());
+      assertSame(detail, container.getChildAt(0));
+   }
+
+   @Test
+   public void detailShowsTheAnswer() {
+      presenter.show(container, catalog.getFlag(1), true);
+      assertTrue(text(R.id.flagDetailTextView).contains("Region: South America"));
+      assertTrue(text(R.id.flagDetailTextView).contains("Flag: Brazil"));
+      assertEquals("Brazil!", text(R.id.flagDetailAnswerTextView));
+      assertEquals(CORRECT_COLOR,
+              ((TextView) container.findViewById(R.id.flagDetailAnswerTextView)).getCurrentTextColor());
+
+      presenter.show(container, catalog.getFlag(1), false);
+      assertEquals("The correct answer is Brazil!", text(R.id.flagDetailAnswerTextView));
+      assertEquals(INCORRECT_COLOR,
+              ((TextView) container.findViewById(R.id.flagDetailAnswerTextView)).getCurrentTextColor());
+   }
+
+   @Test
+   public void detailMovesToANewQuizView() {
+      presenter.show(container, catalog.getFlag(0), true);
+      View detail = container.getChildAt(0);
+
+      FrameLayout recreated = new FrameLayout(RuntimeEnvironment.application);
+      presenter.show(recreated, catalog.getFlag(0), true);
+      assertEquals(0, container.getChildCount());
+      assertSame(detail, recreated.getChildAt(0));
+   }
+}
@@ -0,0 +1,149 @@
+package com.deitel.flagquiz;
+
+import android.content.SharedPreferences;
+
+import com.deitel.flagquiz.engine.QuizSettings;
+import com.deitel.flagquiz.engine.Region;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class QuizSettingsCacheTest {
+   private static final QuizSettings DEFAULTS = new QuizSettings(4, 4, Region.ALL);
+
+   private final CountingPreferences preferences = new CountingPreferences();
+   private QuizSettingsCache cache;
+
+   // an in-memory SharedPreferences that counts every lookup
+   private static class CountingPreferences implements SharedPreferences {
+      final Map<String, Object> values = new HashMap<>();
+      int lookups;
+
+      @Override
+      public Map<String, ?> getAll() {
+         ++lookups;
+         return new HashMap<>(values);
+      }
+
+      @Override
+      public String getString(String key, String defaultValue) {
+         ++lookups;
+         return values.containsKey(key) ? (String) values.get(key) : defaultValue;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public Set<String> getStringSet(String key, Set<String> defaultValues) {
+         ++lookups;
+         return values.containsKey(key) ? (Set<String>) values.get(key) : defaultValues;
+      }
+
+      @Override
+      public int getInt(String key, int defaultValue) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public long getLong(String key, long defaultValue) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public float getFloat(String key, float defaultValue) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean getBoolean(String key, boolean defaultValue) {
+         ++lookups;
+         return values.containsKey(key) ? (Boolean) values.get(key) : defaultValue;
+      }
+
+      @Override
+      public boolean contains(String key) {
+         ++lookups;
+         return values.containsKey(key);
+      }
+
+      @Override
+      public Editor edit() {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void registerOnSharedPreferenceChangeListener(
+              OnSharedPreferenceChangeListener listener) {
+      }
+
+      @Override
+      public void unregisterOnSharedPreferenceChangeListener(
+              OnSharedPreferenceChangeListener listener) {
+      }
+   }
+
+   @Before
+   public void createCache() {
+      preferences.values.put(MainActivity.CHOICES, "6");
+      preferences.values.put(MainActivity.num_guesses, "2");
+      preferences.values.put(MainActivity.REGIONS,
+              new HashSet<>(Arrays.asList("Asia", "Europe")));
+      cache = new QuizSettingsCache(preferences, DEFAULTS);
+   }
+
+   @Test
+   public void preferencesAreParsedOnce() {
+      QuizSettings settings = cache.get();
+      assertEquals(6, settings.getChoices());
+      assertEquals(2, settings.getGuesses());
+      assertEquals(Region.ASIA.bit() | Region.EUROPE.bit(), settings.getRegionMask());
+
+      // what every click reads
+      int lookups = preferences.lookups;
+      for (int click = 0; click < 1000; click++)
+         assertSame(settings, cache.get());
+      assertEquals(lookups, preferences.lookups);
+   }
+
+   @Test
+   public void changesPropagateOnUpdate() {
+      QuizSettings before = cache.get();
+      preferences.values.put(MainActivity.CHOICES, "8");
+      assertSame(before, cache.get()); // not until the listener fires
+
+      QuizSettings after = cache.update(preferences, MainActivity.CHOICES);
+      assertSame(after, cache.get());
+      assertEquals(8, after.getChoices());
+      assertEquals(2, after.getGuesses());
+
+      preferences.values.put(MainActivity.REGIONS, new HashSet<>(Arrays.asList("Oceania")));
+      assertEquals(Region.OCEANIA.bit(), cache.update(preferences, MainActivity.REGIONS).getRegionMask());
+      preferences.values.put(MainActivity.num_guesses, "5");
+      assertEquals(5, cache.update(preferences, MainActivity.num_guesses).getGuesses());
+      preferences.values.put(MainActivity.ADAPTIVE, true);
+      assertTrue(cache.update(preferences, MainActivity.ADAPTIVE).isAdaptive());
+      preferences.values.put(MainActivity.HARD_MODE, true);
+      assertTrue(cache.update(preferences, MainActivity.HARD_MODE).isLookalikes());
+   }
+
+   @Test
+   public void otherKeysKeepTheSnapshot() {
+      QuizSettings settings = cache.get();
+      int lookups = preferences.lookups;
+      assertSame(settings, cache.update(preferences, MainActivity.CURRENTQUESTION));
+      assertEquals(lookups, preferences.lookups);
+   }
+
+   @Test
+   public void missingPreferencesUseTheDefaults() {
+      preferences.values.clear();
+      assertEquals(DEFAULTS, new QuizSettingsCache(preferences, DEFAULTS).get());
+   }
+}
@@ -0,0 +1,69 @@
+package com.deitel.flagquiz;
+
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that startup work MainActivity defers really waits for the first frame.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class StartupOrderTest {
+   private SharedPreferences preferences;
+
+   @Before
+   public void pauseMainLooper() {
+      preferences = PreferenceManager.getDefaultSharedPreferences(RuntimeEnvironment.application);
+      // keeps Runnables posted during launch queued, like the first frame
+      // does on a device
+      ShadowLooper.pauseMainLooper();
+   }
+
+   @After
+   public void unPauseMainLooper() {
+      ShadowLooper.unPauseMainLooper();
+   }
+
+   private MainActivity launch() {
+      return Robolectric.buildActivity(MainActivity.class)
+              .create().start().resume().visible().get();
+   }
+
+   @Test
+   public void questionIsSetUpBeforeTheDefaults() {
+      MainActivity activity = launch();
+
+      // the quiz was set up from the fallback defaults...
+      assertEquals(View.VISIBLE, activity.findViewById(R.id.row2LinearLayout).getVisibility());
+      assertEquals(View.GONE, activity.findViewById(R.id.row3LinearLayout).getVisibility());
+      // ...while the defaults themselves wait for the first frame
+      assertFalse(preferences.contains(MainActivity.CHOICES));
+
+      ShadowLooper.runUiThreadTasks();
+      assertEquals("4", preferences.getString(MainActivity.CHOICES, null));
+      assertEquals("4", preferences.getString(MainActivity.num_guesses, null));
+      assertFalse(preferences.getStringSet(MainActivity.REGIONS, null).isEmpty());
+   }
+
+   @Test
+   public void settingsAreWatchedAfterTheFirstFrame() {
+      MainActivity activity = launch();
+      ShadowLooper.runUiThreadTasks();
+
+      preferences.edit().putString(MainActivity.CHOICES, "8").commit();
+      assertEquals(View.VISIBLE, activity.findViewById(R.id.row4LinearLayout).getVisibility());
+   }
+}
@@ -0,0 +1,51 @@
+package com.deitel.flagquiz.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Game-over work done for SessionStore: offering a result to a board that
+ * has seen results from many players, and reading the top ten.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+public class LeaderboardBenchmark {
+   @Param({"1000", "50000"})
+   public int players;
+
+   private final Random random = new SplitMix64(42);
+   private Leaderboard board;
+   private long finishedAt;
+
+   @Setup(Level.Trial)
+   public void fillBoard() {
+      board = Leaderboard.byScore(100);
+      for (int i = 0; i < players; i++)
+         board.offer(nextResult());
+   }
+
+   private QuizResult nextResult() {
+      int correct = 1 + random.nextInt(10);
+      return new QuizResult("player" + random.nextInt(players), correct,
+              correct + random.nextInt(15), 20000 + random.nextInt(200000), ++finishedAt);
+   }
+
+   @Benchmark
+   public boolean offer() {
+      return board.offer(nextResult());
+   }
+
+   @Benchmark
+   public List<QuizResult> topTen() {
+      return board.top(10);
+   }
+}
@@ -0,0 +1,67 @@
+package com.deitel.flagquiz.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Per-question work done by QuizEngine.nextQuestion() and guess(): finding
+ * the answer in the pool's DistractorEngine, picking eight choices, naming
+ * them, and saving and restoring the question.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+public class QuestionBenchmark {
+   @Param({"250", "5000", "100000"})
+   public int catalogSize;
+
+   private List<Flag> pool;
+   private final int[] choices = new int[8];
+   private final Random random = new SplitMix64(42);
+   private DistractorEngine distractors;
+   private Flag answer;
+   private String encodedState;
+
+   @Setup(Level.Trial)
+   public void createQuiz() {
+      RegionPools pools = new RegionPools(SyntheticCatalogs.create(catalogSize));
+      pool = pools.getPool(Region.ALL);
+      distractors = pools.getDistractors(Region.ALL);
+      answer = pool.get(pool.size() / 2);
+      encodedState = QuizStateCodec.encode(createState());
+   }
+
+   private QuizState createState() {
+      int count = distractors.pickChoices(distractors.indexOf(answer), 8, random, choices);
+      String[] fileNames = new String[count];
+      for (int i = 0; i < count; i++)
+         fileNames[i] = pool.get(choices[i]).getFileName();
+      return new QuizState(random.nextLong(), answer.getFileName(), fileNames, 4, 3, 1, 6);
+   }
+
+   @Benchmark
+   public void pickAndNameChoices(Blackhole blackhole) {
+      int count = distractors.pickChoices(distractors.indexOf(answer), 8, random, choices);
+      for (int i = 0; i < count; i++)
+         blackhole.consume(pool.get(choices[i]).getCountryName());
+   }
+
+   @Benchmark
+   public String encodeState() {
+      return QuizStateCodec.encode(createState());
+   }
+
+   @Benchmark
+   public QuizState decodeState() {
+      return QuizStateCodec.decode(encodedState);
+   }
+}
@@ -0,0 +1,65 @@
+package com.deitel.flagquiz.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares FisherYatesSampler with the rejection loop addFlagsToQuiz() used
+ * before it. quizSize == poolSize is the rejection loop's worst case.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+public class QuizSamplerBenchmark {
+   @Param({"10", "100", "1000", "10000"})
+   public int poolSize;
+
+   @Param({"10"})
+   public int quizSize;
+
+   private List<String> fileNameList;
+   private Random random;
+   private QuizSampler sampler;
+
+   @Setup(Level.Trial)
+   public void createPool() {
+      fileNameList = new ArrayList<>();
+      for (int i = 0; i < poolSize; i++)
+         fileNameList.add("Region-Country_" + i);
+      random = new Random(42);
+      sampler = new FisherYatesSampler();
+   }
+
+   @Benchmark
+   public List<String> rejectionSampling() {
+      List<String> quizCountriesList = new ArrayList<>();
+      int flagCounter = 1;
+      int numberOfFlags = fileNameList.size();
+
+      while (flagCounter <= quizSize) {
+         String filename = fileNameList.get(random.nextInt(numberOfFlags));
+         if (!quizCountriesList.contains(filename)) {
+            quizCountriesList.add(filename);
+            ++flagCounter;
+         }
+      }
+      return quizCountriesList;
+   }
+
+   @Benchmark
+   public List<String> fisherYatesSampling() {
+      List<String> quizCountriesList = new ArrayList<>();
+      for (int index : sampler.sample(fileNameList.size(), quizSize, random))
+         quizCountriesList.add(fileNameList.get(index));
+      return quizCountriesList;
+   }
+}
@@ -0,0 +1,62 @@
+package com.deitel.flagquiz.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Spaced-repetition scheduling over catalogs with a random answer history:
+ * picking a quiz from the stats heap and recording an answer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+public class QuizSchedulerBenchmark {
+   private static final long NOW = 1000L * 24 * 60 * 60 * 1000;
+
+   @Param({"250", "5000", "100000"})
+   public int catalogSize;
+
+   private FlagCatalog catalog;
+   private FlagStats stats;
+   private QuizScheduler scheduler;
+   private List<Flag> pool;
+   private final List<Flag> quiz = new ArrayList<>();
+   private final Random random = new Random(42);
+   private int nextId;
+
+   @Setup(Level.Trial)
+   public void createHistory() {
+      catalog = SyntheticCatalogs.create(catalogSize);
+      pool = new RegionPools(catalog).getPool(Region.ALL);
+
+      // a third of the flags never asked, the rest answered over the last 30 days
+      stats = new FlagStats(catalog.size());
+      for (int id = 0; id < catalog.size(); id++)
+         for (int answers = random.nextInt(3); answers > 0; answers--)
+            stats.record(id, random.nextInt(4) > 0, NOW - random.nextInt(30 * 24 * 60) * 60000L);
+      scheduler = new QuizScheduler(stats);
+   }
+
+   @Benchmark
+   public List<Flag> pickQuiz() {
+      scheduler.pickQuiz(pool, 10, NOW, random, quiz);
+      return quiz;
+   }
+
+   @Benchmark
+   public byte[] recordAnswer() {
+      Flag flag = catalog.getFlag(nextId);
+      nextId = (nextId + 1) % catalog.size();
+      stats.record(flag.getId(), true, NOW);
+      return FlagStatsFile.encode(flag, stats);
+   }
+}
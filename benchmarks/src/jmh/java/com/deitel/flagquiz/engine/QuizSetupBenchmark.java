@@ -0,0 +1,72 @@
+package com.deitel.flagquiz.engine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Per-quiz setup work done by QuizEngine.initFlags(): building a region
+ * mask's pool and its DistractorEngine the first time the mask is used,
+ * switching to the cached ones of another mask, and picking the quiz's
+ * flags with QuizScheduler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+public class QuizSetupBenchmark {
+   @Param({"250", "5000", "100000"})
+   public int catalogSize;
+
+   private FlagCatalog catalog;
+   private RegionPools pools;
+   private QuizScheduler scheduler;
+   private int mask;
+   private List<Flag> pool;
+   private final List<Flag> quiz = new ArrayList<>();
+   private final Random random = new Random(42);
+
+   @Setup(Level.Trial)
+   public void createCatalog() {
+      catalog = SyntheticCatalogs.create(catalogSize);
+      pools = new RegionPools(catalog);
+      for (int i = 1; i <= Region.ALL; i++)
+         pools.getDistractors(i); // warm every mask's cache
+      pool = pools.getPool(Region.ALL);
+      scheduler = new QuizScheduler(new FlagStats(catalog.size()));
+   }
+
+   @Benchmark
+   public DistractorEngine buildPool() {
+      return new RegionPools(catalog).getDistractors(Region.ALL);
+   }
+
+   @Benchmark
+   public DistractorEngine switchRegions() {
+      mask = mask % Region.ALL + 1;
+      return pools.getDistractors(mask);
+   }
+
+   @Benchmark
+   public List<Flag> pickQuiz() {
+      scheduler.pickQuiz(pool, 10, System.currentTimeMillis(), random, quiz);
+      return quiz;
+   }
+
+   @Benchmark
+   public List<Flag> wholeSetup() {
+      mask = mask % Region.ALL + 1;
+      List<Flag> switched = pools.getPool(mask);
+      pools.getDistractors(mask);
+      scheduler.pickQuiz(switched, Math.min(10, switched.size()), System.currentTimeMillis(),
+              random, quiz);
+      return quiz;
+   }
+}
@@ -0,0 +1,24 @@
+package com.deitel.flagquiz.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds catalogs of any size shaped like the bundled one: seven regions
+ * with "Region-Country_Name" file names.
+ */
+final class SyntheticCatalogs {
+   static final List<String> REGIONS = Arrays.asList("Africa", "Asia", "Europe",
+           "Game_of_Thrones", "North_America", "Oceania", "South_America");
+
+   private SyntheticCatalogs() {
+   }
+
+   static FlagCatalog create(int size) {
+      List<String> fileNames = new ArrayList<>(size);
+      for (int i = 0; i < size; i++)
+         fileNames.add(String.format("%s-Country_%06d", REGIONS.get(i % REGIONS.size()), i));
+      return FlagCatalog.of(fileNames);
+   }
+}
@@ -0,0 +1,101 @@
+// BoundedLruCache.java
+// Least-recently-used cache bounded by the total size of its values
+package com.deitel.flagquiz.engine;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class BoundedLruCache<K, V> {
+    // measures a value in the same unit as the cache's maximum size
+    public interface Sizer<V> {
+        int sizeOf(V value);
+    }
+
+    // access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<K, V> map = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxSize;
+    private final Sizer<V> sizer;
+    private int size;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public BoundedLruCache(int maxSize, Sizer<V> sizer) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        this.maxSize = maxSize;
+        this.sizer = sizer;
+    }
+
+    // returns the cached value, marking it most recently used, or null
+    public synchronized V get(K key) {
+        V value = map.get(key);
+        if (value != null)
+            ++hitCount;
+        else
+            ++missCount;
+        return value;
+    }
+
+    // caches value under key and evicts older entries until it fits;
+    // a value larger than the whole cache is not kept
+    public synchronized void put(K key, V value) {
+        int valueSize = sizer.sizeOf(value);
+        V previous = map.remove(key);
+        if (previous != null)
+            size -= sizer.sizeOf(previous);
+
+        if (valueSize > maxSize)
+            return;
+
+        trimTo(maxSize - valueSize);
+        map.put(key, value);
+        size += valueSize;
+    }
+
+    public synchronized boolean contains(K key) {
+        return map.containsKey(key);
+    }
+
+    public synchronized void clear() {
+        map.clear();
+        size = 0;
+    }
+
+    private void trimTo(int targetSize) {
+        Iterator<Map.Entry<K, V>> eldest = map.entrySet().iterator();
+        while (size > targetSize && eldest.hasNext()) {
+            size -= sizer.sizeOf(eldest.next().getValue());
+            eldest.remove();
+            ++evictionCount;
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("size=%d/%d hits=%d misses=%d evictions=%d",
+                size, maxSize, hitCount, missCount, evictionCount);
+    }
+}
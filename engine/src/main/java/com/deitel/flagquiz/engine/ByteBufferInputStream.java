@@ -0,0 +1,61 @@
+// ByteBufferInputStream.java
+// InputStream that reads a ByteBuffer, e.g. a slice of a memory-mapped file
+package com.deitel.flagquiz.engine;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+// Reads straight from the buffer, so bytes of a mapped file are copied only
+// into the caller's array. Supports mark() and reset() with no read limit.
+public class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+    private int mark;
+
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+        mark = buffer.position();
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        if (length == 0)
+            return 0;
+        if (!buffer.hasRemaining())
+            return -1;
+        length = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, length);
+        return length;
+    }
+
+    @Override
+    public long skip(long count) {
+        int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+        buffer.position(buffer.position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        mark = buffer.position();
+    }
+
+    @Override
+    public synchronized void reset() {
+        buffer.position(mark);
+    }
+}
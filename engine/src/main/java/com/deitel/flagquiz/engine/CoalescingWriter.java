@@ -0,0 +1,100 @@
+// CoalescingWriter.java
+// Batches rapid updates of a value into occasional background writes
+package com.deitel.flagquiz.engine;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Every submit() replaces the pending value; the first one after a write
+// schedules the next write delayMillis later, so a burst of updates costs
+// one write and no update waits longer than delayMillis. flush() writes
+// the pending value on the calling thread right away. A value whose write
+// fails stays pending, unless a newer one has been submitted meanwhile, so
+// the next submit() or flush() writes it again.
+public class CoalescingWriter {
+    // destination of the coalesced values, e.g. a file
+    public interface Sink {
+        void write(String value) throws IOException;
+    }
+
+    // reports writes that failed on the background thread
+    public interface ErrorListener {
+        void onWriteFailed(IOException exception);
+    }
+
+    private final Sink sink;
+    private final ScheduledExecutorService executor;
+    private final long delayMillis;
+    private final ErrorListener errorListener;
+    private final Object writeLock = new Object(); // keeps writes in order
+
+    private String pending; // latest value not yet written, or null
+    private ScheduledFuture<?> scheduled; // the next background write
+    private long writeCount;
+
+    private final Runnable backgroundWrite = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                writePending();
+            } catch (IOException exception) {
+                if (errorListener != null)
+                    errorListener.onWriteFailed(exception);
+            }
+        }
+    };
+
+    public CoalescingWriter(Sink sink, ScheduledExecutorService executor,
+                            long delayMillis, ErrorListener errorListener) {
+        this.sink = sink;
+        this.executor = executor;
+        this.delayMillis = delayMillis;
+        this.errorListener = errorListener;
+    }
+
+    public synchronized void submit(String value) {
+        pending = value;
+        if (scheduled == null)
+            scheduled = executor.schedule(backgroundWrite, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // writes the pending value, if any, before returning
+    public void flush() throws IOException {
+        writePending();
+    }
+
+    private void writePending() throws IOException {
+        synchronized (writeLock) {
+            String value;
+            synchronized (this) {
+                value = pending;
+                pending = null;
+                if (scheduled != null) {
+                    scheduled.cancel(false);
+                    scheduled = null;
+                }
+            }
+
+            if (value != null) {
+                try {
+                    sink.write(value);
+                } catch (IOException exception) {
+                    synchronized (this) {
+                        if (pending == null)
+                            pending = value;
+                    }
+                    throw exception;
+                }
+                synchronized (this) {
+                    ++writeCount;
+                }
+            }
+        }
+    }
+
+    public synchronized long getWriteCount() {
+        return writeCount;
+    }
+}
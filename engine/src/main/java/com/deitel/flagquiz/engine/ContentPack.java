@@ -0,0 +1,118 @@
+// ContentPack.java
+// One installed pack of extra flags: a zip read a piece at a time
+package com.deitel.flagquiz.engine;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+// A pack is a zip holding
+//   manifest.txt                       one "Region-Country" file name per
+//                                      line, like the app's flag catalog
+//   <Region>/<Region>-<Country>.png    every flag the manifest lists, at
+//                                      the same path as a bundled asset
+// <Region> must be the folder of one of the Region values: the quiz only
+// asks flags of regions it can enable, so a pack of a new region is
+// rejected rather than adding flags no quiz would ever show. Nothing is
+// extracted. The manifest should be the zip's first entry, so
+// reading it streams only the start of the file; images are inflated
+// straight out of the zip, whose central directory is read when the first
+// one is opened.
+public final class ContentPack implements Closeable {
+    public static final String MANIFEST = "manifest.txt";
+    public static final String EXTENSION = ".zip";
+
+    private final File file;
+    private ZipFile zip; // null until the first image
+
+    public ContentPack(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    // the flags the manifest lists, in its order; throws IOException if
+    // there's no manifest or a line isn't a flag's file name in a Region
+    public List<String> readManifest() throws IOException {
+        ZipInputStream in = new ZipInputStream(new FileInputStream(file));
+        try {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null)
+                if (entry.getName().equals(MANIFEST))
+                    return parseManifest(in);
+        } finally {
+            in.close();
+        }
+        throw new IOException(file.getName() + " has no " + MANIFEST);
+    }
+
+    private static List<String> parseManifest(InputStream in) throws IOException {
+        BufferedReader reader =
+                new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<String> fileNames = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty())
+                continue;
+            if (!FlagCatalog.isFileName(line))
+                throw new IOException("Bad flag name in " + MANIFEST + ": " + line);
+            if (!isInRegion(line))
+                throw new IOException("Unknown region in " + MANIFEST + ": " + line);
+            fileNames.add(line);
+        }
+        return fileNames;
+    }
+
+    // true if a "Region-Country" file name's region is one of Region's
+    static boolean isInRegion(String fileName) {
+        return Region.forFolder(fileName.substring(0, fileName.indexOf('-'))) != null;
+    }
+
+    // throws IOException unless every flag in fileNames has an image
+    public synchronized void checkImages(List<String> fileNames) throws IOException {
+        ZipFile zip = open();
+        for (String fileName : fileNames)
+            if (zip.getEntry(imagePath(fileName)) == null)
+                throw new IOException(file.getName() + " has no image of " + fileName);
+    }
+
+    // the PNG bytes of a flag, inflated as they're read, or null if the
+    // pack hasn't got it; the caller closes the stream
+    public synchronized InputStream openImage(String fileName) throws IOException {
+        ZipFile zip = open();
+        ZipEntry entry = zip.getEntry(imagePath(fileName));
+        return entry != null ? zip.getInputStream(entry) : null;
+    }
+
+    private ZipFile open() throws IOException {
+        if (zip == null)
+            zip = new ZipFile(file);
+        return zip;
+    }
+
+    // same as Flag.getAssetPath()
+    private static String imagePath(String fileName) {
+        return fileName.substring(0, fileName.indexOf('-')) + "/" + fileName + ".png";
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (zip != null) {
+            zip.close();
+            zip = null;
+        }
+    }
+}
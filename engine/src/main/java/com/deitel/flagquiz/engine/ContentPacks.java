@@ -0,0 +1,290 @@
+// ContentPacks.java
+// The installed ContentPacks and one index of every flag they add
+package com.deitel.flagquiz.engine;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Files in the directory:
+//   <pack>.zip      each installed pack, as it was given to install()
+//   packs.index     every pack's manifest, rewritten when a pack is
+//                   installed or removed: P;<pack> followed by an F;<flag>
+//                   line per flag, packs in the order they were installed
+// Listing the packs' flags reads only packs.index, so it costs the same
+// one file however many packs there are; a pack's zip is opened by the
+// first of its images to be shown. The zips' manifests are only read to
+// install a pack, or to rebuild a missing index. A flag listed by more
+// than one pack comes from the last one installed.
+public final class ContentPacks {
+    static final String INDEX_FILE = "packs.index";
+
+    private final File directory;
+    private Map<String, List<String>> flagsByPack; // null until loaded
+    private final Map<String, String> packByFlag = new HashMap<>();
+    private final Map<String, ContentPack> openPacks = new HashMap<>();
+
+    public ContentPacks(File directory) {
+        this.directory = directory;
+    }
+
+    // letters, digits, '-' and '_', so a name is a safe file name
+    public static boolean isPackName(String name) {
+        if (name.isEmpty())
+            return false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') ||
+                    (c >= '0' && c <= '9') || c == '-' || c == '_'))
+                return false;
+        }
+        return true;
+    }
+
+    // copies the zip read from in into the directory as pack name, replacing
+    // any pack of that name; throws IOException, and keeps what was
+    // installed, if the zip isn't a valid pack
+    public synchronized void install(String name, InputStream in) throws IOException {
+        if (!isPackName(name))
+            throw new IllegalArgumentException("Bad pack name " + name);
+        loadIndex();
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Can't create " + directory);
+
+        File temporary = new File(directory, name + ContentPack.EXTENSION + ".new");
+        ContentPack pack = new ContentPack(temporary);
+        List<String> fileNames;
+        try {
+            copy(in, temporary);
+            fileNames = pack.readManifest();
+            pack.checkImages(fileNames);
+        } catch (IOException exception) {
+            pack.close();
+            temporary.delete();
+            throw exception;
+        }
+        pack.close();
+
+        closePack(name);
+        replace(temporary, packFile(name));
+        flagsByPack.remove(name);
+        flagsByPack.put(name, fileNames);
+        indexFlags();
+        writeIndex();
+    }
+
+    // installs every zip in incoming, e.g. ones downloaded since the last
+    // launch, deleting each one afterwards, valid or not; returns the number
+    // installed
+    public int installAll(File incoming) throws IOException {
+        File[] files = incoming.listFiles();
+        if (files == null)
+            return 0;
+        Arrays.sort(files);
+        int installed = 0;
+        for (File file : files) {
+            String fileName = file.getName();
+            if (!fileName.endsWith(ContentPack.EXTENSION))
+                continue;
+            String name = fileName.substring(0,
+                    fileName.length() - ContentPack.EXTENSION.length());
+            if (isPackName(name)) {
+                InputStream in = new FileInputStream(file);
+                try {
+                    install(name, in);
+                    ++installed;
+                } catch (IOException exception) {
+                    // not a pack; deleted all the same
+                } finally {
+                    in.close();
+                }
+            }
+            file.delete();
+        }
+        return installed;
+    }
+
+    // returns false if there's no pack of that name
+    public synchronized boolean remove(String name) throws IOException {
+        loadIndex();
+        if (flagsByPack.remove(name) == null)
+            return false;
+        closePack(name);
+        packFile(name).delete();
+        indexFlags();
+        writeIndex();
+        return true;
+    }
+
+    // names of the installed packs, in the order they were installed
+    public synchronized List<String> getPackNames() throws IOException {
+        loadIndex();
+        return new ArrayList<>(flagsByPack.keySet());
+    }
+
+    // file names of every flag the packs add, e.g. for FlagCatalog.plus()
+    public synchronized List<String> getFileNames() throws IOException {
+        loadIndex();
+        List<String> fileNames = new ArrayList<>(packByFlag.size());
+        for (List<String> packFlags : flagsByPack.values())
+            fileNames.addAll(packFlags);
+        return fileNames;
+    }
+
+    // the PNG bytes of flag streamed from its pack, or null if no pack has
+    // it, e.g. for a bundled flag; the caller closes the stream
+    public synchronized InputStream openImage(Flag flag) throws IOException {
+        loadIndex();
+        String name = packByFlag.get(flag.getFileName());
+        if (name == null)
+            return null;
+        ContentPack pack = openPacks.get(name);
+        if (pack == null) {
+            pack = new ContentPack(packFile(name));
+            openPacks.put(name, pack);
+        }
+        return pack.openImage(flag.getFileName());
+    }
+
+    // closes every zip opened for images
+    public synchronized void close() throws IOException {
+        for (ContentPack pack : openPacks.values())
+            pack.close();
+        openPacks.clear();
+    }
+
+    private File packFile(String name) {
+        return new File(directory, name + ContentPack.EXTENSION);
+    }
+
+    private void closePack(String name) throws IOException {
+        ContentPack pack = openPacks.remove(name);
+        if (pack != null)
+            pack.close();
+    }
+
+    private void loadIndex() throws IOException {
+        if (flagsByPack != null)
+            return;
+        Map<String, List<String>> packs = new LinkedHashMap<>();
+        boolean read = readIndex(packs);
+        flagsByPack = packs;
+        if (!read)
+            rebuildIndex();
+        indexFlags();
+    }
+
+    // returns false if there's no index file
+    private boolean readIndex(Map<String, List<String>> packs) throws IOException {
+        BufferedReader reader;
+        try {
+            reader = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(new File(directory, INDEX_FILE)),
+                    StandardCharsets.UTF_8));
+        } catch (FileNotFoundException exception) {
+            return false;
+        }
+        try {
+            List<String> fileNames = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("P;")) {
+                    fileNames = new ArrayList<>();
+                    packs.put(line.substring(2), fileNames);
+                } else if (line.startsWith("F;") && fileNames != null &&
+                        FlagCatalog.isFileName(line.substring(2)) &&
+                        ContentPack.isInRegion(line.substring(2))) {
+                    fileNames.add(line.substring(2));
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return true;
+    }
+
+    // the index from every pack's manifest, if the index file was lost;
+    // zips that aren't packs are left out
+    private void rebuildIndex() throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null)
+            return;
+        Arrays.sort(files);
+        for (File file : files) {
+            String fileName = file.getName();
+            if (!fileName.endsWith(ContentPack.EXTENSION))
+                continue;
+            String name = fileName.substring(0,
+                    fileName.length() - ContentPack.EXTENSION.length());
+            if (!isPackName(name))
+                continue;
+            try {
+                flagsByPack.put(name, new ContentPack(file).readManifest());
+            } catch (IOException exception) {
+                // not a pack
+            }
+        }
+        writeIndex();
+    }
+
+    private void indexFlags() {
+        packByFlag.clear();
+        for (Map.Entry<String, List<String>> pack : flagsByPack.entrySet())
+            for (String fileName : pack.getValue())
+                packByFlag.put(fileName, pack.getKey());
+    }
+
+    // replaces the index file with a complete new one
+    private void writeIndex() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Can't create " + directory);
+        File temporary = new File(directory, INDEX_FILE + ".new");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(temporary),
+                StandardCharsets.UTF_8);
+        try {
+            for (Map.Entry<String, List<String>> pack : flagsByPack.entrySet()) {
+                writer.write("P;" + pack.getKey() + '\n');
+                for (String fileName : pack.getValue())
+                    writer.write("F;" + fileName + '\n');
+            }
+        } finally {
+            writer.close();
+        }
+        replace(temporary, new File(directory, INDEX_FILE));
+    }
+
+    private static void copy(InputStream in, File file) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0)
+                out.write(buffer, 0, read);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void replace(File temporary, File file) throws IOException {
+        if (!temporary.renameTo(file)) {
+            // some file systems won't rename over an existing file
+            if (!file.delete() || !temporary.renameTo(file))
+                throw new IOException("Can't replace " + file);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+// DifficultyController.java
+// Makes questions harder or easier from the player's recent answers
+package com.deitel.flagquiz.engine;
+
+// Difficulty is a level on a ladder of eight: 2, 4, 6 then 8 choices, each
+// first with distractors from other regions than the answer's (easier to
+// tell apart) and then from the answer's own region. After each answer the
+// rolling accuracy and mean response time of the answers given at the
+// current level decide whether to climb or step down one rung; the window
+// starts over at every change, so each level is judged on its own answers.
+// Every decision is O(1).
+public final class DifficultyController {
+    static final int WINDOW = 8; // answers the decisions look at
+    static final int MIN_ANSWERS = 4; // answers at a level before it's judged
+    static final double RAISE_ACCURACY = 0.8; // at least this and fast: harder
+    static final double LOWER_ACCURACY = 0.5; // below this or slow: easier
+    static final long FAST_MILLIS = 6000;
+    static final long SLOW_MILLIS = 15000;
+    static final int MAX_LEVEL = 7;
+
+    private final ResponseTimes recent = new ResponseTimes(WINDOW);
+    private int level;
+
+    // starts at choices choices from the answer's region, as without it
+    public DifficultyController(int choices) {
+        reset(choices);
+    }
+
+    public void reset(int choices) {
+        level = levelOf(choices, true);
+        recent.clear();
+    }
+
+    static int levelOf(int choices, boolean sameRegion) {
+        int rung = Math.max(1, Math.min(QuizEngine.MAX_CHOICES / 2, choices / 2)) - 1;
+        return rung * 2 + (sameRegion ? 1 : 0);
+    }
+
+    // records an answer, millis after its question was shown or
+    // ResponseTimes.UNTIMED; returns whether the level changed
+    public boolean onAnswer(long millis, boolean correct) {
+        recent.record(millis, correct);
+        if (recent.size() < MIN_ANSWERS)
+            return false;
+
+        double accuracy = recent.getAccuracy();
+        long mean = recent.getMeanMillis(); // answers without times judge on accuracy
+        boolean fast = mean == ResponseTimes.UNTIMED || mean <= FAST_MILLIS;
+        boolean slow = mean != ResponseTimes.UNTIMED && mean > SLOW_MILLIS;
+        if (accuracy >= RAISE_ACCURACY && fast && level < MAX_LEVEL)
+            return setLevel(level + 1);
+        if ((accuracy < LOWER_ACCURACY || slow) && level > 0)
+            return setLevel(level - 1);
+        return false;
+    }
+
+    private boolean setLevel(int level) {
+        this.level = level;
+        recent.clear();
+        return true;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getChoices() {
+        return (level / 2 + 1) * 2;
+    }
+
+    // whether distractors come from the answer's region first
+    public boolean isSameRegion() {
+        return level % 2 == 1;
+    }
+}
@@ -0,0 +1,191 @@
+// DistractorEngine.java
+// Picks the answer choices for a question from the quiz's pool of flags
+package com.deitel.flagquiz.engine;
+
+import java.util.List;
+import java.util.Random;
+
+// Built once per quiz over the pool of enabled flags, which must be grouped
+// by region and in id order within each region (as FlagCatalog returns them).
+// Every region is a contiguous range of pool indices, so choices are drawn
+// with Floyd's sampling over those ranges: O(count) per question with no
+// allocation and no reordering of the pool.
+public class DistractorEngine {
+    private final List<Flag> pool;
+    private final int[] regionOf; // region number of each pool entry
+    private final int[] regionStart; // first pool index of each region
+    private final int[] regionEnd; // one past the last pool index of each region
+
+    public DistractorEngine(List<Flag> pool) {
+        this.pool = pool;
+        int size = pool.size();
+        regionOf = new int[size];
+
+        // count the regions, then record where each one starts and ends
+        int regions = 0;
+        for (int i = 0; i < size; i++)
+            if (i == 0 || !sameRegion(pool.get(i - 1), pool.get(i)))
+                ++regions;
+
+        regionStart = new int[regions];
+        regionEnd = new int[regions];
+        int region = -1;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || !sameRegion(pool.get(i - 1), pool.get(i))) {
+                ++region;
+                regionStart[region] = i;
+            }
+            regionOf[i] = region;
+            regionEnd[region] = i + 1;
+        }
+    }
+
+    // regions are shared Strings, so this is usually a reference check
+    private static boolean sameRegion(Flag a, Flag b) {
+        return a.getRegion().equals(b.getRegion());
+    }
+
+    public int size() {
+        return pool.size();
+    }
+
+    // pool index of a flag, or -1
+    public int indexOf(Flag flag) {
+        for (int region = 0; region < regionStart.length; region++) {
+            if (sameRegion(pool.get(regionStart[region]), flag)) {
+                int low = regionStart[region];
+                int high = regionEnd[region] - 1;
+                while (low <= high) {
+                    int middle = (low + high) >>> 1;
+                    int id = pool.get(middle).getId();
+                    if (id < flag.getId())
+                        low = middle + 1;
+                    else if (id > flag.getId())
+                        high = middle - 1;
+                    else
+                        return middle;
+                }
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    // fills choices with count distinct pool indices in random order: the
+    // answer plus distractors from its region, topped up from other regions
+    // when the answer's region is too small; returns how many were filled,
+    // which is less than count only if the whole pool is smaller
+    public int pickChoices(int answer, int count, Random random, int[] choices) {
+        return pickChoices(answer, count, true, random, choices);
+    }
+
+    // the same, with distractors from other regions first and the answer's
+    // region only topping them up if sameRegion is false: an easier question
+    public int pickChoices(int answer, int count, boolean sameRegion, Random random,
+                           int[] choices) {
+        if (count <= 0)
+            return 0;
+
+        choices[0] = answer;
+        int filled = 1;
+        if (sameRegion) {
+            filled = pickInRegion(answer, count, random, choices, filled);
+            filled = pickOutsideRegion(answer, count, random, choices, filled);
+        } else {
+            filled = pickOutsideRegion(answer, count, random, choices, filled);
+            filled = pickInRegion(answer, count, random, choices, filled);
+        }
+
+        shuffle(choices, filled, random);
+        return filled;
+    }
+
+    // the same, with the answer's lookalikes that are in the pool as the
+    // distractors, most similar first, topped up as pickChoices() would if
+    // there are too few; O(lookalikes) lookups, no image work. spare holds
+    // the top-up picks and must be at least count long, like choices.
+    public int pickChoices(int answer, Flag[] lookalikes, int count, Random random,
+                           int[] choices, int[] spare) {
+        if (count <= 0)
+            return 0;
+
+        choices[0] = answer;
+        int filled = 1;
+        for (int i = 0; i < lookalikes.length && filled < count; i++) {
+            int choice = indexOf(lookalikes[i]);
+            if (choice >= 0 && !contains(choices, filled, choice))
+                choices[filled++] = choice;
+        }
+        if (filled < count) {
+            // count choices the usual way hold at least count - filled that
+            // aren't taken yet, unless the pool is too small
+            int picked = pickChoices(answer, count, true, random, spare);
+            for (int i = 0; i < picked && filled < count; i++)
+                if (!contains(choices, filled, spare[i]))
+                    choices[filled++] = spare[i];
+        }
+        shuffle(choices, filled, random);
+        return filled;
+    }
+
+    // so the answer can land on any button
+    private static void shuffle(int[] choices, int length, Random random) {
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = choices[i];
+            choices[i] = choices[j];
+            choices[j] = temp;
+        }
+    }
+
+    // adds distractors from the answer's region until there are count
+    // choices: positions [0, regionSize - 1) of the region with the answer
+    // skipped
+    private int pickInRegion(int answer, int count, Random random, int[] choices, int filled) {
+        int region = regionOf[answer];
+        int start = regionStart[region];
+        int regionSize = regionEnd[region] - start;
+        int wanted = Math.min(count - filled, regionSize - 1);
+        for (int j = regionSize - 1 - wanted; j < regionSize - 1; j++) {
+            int choice = skip(start + random.nextInt(j + 1), answer);
+            if (contains(choices, filled, choice))
+                choice = skip(start + j, answer);
+            choices[filled++] = choice;
+        }
+        return filled;
+    }
+
+    // adds distractors from other regions until there are count choices:
+    // positions [0, size - regionSize) of the pool with the answer's region
+    // skipped
+    private int pickOutsideRegion(int answer, int count, Random random, int[] choices,
+                                  int filled) {
+        int region = regionOf[answer];
+        int start = regionStart[region];
+        int regionSize = regionEnd[region] - start;
+        int others = pool.size() - regionSize;
+        int wanted = Math.min(count - filled, others);
+        for (int j = others - wanted; j < others; j++) {
+            int choice = outside(random.nextInt(j + 1), start, regionSize);
+            if (contains(choices, filled, choice))
+                choice = outside(j, start, regionSize);
+            choices[filled++] = choice;
+        }
+        return filled;
+    }
+
+    private static int skip(int index, int answer) {
+        return index < answer ? index : index + 1;
+    }
+
+    private static int outside(int position, int start, int regionSize) {
+        return position < start ? position : position + regionSize;
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++)
+            if (values[i] == value)
+                return true;
+        return false;
+    }
+}
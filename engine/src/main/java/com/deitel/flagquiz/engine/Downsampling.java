@@ -0,0 +1,22 @@
+// Downsampling.java
+// Chooses how much to shrink an image while decoding it for display
+package com.deitel.flagquiz.engine;
+
+public final class Downsampling {
+    private Downsampling() {
+    }
+
+    // largest power of two that keeps the decoded image at least as large
+    // as the requested size (BitmapFactory's inSampleSize); a requested
+    // dimension of 0 leaves that dimension unconstrained
+    public static int inSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int sampleSize = 1;
+        if (reqWidth <= 0 && reqHeight <= 0)
+            return sampleSize;
+
+        while ((reqWidth <= 0 || width / (sampleSize * 2) >= reqWidth) &&
+                (reqHeight <= 0 || height / (sampleSize * 2) >= reqHeight))
+            sampleSize *= 2;
+        return sampleSize;
+    }
+}
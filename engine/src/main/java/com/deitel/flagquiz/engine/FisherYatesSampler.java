@@ -0,0 +1,46 @@
+// FisherYatesSampler.java
+// QuizSampler that runs the first count steps of a Fisher-Yates shuffle
+package com.deitel.flagquiz.engine;
+
+import java.util.Random;
+
+// Not thread safe: each sampler owns a scratch index array that is built
+// once, shuffled in place, and put back in order after every sample, so
+// a call costs O(count) no matter how large the pool is.
+public class FisherYatesSampler implements QuizSampler {
+    private int[] indices = new int[0]; // identity permutation between calls
+
+    @Override
+    public int[] sample(int poolSize, int count, Random random) {
+        if (count < 0 || count > poolSize)
+            throw new IllegalArgumentException(String.format(
+                    "Cannot pick %d flags from a pool of %d", count, poolSize));
+
+        if (indices.length < poolSize) {
+            indices = new int[poolSize];
+            for (int i = 0; i < poolSize; i++)
+                indices[i] = i;
+        }
+
+        int[] picked = new int[count];
+        int[] swaps = new int[count];
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(poolSize - i);
+            swap(i, j);
+            swaps[i] = j;
+            picked[i] = indices[i];
+        }
+
+        // undo the swaps in reverse so the next call starts from identity
+        for (int i = count - 1; i >= 0; i--)
+            swap(i, swaps[i]);
+
+        return picked;
+    }
+
+    private void swap(int i, int j) {
+        int temp = indices[i];
+        indices[i] = indices[j];
+        indices[j] = temp;
+    }
+}
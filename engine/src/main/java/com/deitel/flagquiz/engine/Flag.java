@@ -0,0 +1,48 @@
+// Flag.java
+// One flag image in the catalog, with every name the UI needs precomputed
+package com.deitel.flagquiz.engine;
+
+// Flags are created only by FlagCatalog, once per file name, so each one is
+// a single shared instance that can be compared by id. Flags of a region
+// share one region String. The only exception are unindexed flags (id -1),
+// which are shown but never compared.
+public final class Flag {
+    private final int id; // position in the catalog
+    private final String region; // e.g. "North_America"
+    private final String fileName; // e.g. "North_America-United_States"
+    private final String countryName; // e.g. "United States"
+    private final String assetPath; // e.g. "North_America/North_America-United_States.png"
+
+    Flag(int id, String region, String fileName) {
+        this.id = id;
+        this.region = region;
+        this.fileName = fileName;
+        this.countryName = fileName.substring(region.length() + 1).replace('_', ' ');
+        this.assetPath = region + "/" + fileName + ".png";
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getCountryName() {
+        return countryName;
+    }
+
+    public String getAssetPath() {
+        return assetPath;
+    }
+
+    @Override
+    public String toString() {
+        return fileName;
+    }
+}
@@ -0,0 +1,124 @@
+// FlagAtlas.java
+// Index over one region's packed flag images, read in place from a buffer
+package com.deitel.flagquiz.engine;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// An atlas file, as written by FlagAtlasWriter, is an index followed by
+// the images it points to:
+//   magic, thumbnail height, entry count                       int x 3
+//   per entry: name length (short), UTF-8 name,
+//              image offset, image length,
+//              thumbnail offset, thumbnail length              int x 4
+//   PNG bytes of every image and thumbnail
+// Offsets count from the start of the buffer. Only the index is parsed;
+// images are returned as slices of the buffer, e.g. a memory-mapped file,
+// so reading one copies nothing.
+public final class FlagAtlas {
+    public static final int MAGIC = 0x464C4131; // "FLA1"
+    public static final String EXTENSION = ".atlas";
+
+    private final ByteBuffer data;
+    private final int thumbnailHeight;
+    private final List<String> fileNames;
+    private final Map<String, Integer> entries; // file name -> entry number
+    private final int[] offsets;
+    private final int[] lengths;
+    private final int[] thumbnailOffsets;
+    private final int[] thumbnailLengths;
+
+    private FlagAtlas(ByteBuffer data, int thumbnailHeight, int count) {
+        this.data = data;
+        this.thumbnailHeight = thumbnailHeight;
+        fileNames = new ArrayList<>(count);
+        entries = new HashMap<>();
+        offsets = new int[count];
+        lengths = new int[count];
+        thumbnailOffsets = new int[count];
+        thumbnailLengths = new int[count];
+    }
+
+    // parses the index at the start of data; throws IOException if data
+    // isn't an atlas or an entry points outside it
+    public static FlagAtlas read(ByteBuffer data) throws IOException {
+        ByteBuffer index = data.duplicate();
+        index.order(ByteOrder.BIG_ENDIAN);
+        try {
+            if (index.getInt() != MAGIC)
+                throw new IOException("Not a flag atlas");
+            int thumbnailHeight = index.getInt();
+            int count = index.getInt();
+            if (count < 0)
+                throw new IOException("Bad entry count " + count);
+
+            FlagAtlas atlas = new FlagAtlas(data, thumbnailHeight, count);
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[index.getShort() & 0xFFFF];
+                index.get(name);
+                String fileName = new String(name, StandardCharsets.UTF_8);
+                atlas.fileNames.add(fileName);
+                atlas.entries.put(fileName, i);
+                atlas.offsets[i] = index.getInt();
+                atlas.lengths[i] = index.getInt();
+                atlas.thumbnailOffsets[i] = index.getInt();
+                atlas.thumbnailLengths[i] = index.getInt();
+                checkEntry(atlas.offsets[i], atlas.lengths[i], data);
+                checkEntry(atlas.thumbnailOffsets[i], atlas.thumbnailLengths[i], data);
+            }
+            return atlas;
+        } catch (BufferUnderflowException exception) {
+            throw new IOException("Truncated flag atlas", exception);
+        }
+    }
+
+    private static void checkEntry(int offset, int length, ByteBuffer data) throws IOException {
+        if (offset < 0 || length < 0 || (long) offset + length > data.limit())
+            throw new IOException("Entry outside the atlas");
+    }
+
+    // height in pixels the thumbnails were scaled to
+    public int getThumbnailHeight() {
+        return thumbnailHeight;
+    }
+
+    // file names in the order they were packed
+    public List<String> getFileNames() {
+        return Collections.unmodifiableList(fileNames);
+    }
+
+    public boolean contains(String fileName) {
+        return entries.containsKey(fileName);
+    }
+
+    // PNG bytes of a flag, or null if it isn't in this atlas
+    public ByteBuffer getImage(String fileName) {
+        Integer entry = entries.get(fileName);
+        return entry != null ? slice(offsets[entry], lengths[entry]) : null;
+    }
+
+    // PNG bytes of a flag's thumbnail, or null if it isn't in this atlas
+    public ByteBuffer getThumbnail(String fileName) {
+        Integer entry = entries.get(fileName);
+        return entry != null ? slice(thumbnailOffsets[entry], thumbnailLengths[entry]) : null;
+    }
+
+    private ByteBuffer slice(int offset, int length) {
+        ByteBuffer slice = data.duplicate();
+        slice.limit(offset + length);
+        slice.position(offset);
+        return slice.slice().asReadOnlyBuffer();
+    }
+
+    public int size() {
+        return fileNames.size();
+    }
+}
@@ -0,0 +1,69 @@
+// FlagAtlasWriter.java
+// Packs flag images and their thumbnails into one FlagAtlas file
+package com.deitel.flagquiz.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class FlagAtlasWriter {
+    private final int thumbnailHeight;
+    private final List<String> fileNames = new ArrayList<>();
+    private final List<byte[]> images = new ArrayList<>();
+    private final List<byte[]> thumbnails = new ArrayList<>();
+
+    public FlagAtlasWriter(int thumbnailHeight) {
+        this.thumbnailHeight = thumbnailHeight;
+    }
+
+    public void add(String fileName, byte[] image, byte[] thumbnail) {
+        fileNames.add(fileName);
+        images.add(image);
+        thumbnails.add(thumbnail);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        // lay out the index first, since the offsets follow it
+        byte[][] names = new byte[fileNames.size()][];
+        int indexSize = 12;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = fileNames.get(i).getBytes(StandardCharsets.UTF_8);
+            if (names[i].length > 0xFFFF)
+                throw new IOException("File name too long: " + fileNames.get(i));
+            indexSize += 2 + names[i].length + 16;
+        }
+
+        ByteArrayOutputStream indexBytes = new ByteArrayOutputStream(indexSize);
+        DataOutputStream index = new DataOutputStream(indexBytes);
+        index.writeInt(FlagAtlas.MAGIC);
+        index.writeInt(thumbnailHeight);
+        index.writeInt(names.length);
+        long offset = indexSize;
+        for (int i = 0; i < names.length; i++) {
+            index.writeShort(names[i].length);
+            index.write(names[i]);
+            offset = writeEntry(index, offset, images.get(i));
+            offset = writeEntry(index, offset, thumbnails.get(i));
+        }
+        if (offset > Integer.MAX_VALUE)
+            throw new IOException("Atlas too large");
+
+        indexBytes.writeTo(out);
+        for (int i = 0; i < names.length; i++) {
+            out.write(images.get(i));
+            out.write(thumbnails.get(i));
+        }
+        out.flush();
+    }
+
+    private static long writeEntry(DataOutputStream index, long offset, byte[] bytes)
+            throws IOException {
+        index.writeInt((int) offset);
+        index.writeInt(bytes.length);
+        return offset + bytes.length;
+    }
+}
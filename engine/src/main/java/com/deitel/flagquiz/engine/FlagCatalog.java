@@ -0,0 +1,155 @@
+// FlagCatalog.java
+// Immutable index of every flag image in the app and its packs, keyed by region
+package com.deitel.flagquiz.engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public final class FlagCatalog {
+    // name of the index written by the generateFlagCatalog Gradle task
+    public static final String FILE_NAME = "flag_catalog.txt";
+
+    private final Map<String, List<Flag>> flagsByRegion;
+    private final List<Flag> flags; // indexed by id
+    private final Map<String, Flag> flagsByFileName;
+    private final int checksum; // of every file name in id order
+
+    private FlagCatalog(Map<String, List<Flag>> flagsByRegion, List<Flag> flags,
+                        Map<String, Flag> flagsByFileName, int checksum) {
+        this.flagsByRegion = flagsByRegion;
+        this.flags = flags;
+        this.flagsByFileName = flagsByFileName;
+        this.checksum = checksum;
+    }
+
+    // parses the index written by the generateFlagCatalog task: one
+    // "Region-Country" file name per line
+    public static FlagCatalog read(InputStream in) throws IOException {
+        BufferedReader reader =
+                new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<String> fileNames = new ArrayList<>();
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty())
+                fileNames.add(line);
+        }
+        return of(fileNames);
+    }
+
+    // builds a catalog from "Region-Country" file names in any order, e.g.
+    // a synthetic catalog for tests and benchmarks; every file name is
+    // parsed into its Flag here and nowhere else
+    public static FlagCatalog of(Iterable<String> fileNames) {
+        Map<String, List<String>> names = new LinkedHashMap<>();
+        for (String fileName : fileNames) {
+            String region = getRegion(fileName);
+            List<String> regionNames = names.get(region);
+            if (regionNames == null) {
+                regionNames = new ArrayList<>();
+                names.put(region, regionNames);
+            }
+            regionNames.add(fileName);
+        }
+
+        // ids run region by region, sorted within each region, so every
+        // region is a contiguous range of ids
+        Map<String, List<Flag>> regions = new LinkedHashMap<>();
+        List<Flag> flags = new ArrayList<>();
+        Map<String, Flag> flagsByFileName = new HashMap<>();
+        int checksum = 1;
+        for (Map.Entry<String, List<String>> entry : names.entrySet()) {
+            String region = entry.getKey();
+            List<String> regionNames = entry.getValue();
+            Collections.sort(regionNames);
+
+            List<Flag> regionFlags = new ArrayList<>(regionNames.size());
+            for (String fileName : regionNames) {
+                if (flagsByFileName.containsKey(fileName))
+                    continue; // listed twice
+                Flag flag = new Flag(flags.size(), region, fileName);
+                flags.add(flag);
+                regionFlags.add(flag);
+                flagsByFileName.put(fileName, flag);
+                checksum = 31 * checksum + fileName.hashCode();
+            }
+            regions.put(region, Collections.unmodifiableList(regionFlags));
+        }
+
+        return new FlagCatalog(Collections.unmodifiableMap(regions),
+                Collections.unmodifiableList(flags), flagsByFileName, checksum);
+    }
+
+    // a catalog of this one's flags and fileNames, e.g. the flags of the
+    // installed ContentPacks; names already listed are kept once. Ids are
+    // renumbered so every region stays a contiguous range.
+    public FlagCatalog plus(Collection<String> fileNames) {
+        if (fileNames.isEmpty())
+            return this;
+        List<String> names = new ArrayList<>(flags.size() + fileNames.size());
+        for (Flag flag : flags)
+            names.add(flag.getFileName());
+        names.addAll(fileNames);
+        return of(names);
+    }
+
+    // true if fileName is a "Region-Country" file name a catalog can hold
+    public static boolean isFileName(String fileName) {
+        int dash = fileName.indexOf('-');
+        return dash > 0 && dash < fileName.length() - 1 && fileName.indexOf('/') < 0;
+    }
+
+    // region part of a "Region-Country" file name
+    private static String getRegion(String fileName) {
+        return fileName.substring(0, fileName.indexOf('-'));
+    }
+
+    // a Flag for fileName outside any catalog, with id -1, e.g. to show a
+    // saved question before the catalog is read
+    static Flag unindexed(String fileName) {
+        return new Flag(-1, getRegion(fileName), fileName);
+    }
+
+    public Set<String> getRegions() {
+        return flagsByRegion.keySet();
+    }
+
+    // flags in a region, sorted by file name, or an empty list
+    public List<Flag> getFlags(String region) {
+        List<Flag> regionFlags = flagsByRegion.get(region);
+        return regionFlags != null ? regionFlags : Collections.<Flag>emptyList();
+    }
+
+    public Flag getFlag(int id) {
+        return flags.get(id);
+    }
+
+    // the Flag of a "Region-Country" file name, or null if there's none,
+    // e.g. for a saved question from an older catalog
+    public Flag find(String fileName) {
+        return flagsByFileName.get(fileName);
+    }
+
+    public int size() {
+        return flags.size();
+    }
+
+    // the same for catalogs of the same flags, so ids saved with one of them
+    // can be told apart from ids of a catalog that has changed since, e.g.
+    // by a pack being installed
+    public int getChecksum() {
+        return checksum;
+    }
+}
@@ -0,0 +1,89 @@
+// FlagStats.java
+// Answer history of every flag, in primitive arrays indexed by flag id
+package com.deitel.flagquiz.engine;
+
+import java.util.Arrays;
+
+// Each flag is scheduled SM-2 style: a question answered at the first try
+// multiplies the flag's review interval by its ease factor and raises the
+// ease a little; a miss sends the flag back to a short relearning interval
+// and lowers the ease. Not thread safe.
+public final class FlagStats {
+    public static final float INITIAL_EASE = 2.5f;
+    static final float MIN_EASE = 1.3f;
+    static final long FIRST_INTERVAL_MILLIS = 24 * 60 * 60 * 1000L; // one day
+    static final long RELEARN_INTERVAL_MILLIS = 10 * 60 * 1000L; // ten minutes
+
+    private final int[] attempts; // questions asked
+    private final int[] misses; // questions not answered at the first try
+    private final long[] lastSeen; // time of the last answer, 0 if never
+    private final float[] ease;
+    private final long[] interval; // time until due again, 0 after a miss
+
+    public FlagStats(int size) {
+        attempts = new int[size];
+        misses = new int[size];
+        lastSeen = new long[size];
+        ease = new float[size];
+        interval = new long[size];
+        Arrays.fill(ease, INITIAL_EASE);
+    }
+
+    public int size() {
+        return attempts.length;
+    }
+
+    // records the outcome of a question about flag id answered at time now
+    public void record(int id, boolean correct, long now) {
+        ++attempts[id];
+        lastSeen[id] = now;
+        if (correct) {
+            interval[id] = interval[id] == 0 ?
+                    FIRST_INTERVAL_MILLIS : (long) (interval[id] * ease[id]);
+            ease[id] += 0.1f;
+        } else {
+            ++misses[id];
+            interval[id] = 0;
+            ease[id] = Math.max(MIN_EASE, ease[id] - 0.2f);
+        }
+    }
+
+    // how overdue flag id is at time now: 0 just after an answer, 1 when
+    // due; flags never asked count as due, and a miss is due again after
+    // RELEARN_INTERVAL_MILLIS, so misses soon outrank everything else
+    public double priority(int id, long now) {
+        if (attempts[id] == 0)
+            return 1.0;
+        long due = interval[id] > 0 ? interval[id] : RELEARN_INTERVAL_MILLIS;
+        return (double) (now - lastSeen[id]) / due;
+    }
+
+    public int getAttempts(int id) {
+        return attempts[id];
+    }
+
+    public int getMisses(int id) {
+        return misses[id];
+    }
+
+    public long getLastSeen(int id) {
+        return lastSeen[id];
+    }
+
+    public float getEase(int id) {
+        return ease[id];
+    }
+
+    public long getIntervalMillis(int id) {
+        return interval[id];
+    }
+
+    // restores flag id's history, e.g. from a FlagStatsFile
+    void set(int id, int attempts, int misses, long lastSeen, float ease, long interval) {
+        this.attempts[id] = attempts;
+        this.misses[id] = misses;
+        this.lastSeen[id] = lastSeen;
+        this.ease[id] = ease;
+        this.interval[id] = interval;
+    }
+}
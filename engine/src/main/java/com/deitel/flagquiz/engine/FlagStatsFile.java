@@ -0,0 +1,152 @@
+// FlagStatsFile.java
+// Stores FlagStats as fixed-size records that are rewritten one at a time
+package com.deitel.flagquiz.engine;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+// A header followed by one record per flag id:
+//   magic, record size, catalog checksum             12 bytes
+//   file name hash, attempts, misses                 12 bytes
+//   last seen, ease, interval                        20 bytes
+// Recording an answer rewrites only that flag's record. When the catalog's
+// checksum changes, e.g. because a pack was installed and ids were
+// renumbered, read() finds each record's flag by its file name hash and
+// rewrites the file once in the new id order; records of flags that are
+// gone are dropped. Files without the checksum ("FST1") are moved over the
+// same way.
+public final class FlagStatsFile implements Closeable {
+    static final int MAGIC = 0x46535432; // "FST2"
+    static final int HEADER_SIZE = 12;
+    static final int RECORD_SIZE = 32;
+    private static final int MAGIC_WITHOUT_CHECKSUM = 0x46535431; // "FST1"
+    private static final int HEADER_SIZE_WITHOUT_CHECKSUM = 8;
+
+    private final RandomAccessFile file;
+
+    public FlagStatsFile(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "rw");
+    }
+
+    // fills stats with the saved history of catalog's flags; a file that is
+    // new or in another format is started over
+    public synchronized void read(FlagCatalog catalog, FlagStats stats) throws IOException {
+        long length = file.length();
+        file.seek(0);
+        int magic = length >= HEADER_SIZE_WITHOUT_CHECKSUM ? file.readInt() : 0;
+        int headerSize;
+        boolean sameCatalog;
+        if (magic == MAGIC && length >= HEADER_SIZE && file.readInt() == RECORD_SIZE) {
+            headerSize = HEADER_SIZE;
+            sameCatalog = file.readInt() == catalog.getChecksum();
+        } else if (magic == MAGIC_WITHOUT_CHECKSUM && file.readInt() == RECORD_SIZE) {
+            headerSize = HEADER_SIZE_WITHOUT_CHECKSUM;
+            sameCatalog = false;
+        } else {
+            writeHeader(catalog);
+            return;
+        }
+
+        int records = (int) ((length - headerSize) / RECORD_SIZE);
+        if (sameCatalog)
+            records = Math.min(records, catalog.size());
+        byte[] bytes = new byte[records * RECORD_SIZE];
+        file.seek(headerSize);
+        file.readFully(bytes);
+
+        if (sameCatalog) {
+            for (int id = 0; id < records && id < stats.size(); id++)
+                if (hashAt(bytes, id) == hash(catalog.getFlag(id)))
+                    setStats(bytes, id, id, stats);
+        } else {
+            remap(bytes, records, catalog, stats);
+        }
+    }
+
+    // reads the records of an older catalog by their flags' file names and
+    // writes them back at the flags' ids in catalog
+    private void remap(byte[] bytes, int records, FlagCatalog catalog, FlagStats stats)
+            throws IOException {
+        Map<Integer, Integer> ids = new HashMap<>(catalog.size() * 2);
+        for (int id = 0; id < catalog.size(); id++) {
+            Integer hash = hash(catalog.getFlag(id));
+            ids.put(hash, ids.containsKey(hash) ? -1 : id); // -1: names collide
+        }
+
+        byte[] remapped = new byte[catalog.size() * RECORD_SIZE];
+        for (int record = 0; record < records; record++) {
+            Integer id = ids.get(hashAt(bytes, record));
+            if (id == null || id < 0)
+                continue; // not a flag of this catalog, or an unwritten record
+            System.arraycopy(bytes, record * RECORD_SIZE, remapped, id * RECORD_SIZE,
+                    RECORD_SIZE);
+            if (id < stats.size())
+                setStats(bytes, record, id, stats);
+        }
+
+        // the records before the header, so a rewrite cut short is redone
+        file.seek(HEADER_SIZE);
+        file.write(remapped);
+        file.setLength(HEADER_SIZE + remapped.length);
+        file.seek(0);
+        file.writeInt(MAGIC);
+        file.writeInt(RECORD_SIZE);
+        file.writeInt(catalog.getChecksum());
+    }
+
+    private static int hashAt(byte[] bytes, int record) {
+        return ByteBuffer.wrap(bytes).getInt(record * RECORD_SIZE);
+    }
+
+    private static void setStats(byte[] bytes, int record, int id, FlagStats stats) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position(record * RECORD_SIZE + 4);
+        int attempts = buffer.getInt();
+        int misses = buffer.getInt();
+        long lastSeen = buffer.getLong();
+        float ease = buffer.getFloat();
+        long interval = buffer.getLong();
+        stats.set(id, attempts, misses, lastSeen, ease, interval);
+    }
+
+    // encodes flag's record on the caller's thread, so it can be written
+    // later while stats keeps changing
+    public static byte[] encode(Flag flag, FlagStats stats) {
+        int id = flag.getId();
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        buffer.putInt(hash(flag));
+        buffer.putInt(stats.getAttempts(id));
+        buffer.putInt(stats.getMisses(id));
+        buffer.putLong(stats.getLastSeen(id));
+        buffer.putFloat(stats.getEase(id));
+        buffer.putLong(stats.getIntervalMillis(id));
+        return buffer.array();
+    }
+
+    // overwrites flag id's record with one from encode()
+    public synchronized void write(int id, byte[] record) throws IOException {
+        file.seek(HEADER_SIZE + (long) id * RECORD_SIZE);
+        file.write(record);
+    }
+
+    private void writeHeader(FlagCatalog catalog) throws IOException {
+        file.setLength(0);
+        file.writeInt(MAGIC);
+        file.writeInt(RECORD_SIZE);
+        file.writeInt(catalog.getChecksum());
+    }
+
+    private static int hash(Flag flag) {
+        return flag.getFileName().hashCode();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        file.close();
+    }
+}
@@ -0,0 +1,54 @@
+// GeneratedQuiz.java
+// One complete quiz made by QuizBatchGenerator: every question's answer and choices
+package com.deitel.flagquiz.engine;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public final class GeneratedQuiz {
+    private final int index; // position in the batch
+    private final Flag[] answers;
+    private final Flag[][] choices; // per question, in Button order
+
+    GeneratedQuiz(int index, Flag[] answers, Flag[][] choices) {
+        this.index = index;
+        this.answers = answers;
+        this.choices = choices;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getQuestionCount() {
+        return answers.length;
+    }
+
+    public Flag getAnswer(int question) {
+        return answers[question];
+    }
+
+    public List<Flag> getChoices(int question) {
+        return Collections.unmodifiableList(Arrays.asList(choices[question]));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof GeneratedQuiz))
+            return false;
+        GeneratedQuiz quiz = (GeneratedQuiz) other;
+        return index == quiz.index && Arrays.equals(answers, quiz.answers) &&
+                Arrays.deepEquals(choices, quiz.choices);
+    }
+
+    @Override
+    public int hashCode() {
+        return index * 31 + Arrays.deepHashCode(choices);
+    }
+
+    @Override
+    public String toString() {
+        return "GeneratedQuiz{" + index + ": " + Arrays.toString(answers) + "}";
+    }
+}
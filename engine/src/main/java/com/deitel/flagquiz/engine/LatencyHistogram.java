@@ -0,0 +1,93 @@
+// LatencyHistogram.java
+// Lock-free, allocation-free histogram of durations in power-of-two buckets
+package com.deitel.flagquiz.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bucket 0 holds durations under 1 microsecond and bucket i (i >= 1) holds
+// [2^(i-1), 2^i) microseconds; the last bucket also takes everything longer
+// (2^(BUCKETS-2) us is about 4 seconds).
+public final class LatencyHistogram {
+    public static final int BUCKETS = 24;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public static int bucketFor(long nanos) {
+        long micros = nanos / 1000;
+        if (micros <= 0)
+            return 0;
+        return Math.min(Long.SIZE - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+    }
+
+    // exclusive upper bound of a bucket in microseconds
+    public static long bucketLimitMicros(int bucket) {
+        return 1L << bucket;
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+        buckets.incrementAndGet(bucketFor(nanos));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+
+        long max;
+        while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos))
+            ; // another thread raised the maximum; try again
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getBucketCount(int bucket) {
+        return buckets.get(bucket);
+    }
+
+    public long getMeanMicros() {
+        long n = count.get();
+        return n == 0 ? 0 : totalNanos.get() / n / 1000;
+    }
+
+    public long getMaxMicros() {
+        return maxNanos.get() / 1000;
+    }
+
+    // upper bound of the bucket holding the given fraction (0 to 1) of
+    // recorded durations, so the true percentile is at most this value
+    public long getPercentileMicros(double fraction) {
+        long n = count.get();
+        if (n == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(fraction * n));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += buckets.get(bucket);
+            if (seen >= rank)
+                return bucketLimitMicros(bucket);
+        }
+        return bucketLimitMicros(BUCKETS - 1);
+    }
+
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++)
+            buckets.set(bucket, 0);
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    public void appendTo(StringBuilder builder) {
+        builder.append("n=").append(getCount())
+                .append(" mean=").append(getMeanMicros())
+                .append("us p50<").append(getPercentileMicros(0.5))
+                .append("us p90<").append(getPercentileMicros(0.9))
+                .append("us p99<").append(getPercentileMicros(0.99))
+                .append("us max=").append(getMaxMicros()).append("us");
+    }
+}
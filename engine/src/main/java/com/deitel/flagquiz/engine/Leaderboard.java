@@ -0,0 +1,90 @@
+// Leaderboard.java
+// The best result of each of the top players, kept in rank order
+package com.deitel.flagquiz.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Holds at most capacity players no matter how many there are, so a result
+// is offered in O(log capacity) and the board is read in O(capacity).
+// A player who isn't on the board needs no tracking: everyone on it only
+// ever gets replaced by a better result, so the board's last entry ranks
+// above any result that has left it or never made it. A new result that
+// beats the last entry therefore also beats the player's own best.
+public final class Leaderboard {
+    private final Comparator<QuizResult> order;
+    private final int capacity;
+    private final boolean timedOnly;
+    private final TreeSet<QuizResult> ranked;
+    private final Map<String, QuizResult> byPlayer = new HashMap<>();
+
+    private Leaderboard(Comparator<QuizResult> order, int capacity, boolean timedOnly) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity " + capacity);
+        this.order = order;
+        this.capacity = capacity;
+        this.timedOnly = timedOnly;
+        ranked = new TreeSet<>(order);
+    }
+
+    public static Leaderboard byScore(int capacity) {
+        return new Leaderboard(QuizResult.BY_SCORE, capacity, false);
+    }
+
+    // untimed results are left off
+    public static Leaderboard bySpeed(int capacity) {
+        return new Leaderboard(QuizResult.BY_SPEED, capacity, true);
+    }
+
+    // returns whether the board changed: result is on it, in place of the
+    // player's earlier best or of the last player
+    public boolean offer(QuizResult result) {
+        if (timedOnly && !result.isTimed())
+            return false;
+
+        QuizResult best = byPlayer.get(result.getPlayer());
+        if (best != null) {
+            if (order.compare(result, best) >= 0)
+                return false;
+            ranked.remove(best);
+        } else if (ranked.size() == capacity) {
+            QuizResult last = ranked.last();
+            if (order.compare(result, last) >= 0)
+                return false;
+            ranked.pollLast();
+            byPlayer.remove(last.getPlayer());
+        }
+        ranked.add(result);
+        byPlayer.put(result.getPlayer(), result);
+        return true;
+    }
+
+    // the first count entries, best first
+    public List<QuizResult> top(int count) {
+        List<QuizResult> top = new ArrayList<>(Math.min(count, ranked.size()));
+        for (QuizResult result : ranked) {
+            if (top.size() == count)
+                break;
+            top.add(result);
+        }
+        return Collections.unmodifiableList(top);
+    }
+
+    // the player's result on the board, or null
+    public QuizResult get(String player) {
+        return byPlayer.get(player);
+    }
+
+    public int size() {
+        return ranked.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
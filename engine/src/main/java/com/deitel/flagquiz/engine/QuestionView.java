@@ -0,0 +1,92 @@
+// QuestionView.java
+// Immutable snapshot of the question on screen, published by QuizEngine
+package com.deitel.flagquiz.engine;
+
+public final class QuestionView {
+    // what just happened, i.e. what the UI should do besides showing the question
+    public enum Event {
+        QUESTION, // a new or restored question
+        WRONG_GUESS, // guessedChoice was wrong; more guesses are left
+        CORRECT, // guessedChoice was the answer
+        OUT_OF_GUESSES, // guessedChoice was wrong and was the last guess
+        QUIZ_OVER, // every question was answered
+        NO_FLAGS // the enabled regions have no flags; there's no answer or choices
+    }
+
+    private final Event event;
+    private final Flag answer;
+    private final Flag[] choices; // flags on the guess Buttons, in order
+    private final int disabledChoices; // bit i is set once choice i was guessed wrong
+    private final int guessedChoice; // choice the event is about, or -1
+    private final int questionNumber; // of the question shown, from 0
+    private final int questionCount;
+    private final int correctAnswers;
+    private final int totalGuesses;
+    private final long meanResponseMillis; // over the quiz's timed answers, or UNTIMED
+
+    QuestionView(Event event, Flag answer, Flag[] choices, int disabledChoices,
+                 int guessedChoice, int questionNumber, int questionCount,
+                 int correctAnswers, int totalGuesses, long meanResponseMillis) {
+        this.event = event;
+        this.answer = answer;
+        this.choices = choices;
+        this.disabledChoices = disabledChoices;
+        this.guessedChoice = guessedChoice;
+        this.questionNumber = questionNumber;
+        this.questionCount = questionCount;
+        this.correctAnswers = correctAnswers;
+        this.totalGuesses = totalGuesses;
+        this.meanResponseMillis = meanResponseMillis;
+    }
+
+    public Event getEvent() {
+        return event;
+    }
+
+    public Flag getAnswer() {
+        return answer;
+    }
+
+    public int getChoiceCount() {
+        return choices.length;
+    }
+
+    public Flag getChoice(int index) {
+        return choices[index];
+    }
+
+    public boolean isChoiceDisabled(int index) {
+        return (disabledChoices & (1 << index)) != 0;
+    }
+
+    public int getGuessedChoice() {
+        return guessedChoice;
+    }
+
+    public int getQuestionNumber() {
+        return questionNumber;
+    }
+
+    public int getQuestionCount() {
+        return questionCount;
+    }
+
+    public int getCorrectAnswers() {
+        return correctAnswers;
+    }
+
+    public int getTotalGuesses() {
+        return totalGuesses;
+    }
+
+    // mean time to answer the quiz's questions so far, or
+    // ResponseTimes.UNTIMED if none was timed
+    public long getMeanResponseMillis() {
+        return meanResponseMillis;
+    }
+
+    @Override
+    public String toString() {
+        return event + " " + (questionNumber + 1) + "/" + questionCount + " " + answer;
+    }
+}
@@ -0,0 +1,105 @@
+// QuizBatchGenerator.java
+// Generates many complete quizzes at once, e.g. for printed sheets or kiosks
+package com.deitel.flagquiz.engine;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Quiz i depends only on the batch's seed and i: it gets its own SplitMix64
+// seeded from both, so quizzes can be made on any number of threads and in
+// any order and still come out the same for a seed. Quizzes are handed to
+// the Sink in index order on the calling thread, with at most a few
+// quizzes per thread in memory at once.
+public class QuizBatchGenerator {
+    private static final int QUIZZES_PER_THREAD = 64; // made ahead of the Sink
+
+    // receives the quizzes in index order
+    public interface Sink {
+        void accept(GeneratedQuiz quiz) throws IOException;
+    }
+
+    private final List<Flag> pool;
+    private final DistractorEngine distractors; // read only, so shared by every thread
+    private final int choices;
+    private final long seed;
+    private final ThreadLocal<FisherYatesSampler> samplers = new ThreadLocal<FisherYatesSampler>() {
+        @Override
+        protected FisherYatesSampler initialValue() {
+            return new FisherYatesSampler();
+        }
+    };
+
+    public QuizBatchGenerator(FlagCatalog catalog, int regionMask, int choices, long seed) {
+        RegionPools pools = new RegionPools(catalog);
+        pool = pools.getPool(regionMask);
+        distractors = pools.getDistractors(regionMask);
+        this.choices = Math.max(1, Math.min(QuizEngine.MAX_CHOICES, choices));
+        this.seed = seed;
+    }
+
+    // quiz index of the batch: questions distinct flags of the pool (fewer
+    // if the pool is smaller), each with its answer among its choices
+    public GeneratedQuiz generate(int index, int questions) {
+        Random random = new SplitMix64(SplitMix64.derive(seed, index));
+        int count = Math.min(questions, pool.size());
+        int[] picked = samplers.get().sample(pool.size(), count, random);
+
+        Flag[] answers = new Flag[count];
+        Flag[][] shown = new Flag[count][];
+        int[] indices = new int[QuizEngine.MAX_CHOICES];
+        for (int question = 0; question < count; question++) {
+            answers[question] = pool.get(picked[question]);
+            int filled = distractors.pickChoices(picked[question], choices, random, indices);
+            shown[question] = new Flag[filled];
+            for (int i = 0; i < filled; i++)
+                shown[question][i] = pool.get(indices[i]);
+        }
+        return new GeneratedQuiz(index, answers, shown);
+    }
+
+    // generates quizzes 0 to quizCount - 1 on threads threads
+    public void generate(int quizCount, final int questions, int threads, Sink sink)
+            throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            int ahead = Math.max(1, threads) * QUIZZES_PER_THREAD;
+            Queue<Future<GeneratedQuiz>> pending = new ArrayDeque<>(ahead);
+            int submitted = 0;
+            for (int accepted = 0; accepted < quizCount; accepted++) {
+                while (submitted < quizCount && pending.size() < ahead) {
+                    final int index = submitted++;
+                    pending.add(executor.submit(new Callable<GeneratedQuiz>() {
+                        @Override
+                        public GeneratedQuiz call() {
+                            return generate(index, questions);
+                        }
+                    }));
+                }
+                sink.accept(get(pending.remove()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static GeneratedQuiz get(Future<GeneratedQuiz> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,494 @@
+// QuizEngine.java
+// Runs the quiz on a background thread and publishes every change as a QuestionView
+package com.deitel.flagquiz.engine;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+// Every public method only queues a task on the engine's single-threaded
+// executor, so the caller (the UI thread) never waits for the catalog to
+// load, the quiz to be picked or a question to be saved. All quiz state is
+// confined to that thread. Each change is published as an immutable
+// QuestionView: the Preloader sees it first on the engine thread, e.g. to
+// decode its images, then the Listener gets it through the callback
+// executor, e.g. one that posts to the UI thread's Handler.
+public class QuizEngine {
+    public static final int MAX_CHOICES = 8;
+
+    // where the engine loads and saves everything
+    public interface Storage {
+        FlagCatalog loadCatalog() throws IOException;
+
+        // history of every flag in catalog, empty if none was saved
+        FlagStats loadStats(FlagCatalog catalog);
+
+        // called after flag's history in stats changed
+        void saveStats(Flag flag, FlagStats stats);
+
+        // each flag's lookalikes for hard mode, or null if there are none
+        SimilarityIndex loadSimilarityIndex(FlagCatalog catalog) throws IOException;
+
+        // the saved question, or null if there is none
+        QuizState loadState();
+
+        // state is null once the quiz is over, so there's none to restore
+        void saveState(QuizState state);
+    }
+
+    // called on the engine thread before a view with an answer is delivered;
+    // next is the following question's flag, or null
+    public interface Preloader {
+        void preload(QuestionView view, Flag next);
+    }
+
+    // called through the callback executor
+    public interface Listener {
+        void onQuestionView(QuestionView view);
+
+        void onError(Exception exception);
+    }
+
+    private final Storage storage;
+    private final Preloader preloader;
+    private final Executor executor;
+    private final Executor callbackExecutor;
+    private final Listener listener;
+    private final RandomSource randomSource;
+    private final int questionCount; // of a quiz when the pool is large enough
+
+    // everything below is used on the engine thread only
+    private FlagCatalog catalog;
+    private FlagStats stats;
+    private RegionPools pools; // every region mask's pool, built once each
+    private SimilarityIndex similarity; // loaded by the first hard mode question
+    private boolean similarityLoaded;
+    private QuizScheduler scheduler;
+    private QuizSettings settings = new QuizSettings(4, 4, 0);
+    private boolean poolChanged = true; // regions changed since the pool was built
+    private long quizSeed; // every Random of the quiz is made from it
+    private Random quizRandom; // picks the quiz's flags
+    private List<Flag> pool = Collections.emptyList(); // flags of the enabled regions
+    private DistractorEngine distractors; // picks choices from pool
+    private final List<Flag> quiz = new ArrayList<>(); // flags of the questions to come
+    private final int[] choices = new int[MAX_CHOICES]; // pool indices per Button
+    private final int[] spareChoices = new int[MAX_CHOICES]; // for topping up lookalikes
+    private int choiceCount;
+    private Flag[] shownChoices; // flags of choices, shared by the question's views
+    private String[] choiceNames; // their file names, shared by its saved states
+    private Flag answer; // null until the first question
+    private int disabledChoices;
+    private boolean answered; // the question on screen is over
+    private int questionNumber; // questions answered so far
+    private int quizLength; // questionCount, or fewer if the pool is smaller
+    private int correctAnswers;
+    private int guessForQuestion;
+    private int totalGuesses;
+    private final ResponseTimes responseTimes; // every answer of the quiz
+    private final DifficultyController difficulty = new DifficultyController(4);
+
+    public QuizEngine(Storage storage, Preloader preloader, Executor executor,
+                      Executor callbackExecutor, Listener listener, RandomSource randomSource,
+                      int questionCount) {
+        this.storage = storage;
+        this.preloader = preloader;
+        this.executor = executor;
+        this.callbackExecutor = callbackExecutor;
+        this.listener = listener;
+        this.randomSource = randomSource;
+        this.questionCount = questionCount;
+        responseTimes = new ResponseTimes(Math.max(1, questionCount));
+    }
+
+    // settings take effect from the next question; callers reset() the quiz
+    // when they should apply at once
+    public void setSettings(final QuizSettings settings) {
+        execute(new Task() {
+            @Override
+            public void run() {
+                QuizSettings old = QuizEngine.this.settings;
+                if (settings.getRegionMask() != old.getRegionMask())
+                    poolChanged = true;
+                if (settings.getChoices() != old.getChoices() ||
+                        settings.isAdaptive() != old.isAdaptive())
+                    difficulty.reset(settings.getChoices());
+                QuizEngine.this.settings = settings;
+            }
+        });
+    }
+
+    // shows the saved question, or starts a new quiz if none can be restored;
+    // at launch the saved question is shown before the catalog is read
+    public void restore() {
+        execute(new Task() {
+            @Override
+            public void run() throws IOException {
+                long start = QuizMetrics.start();
+                QuizState state = storage.loadState();
+                if (state != null && catalog == null)
+                    publishUnindexed(state);
+                if (state != null && restoreQuestion(state))
+                    publishRestored();
+                else
+                    startQuiz();
+                QuizMetrics.stop(QuizMetrics.Timer.RESTORE_QUESTION, start);
+            }
+        });
+    }
+
+    public void reset() {
+        execute(new Task() {
+            @Override
+            public void run() throws IOException {
+                startQuiz();
+            }
+        });
+    }
+
+    // guesses the flag with id flagId, one of the choices of the question on
+    // screen; ignored once the question is over, or if flagId isn't one of
+    // the choices or was already guessed. Checking the guess compares ids
+    // and sets a bit, so only publishing the outcome allocates.
+    public void guess(int flagId) {
+        guess(flagId, ResponseTimes.UNTIMED);
+    }
+
+    // the same, made responseMillis after the question was shown by a
+    // monotonic clock; the guess that ends the question times its answer
+    public void guess(final int flagId, final long responseMillis) {
+        execute(new Task() {
+            @Override
+            public void run() {
+                int choice = choiceOf(flagId);
+                if (answer == null || answered || choice < 0 ||
+                        (disabledChoices & (1 << choice)) != 0)
+                    return;
+
+                ++totalGuesses;
+                ++guessForQuestion;
+                if (flagId == answer.getId()) {
+                    ++correctAnswers;
+                    finishQuestion(guessForQuestion == 1, responseMillis);
+                    publish(QuestionView.Event.CORRECT, choice);
+                    return;
+                }
+
+                QuizMetrics.increment(QuizMetrics.Counter.WRONG_GUESSES);
+                disabledChoices |= 1 << choice;
+                if (guessForQuestion >= settings.getGuesses()) {
+                    finishQuestion(false, responseMillis);
+                    publish(QuestionView.Event.OUT_OF_GUESSES, choice);
+                } else {
+                    saveState();
+                    publish(QuestionView.Event.WRONG_GUESS, choice);
+                }
+            }
+        });
+    }
+
+    // moves on from an answered question: to the next one, or to the end
+    // of the quiz
+    public void next() {
+        execute(new Task() {
+            @Override
+            public void run() throws IOException {
+                if (answer == null || !answered)
+                    return; // no question yet, or it isn't over
+                if (questionNumber >= quizLength)
+                    finishQuiz();
+                else
+                    nextQuestion();
+            }
+        });
+    }
+
+    // position of the flag with id flagId among the choices, or -1
+    private int choiceOf(int flagId) {
+        for (int i = 0; i < choiceCount; i++)
+            if (shownChoices[i].getId() == flagId)
+                return i;
+        return -1;
+    }
+
+    private void startQuiz() throws IOException {
+        questionNumber = 0;
+        correctAnswers = 0;
+        totalGuesses = 0;
+        responseTimes.clear();
+        quizSeed = randomSource.nextSeed();
+        quizRandom = randomSource.forSeed(quizSeed);
+        quizLength = questionCount;
+        answer = null;
+        answered = false;
+        initFlags();
+        nextQuestion();
+    }
+
+    private void finishQuiz() {
+        storage.saveState(null); // the result is recorded only once
+        publish(QuestionView.Event.QUIZ_OVER, -1);
+    }
+
+    private void initFlags() throws IOException {
+        long start = QuizMetrics.start();
+        buildPool();
+        pickQuiz();
+        QuizMetrics.stop(QuizMetrics.Timer.INIT_FLAGS, start);
+        QuizMetrics.increment(QuizMetrics.Counter.INIT_FLAGS);
+    }
+
+    // loads the catalog and the flags' history once, and switches to the
+    // regions' cached pool whenever they changed
+    private void buildPool() throws IOException {
+        if (catalog == null) {
+            catalog = storage.loadCatalog();
+            stats = storage.loadStats(catalog);
+            pools = new RegionPools(catalog);
+            scheduler = new QuizScheduler(stats);
+        }
+        if (poolChanged) {
+            pool = pools.getPool(settings.getRegionMask());
+            distractors = pools.getDistractors(settings.getRegionMask());
+            poolChanged = false;
+        }
+    }
+
+    // replaces quiz with the flags most due for review for the rest of the
+    // quiz; a pool too small for that shortens the quiz, so no flag is
+    // asked twice
+    private void pickQuiz() {
+        int count = Math.min(quizLength - questionNumber, pool.size());
+        quizLength = questionNumber + count;
+        scheduler.pickQuiz(pool, count, System.currentTimeMillis(), quizRandom, quiz);
+    }
+
+    private void nextQuestion() throws IOException {
+        long start = QuizMetrics.start();
+        if (quiz.isEmpty() || poolChanged)
+            initFlags();
+        if (quiz.isEmpty()) {
+            // the enabled regions have no flags (left)
+            if (answer == null) {
+                shownChoices = new Flag[0];
+                choiceCount = 0;
+                disabledChoices = 0;
+                publish(QuestionView.Event.NO_FLAGS, -1);
+            }
+            else
+                finishQuiz();
+            return;
+        }
+
+        // the answer and its distractors, already in random Button order;
+        // with the same pool and settings they follow from the quiz's seed
+        // and the question's number alone
+        answer = quiz.remove(0);
+        boolean adaptive = settings.isAdaptive();
+        int count = adaptive ? difficulty.getChoices() : settings.getChoices();
+        Random random = randomSource.forSeed(questionSeed(quizSeed, questionNumber));
+        if (settings.isLookalikes() && loadSimilarity() != null)
+            choiceCount = distractors.pickChoices(distractors.indexOf(answer),
+                    similarity.getLookalikes(answer), count, random, choices, spareChoices);
+        else
+            choiceCount = distractors.pickChoices(distractors.indexOf(answer), count,
+                    !adaptive || difficulty.isSameRegion(), random, choices);
+        lookUpChoices();
+        disabledChoices = 0;
+        guessForQuestion = 0;
+        answered = false;
+        saveState();
+        publish(QuestionView.Event.QUESTION, -1);
+        QuizMetrics.increment(QuizMetrics.Counter.QUESTIONS);
+        QuizMetrics.stop(QuizMetrics.Timer.LOAD_NEXT_FLAG, start);
+    }
+
+    // hard mode's index, read once; null if the app has none
+    private SimilarityIndex loadSimilarity() throws IOException {
+        if (!similarityLoaded) {
+            similarity = storage.loadSimilarityIndex(catalog);
+            similarityLoaded = true;
+        }
+        return similarity;
+    }
+
+    // the question's flags and names, looked up once rather than per guess
+    private void lookUpChoices() {
+        shownChoices = new Flag[choiceCount];
+        choiceNames = new String[choiceCount];
+        for (int i = 0; i < choiceCount; i++) {
+            shownChoices[i] = pool.get(choices[i]);
+            choiceNames[i] = shownChoices[i].getFileName();
+        }
+    }
+
+    // seed of the Random that picks question questionNumber's choices
+    static long questionSeed(long quizSeed, int questionNumber) {
+        return SplitMix64.derive(quizSeed, questionNumber);
+    }
+
+    private void finishQuestion(boolean firstTry, long responseMillis) {
+        answered = true;
+        ++questionNumber;
+        responseTimes.record(responseMillis, firstTry);
+        difficulty.onAnswer(responseMillis, firstTry); // applies from the next question
+        stats.record(answer.getId(), firstTry, System.currentTimeMillis());
+        storage.saveStats(answer, stats);
+        saveState(); // so a relaunch goes on from here rather than asking it again
+    }
+
+    // looks up a saved question's flags once, so the rest of the question
+    // works on Flags and pool indices just like a new one
+    private boolean restoreQuestion(QuizState state) throws IOException {
+        quizSeed = state.getSeed();
+        quizRandom = randomSource.forSeed(quizSeed);
+        buildPool();
+        if (state.getChoiceCount() > MAX_CHOICES)
+            return false;
+        Flag savedAnswer = catalog.find(state.getAnswer());
+        if (savedAnswer == null || distractors.indexOf(savedAnswer) < 0)
+            return false; // saved with flags no longer in the pool
+
+        for (int i = 0; i < state.getChoiceCount(); i++) {
+            Flag choice = catalog.find(state.getChoice(i));
+            choices[i] = choice != null ? distractors.indexOf(choice) : -1;
+            if (choices[i] < 0)
+                return false;
+        }
+        answered = state.isAnswered();
+        questionNumber = state.getQuestionNumber();
+        quizLength = questionCount;
+        if (!restoreQuiz(state)) {
+            // saved without the questions to come, or with another catalog
+            initFlags();
+            quiz.remove(savedAnswer);
+        }
+        quizLength = Math.min(questionCount, savedLength(state, quiz.size()));
+        answer = savedAnswer;
+        choiceCount = state.getChoiceCount();
+        lookUpChoices();
+        disabledChoices = state.getDisabledChoices();
+        correctAnswers = state.getCorrectAnswers();
+        guessForQuestion = state.getGuessForQuestion();
+        totalGuesses = state.getTotalGuesses();
+        return true;
+    }
+
+    // length of a saved quiz with remaining questions after its question
+    private static int savedLength(QuizState state, int remaining) {
+        return state.getQuestionNumber() + (state.isAnswered() ? 0 : 1) + remaining;
+    }
+
+    // the saved questions to come, looked up by id in O(remaining) rather
+    // than picked again, so the quiz goes on as it would have; false if
+    // the ids are from another catalog or some left the pool
+    private boolean restoreQuiz(QuizState state) {
+        int[] remaining = state.getRemaining();
+        if (remaining == null || state.getCatalogChecksum() != catalog.getChecksum())
+            return false;
+        quiz.clear();
+        for (int id : remaining) {
+            if (id < 0 || id >= catalog.size())
+                return false;
+            Flag flag = catalog.getFlag(id);
+            if (distractors.indexOf(flag) < 0)
+                return false;
+            quiz.add(flag);
+        }
+        return true;
+    }
+
+    // publishes a restored question and, if it was answered, how: its
+    // guesses outnumber its wrong ones only if the last guess was right
+    private void publishRestored() {
+        publish(QuestionView.Event.QUESTION, -1);
+        if (!answered)
+            return;
+        if (guessForQuestion > Integer.bitCount(disabledChoices))
+            publish(QuestionView.Event.CORRECT, choiceOf(answer.getId()));
+        else
+            publish(QuestionView.Event.OUT_OF_GUESSES,
+                    Integer.SIZE - 1 - Integer.numberOfLeadingZeros(disabledChoices));
+    }
+
+    // publishes a saved question straight from its file names, so the first
+    // frame only waits for one flag to decode; the question is published
+    // again with catalog flags once it is restored
+    private void publishUnindexed(QuizState state) {
+        if (state.getChoiceCount() > MAX_CHOICES)
+            return;
+        Flag savedAnswer = FlagCatalog.unindexed(state.getAnswer());
+        Region region = Region.forFolder(savedAnswer.getRegion());
+        if (region == null || !region.isIn(settings.getRegionMask()))
+            return; // restoreQuestion() starts a new quiz instead
+
+        Flag[] shown = new Flag[state.getChoiceCount()];
+        for (int i = 0; i < shown.length; i++)
+            shown[i] = state.getChoice(i).equals(state.getAnswer()) ?
+                    savedAnswer : FlagCatalog.unindexed(state.getChoice(i));
+        publish(new QuestionView(QuestionView.Event.QUESTION, savedAnswer, shown,
+                state.getDisabledChoices(), -1, state.getQuestionNumber(),
+                state.getRemaining() != null ?
+                        Math.min(questionCount, savedLength(state, state.getRemaining().length)) :
+                        questionCount,
+                state.getCorrectAnswers(), state.getTotalGuesses(), ResponseTimes.UNTIMED), null);
+    }
+
+    private void saveState() {
+        long start = QuizMetrics.start();
+        QuizState state = new QuizState(quizSeed, answer.getFileName(), choiceNames,
+                questionNumber, correctAnswers, guessForQuestion, totalGuesses);
+        state.setDisabledChoices(disabledChoices);
+        state.setAnswered(answered);
+        int[] remaining = new int[quiz.size()];
+        for (int i = 0; i < remaining.length; i++)
+            remaining[i] = quiz.get(i).getId();
+        state.setRemaining(catalog.getChecksum(), remaining);
+        storage.saveState(state); // written in the background
+        QuizMetrics.stop(QuizMetrics.Timer.SAVE_STATE, start);
+    }
+
+    private void publish(QuestionView.Event event, int guessedChoice) {
+        // an answered question keeps its own number until next()
+        QuestionView view = new QuestionView(event, answer, shownChoices, disabledChoices,
+                guessedChoice, answered ? questionNumber - 1 : questionNumber,
+                quizLength, correctAnswers, totalGuesses, responseTimes.getMeanMillis());
+        publish(view, quiz.isEmpty() ? null : quiz.get(0));
+    }
+
+    private void publish(final QuestionView view, Flag next) {
+        if (view.getAnswer() != null)
+            preloader.preload(view, next);
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                listener.onQuestionView(view);
+            }
+        });
+    }
+
+    // a unit of work for the engine thread; failures go to the Listener
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    private void execute(final Task task) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } catch (final IOException | RuntimeException exception) {
+                    callbackExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            listener.onError(exception);
+                        }
+                    });
+                }
+            }
+        });
+    }
+}
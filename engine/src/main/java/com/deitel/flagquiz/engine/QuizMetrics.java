@@ -0,0 +1,95 @@
+// QuizMetrics.java
+// Timers and counters for the quiz's hot paths, off unless enabled
+package com.deitel.flagquiz.engine;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Usage:
+//   long start = QuizMetrics.start();
+//   ... timed work ...
+//   QuizMetrics.stop(QuizMetrics.Timer.LOAD_NEXT_FLAG, start);
+// When disabled, start() returns 0 and stop() returns at once, so the only
+// cost is a volatile read; nothing allocates either way.
+public final class QuizMetrics {
+    public enum Timer {
+        INIT_FLAGS,
+        LOAD_NEXT_FLAG,
+        SET_FLAG_IMAGE,
+        SET_BUTTON_IMAGE,
+        RESTORE_QUESTION,
+        SAVE_STATE, // encoding and queueing on the engine thread
+        WRITE_STATE, // the file write on the writer thread
+        FIRST_QUESTION // from launch until the first question is shown
+    }
+
+    public enum Counter {
+        QUESTIONS,
+        WRONG_GUESSES,
+        PREFETCHES,
+        INIT_FLAGS // pools built and quizzes picked; one per quiz, none per question
+    }
+
+    private static final LatencyHistogram[] histograms =
+            new LatencyHistogram[Timer.values().length];
+    private static final AtomicLongArray counters =
+            new AtomicLongArray(Counter.values().length);
+    private static volatile boolean enabled;
+
+    static {
+        for (int i = 0; i < histograms.length; i++)
+            histograms[i] = new LatencyHistogram();
+    }
+
+    private QuizMetrics() {
+    }
+
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public static void stop(Timer timer, long start) {
+        if (start != 0)
+            histograms[timer.ordinal()].record(System.nanoTime() - start);
+    }
+
+    public static void increment(Counter counter) {
+        if (enabled)
+            counters.incrementAndGet(counter.ordinal());
+    }
+
+    public static LatencyHistogram get(Timer timer) {
+        return histograms[timer.ordinal()];
+    }
+
+    public static long get(Counter counter) {
+        return counters.get(counter.ordinal());
+    }
+
+    public static void reset() {
+        for (LatencyHistogram histogram : histograms)
+            histogram.reset();
+        for (int i = 0; i < counters.length(); i++)
+            counters.set(i, 0);
+    }
+
+    // one line per timer and counter, for logs or a debug screen
+    public static String dump() {
+        StringBuilder builder = new StringBuilder();
+        for (Timer timer : Timer.values()) {
+            builder.append(timer).append(": ");
+            get(timer).appendTo(builder);
+            builder.append('\n');
+        }
+        for (Counter counter : Counter.values())
+            builder.append(counter).append(": ").append(get(counter)).append('\n');
+        return builder.toString();
+    }
+}
@@ -0,0 +1,117 @@
+// QuizResult.java
+// One player's finished quiz, as kept by SessionStore
+package com.deitel.flagquiz.engine;
+
+import java.util.Comparator;
+
+// Immutable. A quiz resumed after the process was killed has no reliable
+// duration, so its millis are UNTIMED and it only ranks by score.
+public final class QuizResult {
+    public static final long UNTIMED = -1;
+
+    // best score first: the higher share of correct guesses, then more
+    // correct answers, then the faster quiz
+    public static final Comparator<QuizResult> BY_SCORE = new Comparator<QuizResult>() {
+        @Override
+        public int compare(QuizResult a, QuizResult b) {
+            // a.correct / a.guesses > b.correct / b.guesses, without division
+            int order = Long.compare((long) b.correctAnswers * a.totalGuesses,
+                    (long) a.correctAnswers * b.totalGuesses);
+            if (order == 0)
+                order = Integer.compare(b.correctAnswers, a.correctAnswers);
+            if (order == 0)
+                order = compareMillis(a, b);
+            return order != 0 ? order : compareEntries(a, b);
+        }
+    };
+
+    // fastest quiz first, then the better score
+    public static final Comparator<QuizResult> BY_SPEED = new Comparator<QuizResult>() {
+        @Override
+        public int compare(QuizResult a, QuizResult b) {
+            int order = compareMillis(a, b);
+            return order != 0 ? order : BY_SCORE.compare(a, b);
+        }
+    };
+
+    private final String player;
+    private final int correctAnswers;
+    private final int totalGuesses;
+    private final long millis; // time taken, or UNTIMED
+    private final long finishedAt; // wall clock time, for history
+
+    public QuizResult(String player, int correctAnswers, int totalGuesses, long millis,
+                      long finishedAt) {
+        if (player == null)
+            throw new NullPointerException("player");
+        this.player = player;
+        this.correctAnswers = correctAnswers;
+        this.totalGuesses = Math.max(correctAnswers, Math.max(1, totalGuesses));
+        this.millis = millis < 0 ? UNTIMED : millis;
+        this.finishedAt = finishedAt;
+    }
+
+    // untimed results rank after every timed one
+    private static int compareMillis(QuizResult a, QuizResult b) {
+        if (a.isTimed() != b.isTimed())
+            return a.isTimed() ? -1 : 1;
+        return Long.compare(a.millis, b.millis);
+    }
+
+    // keeps results that rank the same distinct: the earlier one first
+    private static int compareEntries(QuizResult a, QuizResult b) {
+        int order = Long.compare(a.finishedAt, b.finishedAt);
+        return order != 0 ? order : a.player.compareTo(b.player);
+    }
+
+    public String getPlayer() {
+        return player;
+    }
+
+    public int getCorrectAnswers() {
+        return correctAnswers;
+    }
+
+    public int getTotalGuesses() {
+        return totalGuesses;
+    }
+
+    public boolean isTimed() {
+        return millis != UNTIMED;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    // percentage of guesses that were correct, as the results dialog shows it
+    public double getPercentCorrect() {
+        return correctAnswers * 100.0 / totalGuesses;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof QuizResult))
+            return false;
+        QuizResult result = (QuizResult) other;
+        return player.equals(result.player) && correctAnswers == result.correctAnswers &&
+                totalGuesses == result.totalGuesses && millis == result.millis &&
+                finishedAt == result.finishedAt;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((player.hashCode() * 31 + correctAnswers) * 31 + totalGuesses) * 31 +
+                (int) (finishedAt ^ (finishedAt >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return player + ": " + correctAnswers + "/" + totalGuesses + " in " +
+                (isTimed() ? millis + "ms" : "?");
+    }
+}
@@ -0,0 +1,11 @@
+// QuizSampler.java
+// Chooses which entries of the pool of enabled flags make up a quiz
+package com.deitel.flagquiz.engine;
+
+import java.util.Random;
+
+public interface QuizSampler {
+    // returns count distinct indices in [0, poolSize) in random order;
+    // throws IllegalArgumentException if the pool has fewer than count entries
+    int[] sample(int poolSize, int count, Random random);
+}
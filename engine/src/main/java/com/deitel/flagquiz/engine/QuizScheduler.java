@@ -0,0 +1,74 @@
+// QuizScheduler.java
+// Picks a quiz's flags by how overdue each one is in its FlagStats
+package com.deitel.flagquiz.engine;
+
+import java.util.List;
+import java.util.Random;
+
+// Priorities are computed for the whole pool, heapified bottom-up in O(n),
+// and the quiz is popped off the top in O(k log n). Equal priorities, e.g.
+// flags never asked, are ordered by a random tie-break so every quiz of new
+// flags differs. Not thread safe: the scratch arrays are reused.
+public class QuizScheduler {
+    private final FlagStats stats;
+    private double[] priorities = new double[0]; // by pool index
+    private int[] tieBreaks = new int[0]; // by pool index
+    private int[] heap = new int[0]; // pool indices, highest priority first
+
+    public QuizScheduler(FlagStats stats) {
+        this.stats = stats;
+    }
+
+    // replaces quiz's contents with the count highest-priority flags of
+    // pool at time now, most overdue first; throws
+    // IllegalArgumentException if pool is too small
+    public void pickQuiz(List<Flag> pool, int count, long now, Random random, List<Flag> quiz) {
+        int size = pool.size();
+        if (count < 0 || count > size)
+            throw new IllegalArgumentException(String.format(
+                    "Cannot pick %d flags from a pool of %d", count, size));
+
+        if (heap.length < size) {
+            priorities = new double[size];
+            tieBreaks = new int[size];
+            heap = new int[size];
+        }
+        for (int i = 0; i < size; i++) {
+            priorities[i] = stats.priority(pool.get(i).getId(), now);
+            tieBreaks[i] = random.nextInt();
+            heap[i] = i;
+        }
+        for (int i = size / 2 - 1; i >= 0; i--)
+            siftDown(i, size);
+
+        quiz.clear();
+        for (int i = 0; i < count; i++) {
+            quiz.add(pool.get(heap[0]));
+            heap[0] = heap[--size];
+            siftDown(0, size);
+        }
+    }
+
+    private void siftDown(int parent, int size) {
+        int index = heap[parent];
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && before(heap[child + 1], heap[child]))
+                ++child;
+            if (!before(heap[child], index))
+                break;
+            heap[parent] = heap[child];
+            parent = child;
+        }
+        heap[parent] = index;
+    }
+
+    // whether pool index a should be asked before pool index b
+    private boolean before(int a, int b) {
+        if (priorities[a] != priorities[b])
+            return priorities[a] > priorities[b];
+        return tieBreaks[a] > tieBreaks[b];
+    }
+}
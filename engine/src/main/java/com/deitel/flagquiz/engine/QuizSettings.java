@@ -0,0 +1,84 @@
+// QuizSettings.java
+// An immutable snapshot of the quiz's settings
+package com.deitel.flagquiz.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Built once whenever a setting changes, so the code that answers clicks
+// and picks questions only reads final fields: no preference lookups, no
+// parsing and no locking. Safe to share between threads.
+public final class QuizSettings {
+    private final int choices; // number of guess Buttons
+    private final int guesses; // guesses allowed per question
+    private final int regionMask; // Region bits of the regions to include
+    private final boolean adaptive; // DifficultyController picks choices and distractors
+    private final boolean lookalikes; // hard mode: distractors that look like the answer
+
+    public QuizSettings(int choices, int guesses, int regionMask) {
+        this(choices, guesses, regionMask, false);
+    }
+
+    public QuizSettings(int choices, int guesses, int regionMask, boolean adaptive) {
+        this(choices, guesses, regionMask, adaptive, false);
+    }
+
+    public QuizSettings(int choices, int guesses, int regionMask, boolean adaptive,
+                        boolean lookalikes) {
+        this.adaptive = adaptive;
+        this.lookalikes = lookalikes;
+        this.choices = Math.max(1, Math.min(QuizEngine.MAX_CHOICES, choices));
+        this.guesses = Math.max(1, guesses);
+        this.regionMask = regionMask & Region.ALL;
+    }
+
+    public int getChoices() {
+        return choices;
+    }
+
+    public int getGuesses() {
+        return guesses;
+    }
+
+    public int getRegionMask() {
+        return regionMask;
+    }
+
+    // whether choices is only where the difficulty starts
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    // whether distractors come from the SimilarityIndex, if there is one
+    public boolean isLookalikes() {
+        return lookalikes;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof QuizSettings))
+            return false;
+        QuizSettings settings = (QuizSettings) other;
+        return choices == settings.choices && guesses == settings.guesses &&
+                regionMask == settings.regionMask && adaptive == settings.adaptive &&
+                lookalikes == settings.lookalikes;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((choices * 31 + guesses) * 31 + regionMask) * 4 + (adaptive ? 2 : 0) +
+                (lookalikes ? 1 : 0);
+    }
+
+    // names the regions in Region order
+    @Override
+    public String toString() {
+        List<String> folders = new ArrayList<>();
+        for (Region region : Region.values())
+            if (region.isIn(regionMask))
+                folders.add(region.getFolder());
+        return "QuizSettings{choices=" + choices + ", guesses=" + guesses +
+                ", regions=" + folders + ", adaptive=" + adaptive +
+                ", lookalikes=" + lookalikes + "}";
+    }
+}
@@ -0,0 +1,144 @@
+// QuizState.java
+// The question on screen, the score and the questions to come, as saved between launches
+package com.deitel.flagquiz.engine;
+
+import java.util.Arrays;
+
+public final class QuizState {
+    private final long seed; // the quiz's seed, see QuizEngine
+    private final String answer; // "Region-Country" file name of the flag shown
+    private final String[] choices; // file names on the guess Buttons, in order
+    private int disabledChoices; // bit i is set once choice i was guessed wrong
+    private int questionNumber;
+    private int correctAnswers;
+    private int guessForQuestion;
+    private int totalGuesses;
+    private boolean answered; // the question is over and next() goes on from it
+    private int catalogChecksum; // FlagCatalog.getChecksum() of the ids below
+    private int[] remaining; // flag ids of the questions after this one, or null
+
+    // a state saved before quizzes had seeds
+    public QuizState(String answer, String[] choices, int questionNumber,
+                     int correctAnswers, int guessForQuestion, int totalGuesses) {
+        this(0, answer, choices, questionNumber, correctAnswers, guessForQuestion, totalGuesses);
+    }
+
+    public QuizState(long seed, String answer, String[] choices, int questionNumber,
+                     int correctAnswers, int guessForQuestion, int totalGuesses) {
+        if (choices.length > Integer.SIZE)
+            throw new IllegalArgumentException("Too many choices: " + choices.length);
+        this.seed = seed;
+        this.answer = answer;
+        this.choices = choices;
+        this.questionNumber = questionNumber;
+        this.correctAnswers = correctAnswers;
+        this.guessForQuestion = guessForQuestion;
+        this.totalGuesses = totalGuesses;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public String getAnswer() {
+        return answer;
+    }
+
+    public int getChoiceCount() {
+        return choices.length;
+    }
+
+    public String getChoice(int index) {
+        return choices[index];
+    }
+
+    public boolean isChoiceDisabled(int index) {
+        return (disabledChoices & (1 << index)) != 0;
+    }
+
+    public void disableChoice(int index) {
+        disabledChoices |= 1 << index;
+    }
+
+    public int getDisabledChoices() {
+        return disabledChoices;
+    }
+
+    void setDisabledChoices(int disabledChoices) {
+        this.disabledChoices = disabledChoices;
+    }
+
+    public int getQuestionNumber() {
+        return questionNumber;
+    }
+
+    public int getCorrectAnswers() {
+        return correctAnswers;
+    }
+
+    public int getGuessForQuestion() {
+        return guessForQuestion;
+    }
+
+    public int getTotalGuesses() {
+        return totalGuesses;
+    }
+
+    // true once the question was answered, correctly or out of guesses; the
+    // question number and score then already count it
+    public boolean isAnswered() {
+        return answered;
+    }
+
+    void setAnswered(boolean answered) {
+        this.answered = answered;
+    }
+
+    // the ids of the flags of the questions to come, in order, and the
+    // checksum of the catalog they are ids in
+    void setRemaining(int catalogChecksum, int[] remaining) {
+        this.catalogChecksum = catalogChecksum;
+        this.remaining = remaining;
+    }
+
+    public int getCatalogChecksum() {
+        return catalogChecksum;
+    }
+
+    // null if the state was saved without the rest of its quiz; don't modify
+    public int[] getRemaining() {
+        return remaining;
+    }
+
+    // records a wrong guess without leaving the question
+    public void setGuesses(int guessForQuestion, int totalGuesses) {
+        this.guessForQuestion = guessForQuestion;
+        this.totalGuesses = totalGuesses;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof QuizState))
+            return false;
+        QuizState state = (QuizState) other;
+        return seed == state.seed && answer.equals(state.answer) && Arrays.equals(choices, state.choices) &&
+                disabledChoices == state.disabledChoices &&
+                questionNumber == state.questionNumber &&
+                correctAnswers == state.correctAnswers &&
+                guessForQuestion == state.guessForQuestion &&
+                totalGuesses == state.totalGuesses &&
+                answered == state.answered &&
+                catalogChecksum == state.catalogChecksum &&
+                Arrays.equals(remaining, state.remaining);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * answer.hashCode() + Arrays.hashCode(choices);
+    }
+
+    @Override
+    public String toString() {
+        return QuizStateCodec.encode(this);
+    }
+}
@@ -0,0 +1,182 @@
+// QuizStateCodec.java
+// Converts a QuizState to and from the string the app saves in its quiz state file
+package com.deitel.flagquiz.engine;
+
+// Format: a version tag, the quiz's seed and the integer fields each
+// followed by ';', then 1 if the question was answered or else 0, the
+// catalog's checksum, the number of questions to come (-1 if they weren't
+// saved) and the flag id of each, also followed by ';', then the answer and
+// every choice as <length>:<characters>, e.g.
+//   Q4;-4962768465676381896;3;2;1;5;1;2;0;-1083315743;2;17;4;11:Asia-Bhutan11:Asia-Brunei11:Asia-Bhutan
+// Strings are length-prefixed, so file names may contain any character.
+// A state that is neither answered nor saved with the questions to come is
+// saved as Q2, which is Q4 without the answered flag, the checksum and the
+// ids. States saved as Q3 are Q4 without the answered flag, and states
+// saved as Q1, before quizzes had seeds, are Q2 without the seed and are
+// read with seed 0; neither was answered.
+public final class QuizStateCodec {
+    static final String VERSION = "Q4";
+    static final String VERSION_WITHOUT_ANSWERED = "Q3";
+    static final String VERSION_WITHOUT_REMAINING = "Q2";
+    static final String VERSION_WITHOUT_SEED = "Q1";
+
+    private QuizStateCodec() {
+    }
+
+    public static String encode(QuizState state) {
+        int[] remaining = state.getRemaining();
+        boolean full = remaining != null || state.isAnswered();
+        StringBuilder builder = new StringBuilder(48 + 24 * state.getChoiceCount() +
+                (remaining != null ? 4 * remaining.length : 0));
+        builder.append(full ? VERSION : VERSION_WITHOUT_REMAINING).append(';')
+                .append(state.getSeed()).append(';')
+                .append(state.getQuestionNumber()).append(';')
+                .append(state.getCorrectAnswers()).append(';')
+                .append(state.getGuessForQuestion()).append(';')
+                .append(state.getTotalGuesses()).append(';')
+                .append(state.getDisabledChoices()).append(';')
+                .append(state.getChoiceCount()).append(';');
+        if (full) {
+            builder.append(state.isAnswered() ? 1 : 0).append(';')
+                    .append(state.getCatalogChecksum()).append(';')
+                    .append(remaining != null ? remaining.length : -1).append(';');
+            if (remaining != null)
+                for (int id : remaining)
+                    builder.append(id).append(';');
+        }
+        appendString(builder, state.getAnswer());
+        for (int i = 0; i < state.getChoiceCount(); i++)
+            appendString(builder, state.getChoice(i));
+        return builder.toString();
+    }
+
+    private static void appendString(StringBuilder builder, String value) {
+        builder.append(value.length()).append(':').append(value);
+    }
+
+    // returns null if encoded is empty, malformed or from another version,
+    // such as the comma-separated format used before this codec
+    public static QuizState decode(String encoded) {
+        boolean seeded;
+        boolean withRemaining;
+        boolean withAnswered = false;
+        if (encoded != null && encoded.startsWith(VERSION + ";")) {
+            seeded = withRemaining = withAnswered = true;
+        } else if (encoded != null && encoded.startsWith(VERSION_WITHOUT_ANSWERED + ";")) {
+            seeded = withRemaining = true;
+        } else if (encoded != null && encoded.startsWith(VERSION_WITHOUT_REMAINING + ";")) {
+            seeded = true;
+            withRemaining = false;
+        } else if (encoded != null && encoded.startsWith(VERSION_WITHOUT_SEED + ";")) {
+            seeded = withRemaining = false;
+        } else {
+            return null;
+        }
+
+        Reader reader = new Reader(encoded, VERSION.length() + 1);
+        try {
+            long seed = seeded ? reader.readLong(';') : 0;
+            int questionNumber = reader.readInt(';');
+            int correctAnswers = reader.readInt(';');
+            int guessForQuestion = reader.readInt(';');
+            int totalGuesses = reader.readInt(';');
+            int disabledChoices = reader.readInt(';');
+            int choiceCount = reader.readInt(';');
+            if (choiceCount < 0 || choiceCount > Integer.SIZE)
+                return null;
+            boolean answered = false;
+            if (withAnswered) {
+                int flag = reader.readInt(';');
+                if (flag != 0 && flag != 1)
+                    return null;
+                answered = flag == 1;
+            }
+            int catalogChecksum = 0;
+            int[] remaining = null;
+            if (withRemaining) {
+                catalogChecksum = reader.readInt(';');
+                int remainingCount = reader.readInt(';');
+                // every id takes at least two characters
+                if (remainingCount < (withAnswered ? -1 : 0) ||
+                        remainingCount > encoded.length() / 2)
+                    return null;
+                if (remainingCount >= 0) {
+                    remaining = new int[remainingCount];
+                    for (int i = 0; i < remainingCount; i++)
+                        remaining[i] = reader.readInt(';');
+                }
+            }
+
+            String answer = reader.readString();
+            String[] choices = new String[choiceCount];
+            for (int i = 0; i < choiceCount; i++)
+                choices[i] = reader.readString();
+            if (!reader.atEnd())
+                return null;
+
+            QuizState state = new QuizState(seed, answer, choices, questionNumber,
+                    correctAnswers, guessForQuestion, totalGuesses);
+            state.setDisabledChoices(disabledChoices);
+            state.setAnswered(answered);
+            if (remaining != null)
+                state.setRemaining(catalogChecksum, remaining);
+            return state;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException exception) {
+            return null;
+        }
+    }
+
+    // cursor over an encoded state
+    private static final class Reader {
+        private final String encoded;
+        private int position;
+
+        Reader(String encoded, int position) {
+            this.encoded = encoded;
+            this.position = position;
+        }
+
+        int readInt(char terminator) {
+            return (int) readNumber(terminator, 9);
+        }
+
+        long readLong(char terminator) {
+            return readNumber(terminator, 18);
+        }
+
+        // at most maxDigits + 1 digits; values that don't fit wrap around,
+        // which round-trips every int and long
+        private long readNumber(char terminator, int maxDigits) {
+            long value = 0;
+            boolean negative = encoded.charAt(position) == '-';
+            if (negative)
+                ++position;
+
+            int start = position;
+            char c;
+            while ((c = encoded.charAt(position)) != terminator) {
+                if (c < '0' || c > '9' || position - start > maxDigits)
+                    throw new IllegalArgumentException("Bad number at " + position);
+                value = value * 10 + (c - '0');
+                ++position;
+            }
+            if (position == start)
+                throw new IllegalArgumentException("Missing number at " + position);
+            ++position; // skip the terminator
+            return negative ? -value : value;
+        }
+
+        String readString() {
+            int length = readInt(':');
+            if (length < 0)
+                throw new IllegalArgumentException("Bad length at " + position);
+            String value = encoded.substring(position, position + length);
+            position += length;
+            return value;
+        }
+
+        boolean atEnd() {
+            return position == encoded.length();
+        }
+    }
+}
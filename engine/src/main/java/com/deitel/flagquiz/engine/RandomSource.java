@@ -0,0 +1,16 @@
+// RandomSource.java
+// Where a quiz gets its seed and the Randoms made from it
+package com.deitel.flagquiz.engine;
+
+import java.util.Random;
+
+// Everything random in a quiz comes from Randoms made from its seed, so a
+// quiz is reproduced by its seed alone; tests inject a source with a fixed
+// first seed to replay whole quizzes.
+public interface RandomSource {
+    // seed for a new quiz
+    long nextSeed();
+
+    // a new Random for seed; equal seeds give equal sequences
+    Random forSeed(long seed);
+}
@@ -0,0 +1,55 @@
+// Region.java
+// The world regions a quiz can include, one bit each in a region mask
+package com.deitel.flagquiz.engine;
+
+// Declared in the order of the app's regions_list, which is also the order
+// of a quiz's pool.
+public enum Region {
+    AFRICA("Africa"),
+    ASIA("Asia"),
+    EUROPE("Europe"),
+    NORTH_AMERICA("North_America"),
+    OCEANIA("Oceania"),
+    SOUTH_AMERICA("South_America"),
+    GAME_OF_THRONES("Game_of_Thrones");
+
+    // every region's bit set
+    public static final int ALL = (1 << values().length) - 1;
+
+    private final String folder; // asset folder and file name prefix
+
+    Region(String folder) {
+        this.folder = folder;
+    }
+
+    public String getFolder() {
+        return folder;
+    }
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public boolean isIn(int mask) {
+        return (mask & bit()) != 0;
+    }
+
+    // the region with folder name, or null
+    public static Region forFolder(String folder) {
+        for (Region region : values())
+            if (region.folder.equals(folder))
+                return region;
+        return null;
+    }
+
+    // mask of the named regions; names of unknown regions are ignored
+    public static int maskOf(Iterable<String> folders) {
+        int mask = 0;
+        for (String folder : folders) {
+            Region region = forFolder(folder);
+            if (region != null)
+                mask |= region.bit();
+        }
+        return mask;
+    }
+}
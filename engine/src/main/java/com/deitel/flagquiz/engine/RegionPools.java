@@ -0,0 +1,73 @@
+// RegionPools.java
+// The pool of flags and its DistractorEngine for every region mask
+package com.deitel.flagquiz.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// FlagCatalog numbers flags region by region, so each Region's flags are
+// one range of ids, found once here. A mask's pool is its regions' ranges
+// in Region order, built from ids on first use and then cached along with
+// its DistractorEngine, so changing regions back and forth only costs an
+// array lookup. Regions of the catalog outside the Region enum are left out.
+public class RegionPools {
+    private final FlagCatalog catalog;
+    private final int[] firstId = new int[Region.values().length];
+    private final int[] endId = new int[Region.values().length]; // one past the last id
+    private final List<List<Flag>> pools = new ArrayList<>(); // by mask, null until used
+    private final List<DistractorEngine> distractors = new ArrayList<>();
+
+    public RegionPools(FlagCatalog catalog) {
+        this.catalog = catalog;
+        for (Region region : Region.values()) {
+            List<Flag> flags = catalog.getFlags(region.getFolder());
+            if (!flags.isEmpty()) {
+                firstId[region.ordinal()] = flags.get(0).getId();
+                endId[region.ordinal()] = flags.get(flags.size() - 1).getId() + 1;
+            }
+        }
+        for (int mask = 0; mask <= Region.ALL; mask++) {
+            pools.add(null);
+            distractors.add(null);
+        }
+    }
+
+    // flags of the regions in mask, grouped by region in Region order and in
+    // id order within each region, as DistractorEngine expects
+    public List<Flag> getPool(int mask) {
+        mask &= Region.ALL;
+        List<Flag> pool = pools.get(mask);
+        if (pool == null) {
+            int size = 0;
+            for (Region region : Region.values())
+                if (region.isIn(mask))
+                    size += endId[region.ordinal()] - firstId[region.ordinal()];
+
+            List<Flag> flags = new ArrayList<>(size);
+            for (Region region : Region.values())
+                if (region.isIn(mask))
+                    for (int id = firstId[region.ordinal()]; id < endId[region.ordinal()]; id++)
+                        flags.add(catalog.getFlag(id));
+            pool = Collections.unmodifiableList(flags);
+            pools.set(mask, pool);
+        }
+        return pool;
+    }
+
+    // DistractorEngine over getPool(mask)
+    public DistractorEngine getDistractors(int mask) {
+        mask &= Region.ALL;
+        DistractorEngine engine = distractors.get(mask);
+        if (engine == null) {
+            engine = new DistractorEngine(getPool(mask));
+            distractors.set(mask, engine);
+        }
+        return engine;
+    }
+
+    // number of flags in region's range of ids
+    public int size(Region region) {
+        return endId[region.ordinal()] - firstId[region.ordinal()];
+    }
+}
@@ -0,0 +1,100 @@
+// ResponseTimes.java
+// The most recent answers' response times and outcomes, in a ring buffer
+package com.deitel.flagquiz.engine;
+
+// Keeps the last capacity answers and running sums over them, so recording
+// an answer and reading the rolling accuracy or mean time are O(1) with no
+// allocation. Times come from a monotonic clock (System.nanoTime() or
+// SystemClock.elapsedRealtime()), so changing the wall clock can't skew
+// them; an answer whose time isn't known still counts toward accuracy.
+public final class ResponseTimes {
+    public static final long UNTIMED = -1;
+
+    private final long[] millis;
+    private final boolean[] correct;
+    private int next; // slot the next answer goes in
+    private int count; // answers held, at most capacity
+    private int correctCount;
+    private int timedCount;
+    private long timedSum; // total millis of the timed answers held
+
+    public ResponseTimes(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity " + capacity);
+        millis = new long[capacity];
+        correct = new boolean[capacity];
+    }
+
+    // adds an answer, replacing the oldest once full; millis < 0 is UNTIMED
+    public void record(long responseMillis, boolean wasCorrect) {
+        if (count == millis.length)
+            forget(next);
+        else
+            ++count;
+
+        millis[next] = responseMillis < 0 ? UNTIMED : responseMillis;
+        correct[next] = wasCorrect;
+        if (wasCorrect)
+            ++correctCount;
+        if (responseMillis >= 0) {
+            ++timedCount;
+            timedSum += responseMillis;
+        }
+        next = (next + 1) % millis.length;
+    }
+
+    private void forget(int slot) {
+        if (correct[slot])
+            --correctCount;
+        if (millis[slot] != UNTIMED) {
+            --timedCount;
+            timedSum -= millis[slot];
+        }
+    }
+
+    public void clear() {
+        next = 0;
+        count = 0;
+        correctCount = 0;
+        timedCount = 0;
+        timedSum = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return millis.length;
+    }
+
+    public int getCorrectCount() {
+        return correctCount;
+    }
+
+    // share of the held answers that were correct, 0 if there are none
+    public double getAccuracy() {
+        return count == 0 ? 0 : (double) correctCount / count;
+    }
+
+    // mean time of the held timed answers, or UNTIMED if there are none
+    public long getMeanMillis() {
+        return timedCount == 0 ? UNTIMED : timedSum / timedCount;
+    }
+
+    // the age'th most recent answer's time, from 0
+    public long getMillis(int age) {
+        return millis[slot(age)];
+    }
+
+    public boolean wasCorrect(int age) {
+        return correct[slot(age)];
+    }
+
+    private int slot(int age) {
+        if (age < 0 || age >= count)
+            throw new IndexOutOfBoundsException("age " + age + " of " + count);
+        int capacity = millis.length;
+        return (next - 1 - age + capacity) % capacity;
+    }
+}
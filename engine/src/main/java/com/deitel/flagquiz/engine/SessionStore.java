@@ -0,0 +1,254 @@
+// SessionStore.java
+// Every player's finished quizzes, and leaderboards over all of them
+package com.deitel.flagquiz.engine;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Files in the store's directory:
+//   players/<player>.log   the player's results, one line each, appended
+//                          as quizzes end: R1;finishedAt;correct;guesses;millis
+//   leaderboards           both boards' entries, rewritten when one changes:
+//                          S or T;<player>;finishedAt;correct;guesses;millis
+// Player names are escaped for file names (see escape()). Nothing is read
+// until the boards are first needed, and then only the leaderboards file,
+// whose size depends on the boards' capacity rather than on how many players
+// there are; the player logs are only scanned to rebuild a missing file.
+// A line cut short by a crash is skipped.
+public final class SessionStore {
+    static final String RESULT_VERSION = "R1";
+    static final String BOARDS_FILE = "leaderboards";
+    static final String PLAYERS_DIRECTORY = "players";
+    private static final String LOG_SUFFIX = ".log";
+
+    private final File directory;
+    private final File players;
+    private final int boardSize;
+    private Leaderboard byScore; // null until loaded
+    private Leaderboard bySpeed;
+
+    public SessionStore(File directory, int boardSize) {
+        this.directory = directory;
+        players = new File(directory, PLAYERS_DIRECTORY);
+        this.boardSize = boardSize;
+    }
+
+    // appends result to its player's log and updates the boards; called
+    // once per finished quiz
+    public synchronized void record(QuizResult result) throws IOException {
+        loadBoards();
+        if (!players.isDirectory() && !players.mkdirs())
+            throw new IOException("Can't create " + players);
+
+        OutputStream log = new FileOutputStream(logFile(result.getPlayer()), true);
+        try {
+            log.write(encode(RESULT_VERSION, result).getBytes(StandardCharsets.UTF_8));
+        } finally {
+            log.close();
+        }
+
+        boolean changed = byScore.offer(result);
+        changed |= bySpeed.offer(result);
+        if (changed)
+            writeBoards();
+    }
+
+    // the player's results, oldest first
+    public synchronized List<QuizResult> getHistory(String player) throws IOException {
+        List<QuizResult> history = new ArrayList<>();
+        readLog(player, logFile(player), history);
+        return history;
+    }
+
+    public synchronized List<QuizResult> getTopByScore(int count) throws IOException {
+        loadBoards();
+        return byScore.top(count);
+    }
+
+    public synchronized List<QuizResult> getTopBySpeed(int count) throws IOException {
+        loadBoards();
+        return bySpeed.top(count);
+    }
+
+    private File logFile(String player) {
+        return new File(players, escape(player) + LOG_SUFFIX);
+    }
+
+    private void loadBoards() throws IOException {
+        if (byScore != null)
+            return;
+        Leaderboard score = Leaderboard.byScore(boardSize);
+        Leaderboard speed = Leaderboard.bySpeed(boardSize);
+        if (!readBoards(score, speed))
+            rebuildBoards(score, speed);
+        byScore = score;
+        bySpeed = speed;
+    }
+
+    // returns false if there's no leaderboards file
+    private boolean readBoards(Leaderboard score, Leaderboard speed) throws IOException {
+        BufferedReader reader;
+        try {
+            reader = open(new File(directory, BOARDS_FILE));
+        } catch (FileNotFoundException exception) {
+            return false;
+        }
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int end = line.indexOf(';', 2);
+                if (end < 0)
+                    continue;
+                QuizResult result = decode(unescape(line.substring(2, end)), line, end + 1);
+                if (result != null && line.startsWith("S;"))
+                    score.offer(result);
+                else if (result != null && line.startsWith("T;"))
+                    speed.offer(result);
+            }
+        } finally {
+            reader.close();
+        }
+        return true;
+    }
+
+    // the boards from every player's log, if the leaderboards file was lost
+    private void rebuildBoards(Leaderboard score, Leaderboard speed) throws IOException {
+        File[] logs = players.listFiles();
+        if (logs == null)
+            return;
+        List<QuizResult> results = new ArrayList<>();
+        for (File log : logs) {
+            String name = log.getName();
+            if (!name.endsWith(LOG_SUFFIX))
+                continue;
+            results.clear();
+            readLog(unescape(name.substring(0, name.length() - LOG_SUFFIX.length())), log,
+                    results);
+            for (QuizResult result : results) {
+                score.offer(result);
+                speed.offer(result);
+            }
+        }
+        writeBoards(score, speed);
+    }
+
+    private void writeBoards() throws IOException {
+        writeBoards(byScore, bySpeed);
+    }
+
+    // replaces the leaderboards file with a complete new one
+    private void writeBoards(Leaderboard score, Leaderboard speed) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Can't create " + directory);
+        File file = new File(directory, BOARDS_FILE);
+        File temporary = new File(directory, BOARDS_FILE + ".new");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(temporary),
+                StandardCharsets.UTF_8);
+        try {
+            for (QuizResult result : score.top(score.capacity()))
+                writer.write(encode("S;" + escape(result.getPlayer()), result));
+            for (QuizResult result : speed.top(speed.capacity()))
+                writer.write(encode("T;" + escape(result.getPlayer()), result));
+        } finally {
+            writer.close();
+        }
+        if (!temporary.renameTo(file)) {
+            // some file systems won't rename over an existing file
+            if (!file.delete() || !temporary.renameTo(file))
+                throw new IOException("Can't replace " + file);
+        }
+    }
+
+    private static void readLog(String player, File log, List<QuizResult> results)
+            throws IOException {
+        BufferedReader reader;
+        try {
+            reader = open(log);
+        } catch (FileNotFoundException exception) {
+            return; // no quizzes yet
+        }
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith(RESULT_VERSION + ";"))
+                    continue;
+                QuizResult result = decode(player, line, RESULT_VERSION.length() + 1);
+                if (result != null)
+                    results.add(result);
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static BufferedReader open(File file) throws FileNotFoundException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file),
+                StandardCharsets.UTF_8));
+    }
+
+    private static String encode(String prefix, QuizResult result) {
+        return prefix + ';' + result.getFinishedAt() + ';' + result.getCorrectAnswers() + ';' +
+                result.getTotalGuesses() + ';' + result.getMillis() + '\n';
+    }
+
+    // the result whose fields start at line's index start, or null
+    private static QuizResult decode(String player, String line, int start) {
+        String[] fields = line.substring(start).split(";", -1);
+        if (player == null || fields.length != 4)
+            return null;
+        try {
+            return new QuizResult(player, Integer.parseInt(fields[1]),
+                    Integer.parseInt(fields[2]), Long.parseLong(fields[3]),
+                    Long.parseLong(fields[0]));
+        } catch (NumberFormatException exception) {
+            return null;
+        }
+    }
+
+    // letters, digits, '-' and '_' as they are, anything else as %XXXX, the
+    // UTF-16 unit in hex; so names are safe file names with no ';'
+    static String escape(String player) {
+        StringBuilder builder = new StringBuilder(player.length() + 8);
+        for (int i = 0; i < player.length(); i++) {
+            char c = player.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') ||
+                    (c >= '0' && c <= '9') || c == '-' || c == '_')
+                builder.append(c);
+            else
+                builder.append('%').append(String.format("%04X", (int) c));
+        }
+        return builder.toString();
+    }
+
+    // the player escape() was given, or null if escaped is malformed
+    static String unescape(String escaped) {
+        StringBuilder builder = new StringBuilder(escaped.length());
+        for (int i = 0; i < escaped.length(); i++) {
+            char c = escaped.charAt(i);
+            if (c != '%') {
+                builder.append(c);
+                continue;
+            }
+            if (i + 5 > escaped.length())
+                return null;
+            try {
+                builder.append((char) Integer.parseInt(escaped.substring(i + 1, i + 5), 16));
+            } catch (NumberFormatException exception) {
+                return null;
+            }
+            i += 4;
+        }
+        return builder.toString();
+    }
+}
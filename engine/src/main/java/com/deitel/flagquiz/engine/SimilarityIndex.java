@@ -0,0 +1,90 @@
+// SimilarityIndex.java
+// Each flag's most similar-looking flags, as found ahead of time by the tools
+package com.deitel.flagquiz.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// An index file, as written by SimilarityIndexWriter:
+//   magic, neighbours per flag, entry count                    int x 3
+//   per entry: name length (short), UTF-8 file name
+//   per entry: entry numbers of its neighbours, most similar
+//              first, -1 after the last                        short x neighbours
+// Reading resolves every entry against the catalog once, so a question's
+// lookalikes are an array lookup by flag id. Flags the catalog doesn't
+// have are left out; flags the index doesn't have have no lookalikes.
+public final class SimilarityIndex {
+    public static final int MAGIC = 0x46534931; // "FSI1"
+    public static final String FILE_NAME = "flag_similarity.bin";
+
+    private static final Flag[] NONE = new Flag[0];
+
+    private final Flag[][] lookalikes; // by flag id
+
+    private SimilarityIndex(Flag[][] lookalikes) {
+        this.lookalikes = lookalikes;
+    }
+
+    public static SimilarityIndex read(InputStream in, FlagCatalog catalog) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0)
+            bytes.write(buffer, 0, read);
+        return read(ByteBuffer.wrap(bytes.toByteArray()), catalog);
+    }
+
+    // throws IOException if data isn't an index or is cut short
+    public static SimilarityIndex read(ByteBuffer data, FlagCatalog catalog) throws IOException {
+        ByteBuffer index = data.duplicate();
+        index.order(ByteOrder.BIG_ENDIAN);
+        try {
+            if (index.getInt() != MAGIC)
+                throw new IOException("Not a similarity index");
+            int neighbours = index.getInt();
+            int count = index.getInt();
+            if (neighbours < 0 || count < 0)
+                throw new IOException("Bad index size " + neighbours + " x " + count);
+
+            Flag[] entries = new Flag[count];
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[index.getShort() & 0xFFFF];
+                index.get(name);
+                entries[i] = catalog.find(new String(name, StandardCharsets.UTF_8));
+            }
+
+            Flag[][] lookalikes = new Flag[catalog.size()][];
+            List<Flag> found = new ArrayList<>(neighbours);
+            for (int i = 0; i < count; i++) {
+                found.clear();
+                for (int j = 0; j < neighbours; j++) {
+                    int entry = index.getShort();
+                    if (entry >= count)
+                        throw new IOException("Bad neighbour " + entry);
+                    if (entry >= 0 && entries[entry] != null)
+                        found.add(entries[entry]);
+                }
+                if (entries[i] != null)
+                    lookalikes[entries[i].getId()] = found.toArray(new Flag[found.size()]);
+            }
+            return new SimilarityIndex(lookalikes);
+        } catch (BufferUnderflowException exception) {
+            throw new IOException("Truncated similarity index", exception);
+        }
+    }
+
+    // the flags that look most like flag, most similar first; don't modify
+    public Flag[] getLookalikes(Flag flag) {
+        int id = flag.getId();
+        if (id < 0 || id >= lookalikes.length || lookalikes[id] == null)
+            return NONE;
+        return lookalikes[id];
+    }
+}
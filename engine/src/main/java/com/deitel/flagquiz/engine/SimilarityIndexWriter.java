@@ -0,0 +1,49 @@
+// SimilarityIndexWriter.java
+// Writes each flag's most similar flags as one SimilarityIndex file
+package com.deitel.flagquiz.engine;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SimilarityIndexWriter {
+    private final int neighbours;
+    private final List<String> fileNames = new ArrayList<>();
+    private final List<int[]> neighbourEntries = new ArrayList<>();
+
+    public SimilarityIndexWriter(int neighbours) {
+        this.neighbours = neighbours;
+    }
+
+    // entries are numbered in the order they're added; neighbourEntries are
+    // the entry numbers of fileName's lookalikes, most similar first, and
+    // only the first neighbours of them are written
+    public void add(String fileName, int[] neighbourEntries) {
+        fileNames.add(fileName);
+        this.neighbourEntries.add(neighbourEntries);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        if (fileNames.size() > Short.MAX_VALUE)
+            throw new IOException("Too many flags: " + fileNames.size());
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(SimilarityIndex.MAGIC);
+        data.writeInt(neighbours);
+        data.writeInt(fileNames.size());
+        for (String fileName : fileNames) {
+            byte[] name = fileName.getBytes(StandardCharsets.UTF_8);
+            if (name.length > 0xFFFF)
+                throw new IOException("File name too long: " + fileName);
+            data.writeShort(name.length);
+            data.write(name);
+        }
+        for (int[] entries : neighbourEntries)
+            for (int j = 0; j < neighbours; j++)
+                data.writeShort(j < entries.length ? entries[j] : -1);
+        data.flush();
+    }
+}
@@ -0,0 +1,78 @@
+// SplitMix64.java
+// A small, fast and splittable Random, the default for quizzes
+package com.deitel.flagquiz.engine;
+
+import java.util.Random;
+
+// Steele, Lea and Flood's SplitMix64, the generator behind
+// java.util.SplittableRandom: the state advances by a fixed odd gamma and
+// each value is that state run through a 64-bit finalizer. Seeding is a
+// single assignment, unlike SecureRandom, and every call is a few
+// multiplies with no AtomicLong, unlike Random. Not thread safe, and not
+// for anything security related.
+public class SplitMix64 extends Random {
+    private static final long serialVersionUID = 1L;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public SplitMix64(long seed) {
+        super(0L);
+        state = seed;
+    }
+
+    // called by Random's constructor too, before state is assigned
+    @Override
+    public void setSeed(long seed) {
+        state = seed;
+    }
+
+    @Override
+    public long nextLong() {
+        return mix(state += GOLDEN_GAMMA);
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    // a new generator whose values are independent of this one's
+    public SplitMix64 split() {
+        return new SplitMix64(nextLong());
+    }
+
+    // SplitMix64's finalizer: spreads any change of z over all 64 bits
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // seed of the index'th stream derived from seed, e.g. one per question
+    public static long derive(long seed, long index) {
+        return mix(seed + (index + 1) * GOLDEN_GAMMA);
+    }
+
+    // a RandomSource whose quiz seeds come from a SplitMix64 seeded with seed
+    public static RandomSource source(final long seed) {
+        return new RandomSource() {
+            private final SplitMix64 seeds = new SplitMix64(seed);
+
+            @Override
+            public synchronized long nextSeed() {
+                return seeds.nextLong();
+            }
+
+            @Override
+            public Random forSeed(long quizSeed) {
+                return new SplitMix64(quizSeed);
+            }
+        };
+    }
+
+    // a RandomSource seeded from the clock, different on every launch
+    public static RandomSource source() {
+        return source(mix(System.nanoTime() ^ System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,84 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BoundedLruCacheTest {
+   private BoundedLruCache<String, byte[]> cache;
+
+   @Before
+   public void createCache() {
+      cache = new BoundedLruCache<>(10, new BoundedLruCache.Sizer<byte[]>() {
+         @Override
+         public int sizeOf(byte[] value) {
+            return value.length;
+         }
+      });
+   }
+
+   @Test
+   public void evictsLeastRecentlyUsedFirst() {
+      cache.put("a", new byte[4]);
+      cache.put("b", new byte[4]);
+      cache.get("a"); // "b" is now the eldest
+      cache.put("c", new byte[4]);
+
+      assertTrue(cache.contains("a"));
+      assertFalse(cache.contains("b"));
+      assertTrue(cache.contains("c"));
+      assertEquals(8, cache.size());
+      assertEquals(1, cache.evictionCount());
+   }
+
+   @Test
+   public void evictsAsManyEntriesAsNeeded() {
+      cache.put("a", new byte[3]);
+      cache.put("b", new byte[3]);
+      cache.put("c", new byte[3]);
+      cache.put("d", new byte[9]);
+
+      assertFalse(cache.contains("a"));
+      assertFalse(cache.contains("b"));
+      assertFalse(cache.contains("c"));
+      assertEquals(9, cache.size());
+      assertEquals(3, cache.evictionCount());
+   }
+
+   @Test
+   public void replacingKeyReleasesOldSize() {
+      cache.put("a", new byte[6]);
+      cache.put("a", new byte[2]);
+      assertEquals(2, cache.size());
+      assertEquals(0, cache.evictionCount());
+   }
+
+   @Test
+   public void oversizedValueIsNotCached() {
+      cache.put("a", new byte[5]);
+      cache.put("huge", new byte[11]);
+      assertFalse(cache.contains("huge"));
+      assertTrue(cache.contains("a"));
+   }
+
+   @Test
+   public void countsHitsAndMisses() {
+      cache.put("a", new byte[1]);
+      cache.get("a");
+      cache.get("a");
+      cache.get("b");
+      assertEquals(2, cache.hitCount());
+      assertEquals(1, cache.missCount());
+   }
+
+   @Test
+   public void sampleSizeKeepsImageAtLeastRequestedSize() {
+      assertEquals(1, Downsampling.inSampleSize(473, 313, 473, 313));
+      assertEquals(1, Downsampling.inSampleSize(473, 313, 300, 200));
+      assertEquals(2, Downsampling.inSampleSize(473, 313, 200, 100));
+      assertEquals(4, Downsampling.inSampleSize(473, 313, 100, 60));
+      assertEquals(1, Downsampling.inSampleSize(473, 313, 0, 0));
+      assertEquals(8, Downsampling.inSampleSize(473, 313, 0, 36));
+   }
+}
@@ -0,0 +1,275 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CoalescingWriterTest {
+   private final ManualScheduler scheduler = new ManualScheduler();
+   private final List<String> written = new ArrayList<>();
+   private final CoalescingWriter.Sink sink = new CoalescingWriter.Sink() {
+      @Override
+      public void write(String value) {
+         written.add(value);
+      }
+   };
+
+   @Test
+   public void rapidGuessesCoalesceIntoOneWrite() {
+      CoalescingWriter writer = new CoalescingWriter(sink, scheduler, 200, null);
+      for (int guess = 1; guess <= 1000; guess++)
+         writer.submit("guess " + guess);
+
+      scheduler.advance(199);
+      assertEquals(0, writer.getWriteCount());
+      scheduler.advance(1);
+      assertEquals(1, writer.getWriteCount());
+      assertEquals(Collections.singletonList("guess 1000"), written);
+   }
+
+   @Test
+   public void steadyGuessesAreBoundedByTheDelay() throws Exception {
+      CoalescingWriter writer = new CoalescingWriter(sink, scheduler, 50, null);
+      for (int guess = 1; guess <= 500; guess++) { // one a millisecond
+         writer.submit("guess " + guess);
+         scheduler.advance(1);
+      }
+      writer.flush();
+
+      // one write per 50 ms window, each of the latest guess
+      assertEquals(10, writer.getWriteCount());
+      assertEquals("guess 50", written.get(0));
+      assertEquals("guess 500", written.get(written.size() - 1));
+   }
+
+   @Test
+   public void flushWritesPendingValueImmediately() throws Exception {
+      CoalescingWriter writer = new CoalescingWriter(sink, scheduler, 60000, null);
+      writer.submit("a");
+      writer.submit("b");
+      writer.flush();
+      assertEquals(Collections.singletonList("b"), written);
+
+      // nothing pending, so nothing more to write
+      writer.flush();
+      scheduler.advance(60000);
+      assertEquals(1, writer.getWriteCount());
+   }
+
+   @Test
+   public void failedWritesAreReportedAndKept() throws Exception {
+      final List<Exception> failures = new ArrayList<>();
+      CoalescingWriter writer = new CoalescingWriter(new FailingSink(1, null),
+              scheduler, 10, new CoalescingWriter.ErrorListener() {
+         @Override
+         public void onWriteFailed(IOException exception) {
+            failures.add(exception);
+         }
+      });
+      writer.submit("a");
+      scheduler.advance(10);
+      assertEquals(1, failures.size());
+      assertEquals(0, writer.getWriteCount());
+
+      // the value that failed is still there to write
+      writer.flush();
+      assertEquals(Collections.singletonList("a"), written);
+   }
+
+   @Test
+   public void failedWriteDoesNotReplaceANewerValue() throws Exception {
+      FailingSink failing = new FailingSink(1, "b");
+      CoalescingWriter writer = new CoalescingWriter(failing, scheduler, 10, null);
+      failing.writer = writer;
+      writer.submit("a");
+      try {
+         writer.flush();
+         fail();
+      } catch (IOException expected) {
+      }
+
+      writer.flush();
+      assertEquals(Collections.singletonList("b"), written);
+   }
+
+   @Test
+   public void failedWriteIsRetriedWithTheNextSubmit() throws Exception {
+      CoalescingWriter writer = new CoalescingWriter(new FailingSink(1, null),
+              scheduler, 10, null);
+      writer.submit("a");
+      scheduler.advance(10);
+      writer.submit("b");
+      scheduler.advance(10);
+      assertEquals(Arrays.asList("b"), written);
+   }
+
+   // fails the first few writes, submitting newer to writer during each
+   // failing write if it's not null, as a submit() on another thread might
+   private class FailingSink implements CoalescingWriter.Sink {
+      private int failures;
+      private final String newer;
+      CoalescingWriter writer;
+
+      FailingSink(int failures, String newer) {
+         this.failures = failures;
+         this.newer = newer;
+      }
+
+      @Override
+      public void write(String value) throws IOException {
+         if (failures == 0) {
+            written.add(value);
+            return;
+         }
+         --failures;
+         if (newer != null)
+            writer.submit(newer);
+         throw new IOException("disk full");
+      }
+   }
+
+   // runs scheduled tasks on the test's thread when advance() passes their
+   // time, so the tests don't depend on how fast the machine is
+   private static class ManualScheduler extends AbstractExecutorService
+           implements ScheduledExecutorService {
+      private final List<Task> tasks = new ArrayList<>();
+      private long now; // milliseconds
+
+      void advance(long millis) {
+         long until = now + millis;
+         Task next;
+         while ((next = nextDue(until)) != null) {
+            tasks.remove(next);
+            now = next.time;
+            next.done = true;
+            next.command.run();
+         }
+         now = until;
+      }
+
+      // the earliest task due by until that isn't cancelled, or null
+      private Task nextDue(long until) {
+         Task next = null;
+         for (Task task : tasks)
+            if (!task.cancelled && task.time <= until && (next == null || task.time < next.time))
+               next = task;
+         return next;
+      }
+
+      @Override
+      public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+         Task task = new Task(command, now + unit.toMillis(delay));
+         tasks.add(task);
+         return task;
+      }
+
+      @Override
+      public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay,
+                                                    long period, TimeUnit unit) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay,
+                                                       long delay, TimeUnit unit) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void execute(Runnable command) {
+         command.run();
+      }
+
+      @Override
+      public void shutdown() {
+      }
+
+      @Override
+      public List<Runnable> shutdownNow() {
+         return Collections.emptyList();
+      }
+
+      @Override
+      public boolean isShutdown() {
+         return false;
+      }
+
+      @Override
+      public boolean isTerminated() {
+         return false;
+      }
+
+      @Override
+      public boolean awaitTermination(long timeout, TimeUnit unit) {
+         return true;
+      }
+
+      private class Task implements ScheduledFuture<Object> {
+         final Runnable command;
+         final long time;
+         boolean cancelled;
+         boolean done;
+
+         Task(Runnable command, long time) {
+            this.command = command;
+            this.time = time;
+         }
+
+         @Override
+         public long getDelay(TimeUnit unit) {
+            return unit.convert(time - now, TimeUnit.MILLISECONDS);
+         }
+
+         @Override
+         public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS),
+                    other.getDelay(TimeUnit.MILLISECONDS));
+         }
+
+         @Override
+         public boolean cancel(boolean mayInterruptIfRunning) {
+            if (done || cancelled)
+               return false;
+            cancelled = true;
+            return true;
+         }
+
+         @Override
+         public boolean isCancelled() {
+            return cancelled;
+         }
+
+         @Override
+         public boolean isDone() {
+            return done || cancelled;
+         }
+
+         @Override
+         public Object get() {
+            return null;
+         }
+
+         @Override
+         public Object get(long timeout, TimeUnit unit) {
+            return null;
+         }
+      }
+   }
+}
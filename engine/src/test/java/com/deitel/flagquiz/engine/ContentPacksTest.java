@@ -0,0 +1,291 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Installs packs generated here and reads them back the way the app does.
+ */
+public class ContentPacksTest {
+   private File directory;
+
+   @Before
+   public void createDirectory() throws IOException {
+      directory = Files.createTempDirectory("packs").toFile();
+   }
+
+   @After
+   public void deleteDirectory() {
+      delete(directory);
+   }
+
+   private static void delete(File file) {
+      File[] children = file.listFiles();
+      if (children != null)
+         for (File child : children)
+            delete(child);
+      file.delete();
+   }
+
+   private ContentPacks open() {
+      return new ContentPacks(new File(directory, "installed"));
+   }
+
+   // stand-in PNG bytes naming the flag, so tests can tell images apart
+   private static byte[] image(String fileName) {
+      return ("PNG " + fileName).getBytes(StandardCharsets.UTF_8);
+   }
+
+   // a pack with the manifest first, as the packs the app ships should be,
+   // and an image of every flag it lists
+   private static byte[] pack(List<String> fileNames) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      ZipOutputStream zip = new ZipOutputStream(bytes);
+      zip.putNextEntry(new ZipEntry(ContentPack.MANIFEST));
+      for (String fileName : fileNames)
+         zip.write((fileName + "\n").getBytes(StandardCharsets.UTF_8));
+      zip.closeEntry();
+      for (String fileName : fileNames) {
+         zip.putNextEntry(new ZipEntry(FlagCatalog.unindexed(fileName).getAssetPath()));
+         zip.write(image(fileName));
+         zip.closeEntry();
+      }
+      zip.close();
+      return bytes.toByteArray();
+   }
+
+   private static void install(ContentPacks packs, String name, String... fileNames)
+           throws IOException {
+      packs.install(name, new ByteArrayInputStream(pack(Arrays.asList(fileNames))));
+   }
+
+   private static byte[] read(InputStream in) throws IOException {
+      try {
+         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+         byte[] buffer = new byte[256];
+         int read;
+         while ((read = in.read(buffer)) > 0)
+            bytes.write(buffer, 0, read);
+         return bytes.toByteArray();
+      } finally {
+         in.close();
+      }
+   }
+
+   @Test
+   public void packFlagsJoinTheirRegions() throws IOException {
+      ContentPacks packs = open();
+      install(packs, "historic", "Europe-Prussia", "Asia-Siam");
+      install(packs, "westeros", "Game_of_Thrones-Dorne");
+
+      FlagCatalog bundled = FlagCatalog.of(Arrays.asList(
+              "Asia-Japan", "Europe-France", "Game_of_Thrones-Stark"));
+      FlagCatalog catalog = bundled.plus(packs.getFileNames());
+      assertEquals(6, catalog.size());
+      assertEquals(Arrays.asList("historic", "westeros"), packs.getPackNames());
+
+      // every region is still one range of ids, so the pools take them in
+      RegionPools pools = new RegionPools(catalog);
+      assertEquals(2, pools.size(Region.EUROPE));
+      assertEquals(2, pools.size(Region.GAME_OF_THRONES));
+      assertTrue(pools.getPool(Region.ASIA.bit()).contains(catalog.find("Asia-Siam")));
+      assertSame(bundled, bundled.plus(Collections.<String>emptyList()));
+   }
+
+   @Test
+   public void imagesStreamOutOfTheirPack() throws IOException {
+      ContentPacks packs = open();
+      install(packs, "historic", "Europe-Prussia", "Asia-Siam");
+      FlagCatalog catalog = FlagCatalog.of(packs.getFileNames());
+
+      assertArrayEquals(image("Asia-Siam"),
+              read(packs.openImage(catalog.find("Asia-Siam"))));
+      assertNull(packs.openImage(FlagCatalog.unindexed("Europe-France")));
+      packs.close();
+   }
+
+   @Test
+   public void listingReadsOnlyTheIndex() throws IOException {
+      install(open(), "historic", "Europe-Prussia", "Asia-Siam");
+
+      // with the zip unreadable, only opening an image notices
+      File zip = new File(directory, "installed/historic" + ContentPack.EXTENSION);
+      Files.write(zip.toPath(), new byte[]{1, 2, 3});
+      ContentPacks packs = open();
+      assertEquals(Arrays.asList("Europe-Prussia", "Asia-Siam"), packs.getFileNames());
+      try {
+         packs.openImage(FlagCatalog.unindexed("Asia-Siam"));
+         fail();
+      } catch (IOException expected) {
+      }
+   }
+
+   @Test
+   public void lostIndexIsRebuiltFromTheManifests() throws IOException {
+      ContentPacks packs = open();
+      install(packs, "a", "Europe-Prussia");
+      install(packs, "b", "Asia-Siam", "Asia-Ryukyu");
+      assertTrue(new File(directory, "installed/" + ContentPacks.INDEX_FILE).delete());
+
+      ContentPacks reopened = open();
+      assertEquals(Arrays.asList("a", "b"), reopened.getPackNames());
+      assertEquals(packs.getFileNames(), reopened.getFileNames());
+      assertTrue(new File(directory, "installed/" + ContentPacks.INDEX_FILE).isFile());
+   }
+
+   @Test
+   public void reinstallingReplacesAPack() throws IOException {
+      ContentPacks packs = open();
+      install(packs, "historic", "Europe-Prussia");
+      assertArrayEquals(image("Europe-Prussia"),
+              read(packs.openImage(FlagCatalog.unindexed("Europe-Prussia"))));
+      install(packs, "historic", "Asia-Siam");
+
+      assertEquals(Arrays.asList("Asia-Siam"), packs.getFileNames());
+      assertNull(packs.openImage(FlagCatalog.unindexed("Europe-Prussia")));
+      assertArrayEquals(image("Asia-Siam"),
+              read(packs.openImage(FlagCatalog.unindexed("Asia-Siam"))));
+      assertEquals(packs.getFileNames(), open().getFileNames());
+   }
+
+   @Test
+   public void removedPacksAreGone() throws IOException {
+      ContentPacks packs = open();
+      install(packs, "a", "Europe-Prussia");
+      install(packs, "b", "Asia-Siam");
+      assertTrue(packs.remove("a"));
+      assertFalse(packs.remove("a"));
+
+      assertEquals(Arrays.asList("b"), open().getPackNames());
+      assertEquals(Arrays.asList("Asia-Siam"), open().getFileNames());
+      assertFalse(new File(directory, "installed/a" + ContentPack.EXTENSION).exists());
+   }
+
+   @Test
+   public void badPacksAreRejected() throws IOException {
+      ContentPacks packs = open();
+      install(packs, "good", "Europe-Prussia");
+
+      // an image missing, a name that isn't a flag's, not a zip, cut short
+      byte[][] bad = {manifestOnly("Asia-Siam\n"), manifestOnly("Siam\n"),
+              new byte[]{'P', 'K'}, Arrays.copyOf(pack(Arrays.asList("Asia-Siam")), 40)};
+      for (byte[] pack : bad) {
+         try {
+            packs.install("good", new ByteArrayInputStream(pack));
+            fail();
+         } catch (IOException expected) {
+         }
+      }
+
+      assertEquals(Arrays.asList("Europe-Prussia"), open().getFileNames());
+      assertArrayEquals(image("Europe-Prussia"),
+              read(packs.openImage(FlagCatalog.unindexed("Europe-Prussia"))));
+      assertEquals(Arrays.asList("good" + ContentPack.EXTENSION, ContentPacks.INDEX_FILE),
+              sorted(new File(directory, "installed").list()));
+   }
+
+   @Test
+   public void packsOfUnknownRegionsAreRejected() throws IOException {
+      ContentPacks packs = open();
+      install(packs, "good", "Europe-Prussia");
+      try {
+         install(packs, "atlantis", "Asia-Siam", "Atlantis-Poseidonia");
+         fail();
+      } catch (IOException expected) {
+         assertTrue(expected.getMessage(), expected.getMessage().contains("Atlantis"));
+      }
+      assertEquals(Arrays.asList("good"), open().getPackNames());
+
+      // an index written before the check keeps only flags a quiz can ask
+      Files.write(new File(directory, "installed/" + ContentPacks.INDEX_FILE).toPath(),
+              "P;good\nF;Europe-Prussia\nF;Atlantis-Poseidonia\n".getBytes(StandardCharsets.UTF_8));
+      assertEquals(Arrays.asList("Europe-Prussia"), open().getFileNames());
+   }
+
+   private static byte[] manifestOnly(String manifest) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      ZipOutputStream zip = new ZipOutputStream(bytes);
+      zip.putNextEntry(new ZipEntry(ContentPack.MANIFEST));
+      zip.write(manifest.getBytes(StandardCharsets.UTF_8));
+      zip.close();
+      return bytes.toByteArray();
+   }
+
+   private static List<String> sorted(String[] names) {
+      List<String> list = new ArrayList<>(Arrays.asList(names));
+      Collections.sort(list);
+      return list;
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void packNamesAreFileNames() throws IOException {
+      install(open(), "../escape", "Europe-Prussia");
+   }
+
+   @Test
+   public void incomingPacksAreInstalledAndDeleted() throws IOException {
+      File incoming = new File(directory, "incoming");
+      assertTrue(incoming.mkdir());
+      write(new File(incoming, "historic.zip"), pack(Arrays.asList("Europe-Prussia")));
+      write(new File(incoming, "broken.zip"), new byte[]{1});
+      write(new File(incoming, "notes.txt"), new byte[]{1});
+
+      ContentPacks packs = open();
+      assertEquals(1, packs.installAll(incoming));
+      assertEquals(Arrays.asList("historic"), packs.getPackNames());
+      assertEquals(Arrays.asList("notes.txt"), Arrays.asList(incoming.list()));
+      assertEquals(0, open().installAll(new File(directory, "missing")));
+   }
+
+   private static void write(File file, byte[] bytes) throws IOException {
+      OutputStream out = new FileOutputStream(file);
+      try {
+         out.write(bytes);
+      } finally {
+         out.close();
+      }
+   }
+
+   @Test
+   public void dozensOfPacksOpenFromOneFile() throws IOException {
+      ContentPacks packs = open();
+      List<String> all = new ArrayList<>();
+      for (int p = 0; p < 40; p++) {
+         List<String> fileNames = new ArrayList<>();
+         for (int f = 0; f < 100; f++)
+            fileNames.add(Region.values()[f % 7].getFolder() + "-Pack" + p + "_Flag" + f);
+         packs.install("pack" + p, new ByteArrayInputStream(pack(fileNames)));
+         all.addAll(fileNames);
+      }
+
+      // opening reads the index alone: none of the 40 zips is touched
+      for (File file : new File(directory, "installed").listFiles())
+         if (file.getName().endsWith(ContentPack.EXTENSION))
+            assertTrue(file.delete());
+      ContentPacks reopened = open();
+      assertEquals(all, reopened.getFileNames());
+
+      FlagCatalog catalog = FlagCatalog.of(Arrays.asList("Europe-France")).plus(all);
+      assertEquals(4001, catalog.size());
+      assertEquals(new RegionPools(catalog).getPool(Region.ALL).size(), catalog.size());
+   }
+}
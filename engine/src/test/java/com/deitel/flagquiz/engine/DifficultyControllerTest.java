@@ -0,0 +1,91 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DifficultyControllerTest {
+   private static void answer(DifficultyController controller, int times, long millis,
+                              boolean correct) {
+      for (int i = 0; i < times; i++)
+         controller.onAnswer(millis, correct);
+   }
+
+   @Test
+   public void startsAtTheSettingsChoicesFromTheSameRegion() {
+      DifficultyController controller = new DifficultyController(6);
+      assertEquals(6, controller.getChoices());
+      assertTrue(controller.isSameRegion());
+   }
+
+   @Test
+   public void fastCorrectAnswersMakeItHarder() {
+      DifficultyController controller = new DifficultyController(4);
+      answer(controller, DifficultyController.MIN_ANSWERS - 1, 2000, true);
+      assertEquals(4, controller.getChoices()); // too few answers to judge
+
+      assertTrue(controller.onAnswer(2000, true));
+      assertEquals(6, controller.getChoices());
+      assertFalse(controller.isSameRegion());
+
+      answer(controller, DifficultyController.MIN_ANSWERS, 2000, true);
+      assertEquals(6, controller.getChoices());
+      assertTrue(controller.isSameRegion());
+   }
+
+   @Test
+   public void slowAnswersMakeItEasier() {
+      DifficultyController controller = new DifficultyController(4);
+      answer(controller, DifficultyController.MIN_ANSWERS,
+              DifficultyController.SLOW_MILLIS + 1, true);
+      assertEquals(4, controller.getChoices());
+      assertFalse(controller.isSameRegion());
+   }
+
+   @Test
+   public void wrongAnswersMakeItEasier() {
+      DifficultyController controller = new DifficultyController(4);
+      answer(controller, DifficultyController.MIN_ANSWERS, 1000, false);
+      assertFalse(controller.isSameRegion());
+      answer(controller, DifficultyController.MIN_ANSWERS, 1000, false);
+      assertEquals(2, controller.getChoices());
+      assertTrue(controller.isSameRegion());
+   }
+
+   @Test
+   public void correctButSlowerAnswersHoldTheLevel() {
+      DifficultyController controller = new DifficultyController(4);
+      for (int i = 0; i < 100; i++)
+         assertFalse(controller.onAnswer(DifficultyController.FAST_MILLIS + 1000, true));
+      assertEquals(DifficultyController.levelOf(4, true), controller.getLevel());
+   }
+
+   @Test
+   public void levelStaysOnTheLadder() {
+      DifficultyController controller = new DifficultyController(8);
+      answer(controller, 100, 1000, true);
+      assertEquals(DifficultyController.MAX_LEVEL, controller.getLevel());
+      assertEquals(QuizEngine.MAX_CHOICES, controller.getChoices());
+
+      answer(controller, 100, 1000, false);
+      assertEquals(0, controller.getLevel());
+      assertEquals(2, controller.getChoices());
+      assertFalse(controller.isSameRegion());
+   }
+
+   @Test
+   public void untimedAnswersAreJudgedOnAccuracy() {
+      DifficultyController controller = new DifficultyController(2);
+      answer(controller, DifficultyController.MIN_ANSWERS, ResponseTimes.UNTIMED, true);
+      assertEquals(4, controller.getChoices());
+   }
+
+   @Test
+   public void resetStartsOver() {
+      DifficultyController controller = new DifficultyController(4);
+      answer(controller, DifficultyController.MIN_ANSWERS - 1, 1000, false);
+      controller.reset(8);
+      assertEquals(8, controller.getChoices());
+      assertFalse(controller.onAnswer(1000, false)); // the old answers are gone
+   }
+}
@@ -0,0 +1,166 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DistractorEngineTest {
+   private final Random random = new Random(7);
+   private final int[] choices = new int[8];
+   private final int[] spare = new int[8];
+   private FlagCatalog catalog;
+   private List<Flag> pool;
+   private DistractorEngine engine;
+
+   @Before
+   public void createPool() {
+      List<String> fileNames = new ArrayList<>();
+      addRegion(fileNames, "Asia", 20);
+      addRegion(fileNames, "Europe", 5);
+      addRegion(fileNames, "Game_of_Thrones", 3);
+      addRegion(fileNames, "Oceania", 12);
+      catalog = FlagCatalog.of(fileNames);
+
+      pool = new ArrayList<>();
+      pool.addAll(catalog.getFlags("Asia"));
+      pool.addAll(catalog.getFlags("Game_of_Thrones"));
+      pool.addAll(catalog.getFlags("Oceania"));
+      engine = new DistractorEngine(pool);
+   }
+
+   private static void addRegion(List<String> fileNames, String region, int flags) {
+      for (int i = 0; i < flags; i++)
+         fileNames.add(String.format("%s-Country_%02d", region, i));
+   }
+
+   @Test
+   public void findsEveryFlag() {
+      for (int i = 0; i < pool.size(); i++)
+         assertEquals(i, engine.indexOf(pool.get(i)));
+      assertEquals(-1, engine.indexOf(catalog.find("Europe-Country_01")));
+   }
+
+   @Test
+   public void choicesComeFromAnswersRegion() {
+      for (int trial = 0; trial < 500; trial++) {
+         int answer = random.nextInt(20);
+         assertEquals(8, engine.pickChoices(answer, 8, random, choices));
+         assertDistinctAndIncludes(answer, 8);
+         for (int i = 0; i < 8; i++)
+            assertEquals("Asia", pool.get(choices[i]).getRegion());
+      }
+   }
+
+   @Test
+   public void smallRegionIsToppedUpFromOtherRegions() {
+      int answer = engine.indexOf(catalog.find("Game_of_Thrones-Country_01"));
+      for (int trial = 0; trial < 500; trial++) {
+         assertEquals(8, engine.pickChoices(answer, 8, random, choices));
+         assertDistinctAndIncludes(answer, 8);
+
+         int sameRegion = 0;
+         for (int i = 0; i < 8; i++)
+            if (pool.get(choices[i]).getRegion().equals("Game_of_Thrones"))
+               ++sameRegion;
+         assertEquals(3, sameRegion);
+      }
+   }
+
+   @Test
+   public void crossRegionChoicesAvoidAnswersRegion() {
+      for (int trial = 0; trial < 500; trial++) {
+         int answer = random.nextInt(20);
+         assertEquals(8, engine.pickChoices(answer, 8, false, random, choices));
+         assertDistinctAndIncludes(answer, 8);
+         for (int i = 0; i < 8; i++)
+            if (choices[i] != answer)
+               assertNotEquals("Asia", pool.get(choices[i]).getRegion());
+      }
+   }
+
+   @Test
+   public void fewOtherRegionsAreToppedUpFromAnswersRegion() {
+      FlagCatalog catalog = FlagCatalog.of(Arrays.asList(
+              "Asia-A", "Asia-B", "Asia-C", "Asia-D", "Europe-E"));
+      List<Flag> smallPool = new ArrayList<>();
+      smallPool.addAll(catalog.getFlags("Asia"));
+      smallPool.addAll(catalog.getFlags("Europe"));
+      DistractorEngine small = new DistractorEngine(smallPool);
+      for (int trial = 0; trial < 100; trial++) {
+         assertEquals(4, small.pickChoices(0, 4, false, random, choices));
+         assertDistinctAndIncludes(0, 4);
+         boolean europe = false;
+         for (int i = 0; i < 4; i++)
+            europe |= choices[i] == 4;
+         assertTrue(europe);
+      }
+   }
+
+   @Test
+   public void lookalikesInThePoolAreTheDistractors() {
+      Flag[] lookalikes = {catalog.find("Oceania-Country_03"), catalog.find("Europe-Country_01"),
+              catalog.find("Asia-Country_07"), catalog.find("Game_of_Thrones-Country_02")};
+      int answer = engine.indexOf(catalog.find("Asia-Country_00"));
+      assertEquals(4, engine.pickChoices(answer, lookalikes, 4, random, choices, spare));
+      assertDistinctAndIncludes(answer, 4);
+      for (Flag flag : Arrays.asList(lookalikes[0], lookalikes[2], lookalikes[3])) {
+         boolean found = false;
+         for (int i = 0; i < 4; i++)
+            found |= choices[i] == engine.indexOf(flag);
+         assertTrue(flag + " missing", found);
+      }
+   }
+
+   @Test
+   public void fewLookalikesAreToppedUp() {
+      Flag[] lookalikes = {catalog.find("Asia-Country_07")};
+      for (int trial = 0; trial < 200; trial++) {
+         assertEquals(8, engine.pickChoices(0, lookalikes, 8, random, choices, spare));
+         assertDistinctAndIncludes(0, 8);
+         boolean found = false;
+         for (int i = 0; i < 8; i++)
+            found |= choices[i] == 7;
+         assertTrue(found);
+      }
+   }
+
+   @Test
+   public void answerLandsOnEveryButton() {
+      int[] positions = new int[8];
+      for (int trial = 0; trial < 800; trial++) {
+         engine.pickChoices(5, 8, random, choices);
+         for (int i = 0; i < 8; i++)
+            if (choices[i] == 5)
+               ++positions[i];
+      }
+      for (int count : positions)
+         assertTrue("count " + count, count > 50);
+   }
+
+   @Test
+   public void poolSmallerThanChoicesFillsWhatItCan() {
+      FlagCatalog tiny = FlagCatalog.of(Arrays.asList("Asia-A", "Asia-B", "Europe-C"));
+      List<Flag> tinyPool = new ArrayList<>();
+      tinyPool.addAll(tiny.getFlags("Asia"));
+      tinyPool.addAll(tiny.getFlags("Europe"));
+      DistractorEngine small = new DistractorEngine(tinyPool);
+      assertEquals(3, small.pickChoices(0, 8, random, choices));
+      assertDistinctAndIncludes(0, 3);
+   }
+
+   private void assertDistinctAndIncludes(int answer, int count) {
+      boolean found = false;
+      for (int i = 0; i < count; i++) {
+         found |= choices[i] == answer;
+         for (int j = i + 1; j < count; j++)
+            assertNotEquals(choices[i], choices[j]);
+      }
+      assertTrue(found);
+   }
+}
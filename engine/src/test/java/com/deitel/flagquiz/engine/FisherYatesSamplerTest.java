@@ -0,0 +1,60 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FisherYatesSamplerTest {
+   private final QuizSampler sampler = new FisherYatesSampler();
+   private final Random random = new Random(42);
+
+   @Test
+   public void picksDistinctIndicesInRange() {
+      for (int trial = 0; trial < 1000; trial++) {
+         int[] picked = sampler.sample(50, 10, random);
+         assertEquals(10, picked.length);
+
+         boolean[] seen = new boolean[50];
+         for (int index : picked) {
+            assertTrue(index >= 0 && index < 50);
+            assertFalse("duplicate " + index, seen[index]);
+            seen[index] = true;
+         }
+      }
+   }
+
+   @Test
+   public void wholePoolIsAPermutation() {
+      int[] picked = sampler.sample(10, 10, random);
+      Arrays.sort(picked);
+      assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, picked);
+   }
+
+   @Test
+   public void everyIndexCanBePicked() {
+      int[] counts = new int[20];
+      for (int trial = 0; trial < 2000; trial++)
+         for (int index : sampler.sample(20, 3, random))
+            ++counts[index];
+
+      // 300 expected per index
+      for (int count : counts)
+         assertTrue("count " + count, count > 200 && count < 400);
+   }
+
+   @Test
+   public void handlesShrinkingAndGrowingPools() {
+      sampler.sample(1000, 10, random);
+      for (int index : sampler.sample(12, 12, random))
+         assertTrue(index < 12);
+      assertEquals(5, sampler.sample(5000, 5, random).length);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void poolSmallerThanQuizFails() {
+      sampler.sample(9, 10, random);
+   }
+}
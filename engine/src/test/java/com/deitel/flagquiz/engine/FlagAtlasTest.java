@@ -0,0 +1,88 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class FlagAtlasTest {
+   private static byte[] bytes(String text) {
+      return text.getBytes(StandardCharsets.UTF_8);
+   }
+
+   private static ByteBuffer pack(FlagAtlasWriter writer) throws IOException {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      writer.writeTo(out);
+      return ByteBuffer.wrap(out.toByteArray());
+   }
+
+   private static String text(ByteBuffer buffer) {
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+   }
+
+   @Test
+   public void entriesReadBackInPlace() throws Exception {
+      FlagAtlasWriter writer = new FlagAtlasWriter(96);
+      writer.add("Europe-France", bytes("france image"), bytes("france thumb"));
+      writer.add("Europe-\u00c5land", bytes("aland image"), bytes("aland thumb"));
+      writer.add("Europe-Empty", new byte[0], new byte[0]);
+      FlagAtlas atlas = FlagAtlas.read(pack(writer));
+
+      assertEquals(96, atlas.getThumbnailHeight());
+      assertEquals(Arrays.asList("Europe-France", "Europe-\u00c5land", "Europe-Empty"),
+              atlas.getFileNames());
+      assertEquals("france image", text(atlas.getImage("Europe-France")));
+      assertEquals("aland thumb", text(atlas.getThumbnail("Europe-\u00c5land")));
+      assertEquals(0, atlas.getImage("Europe-Empty").remaining());
+      assertNull(atlas.getImage("Europe-Spain"));
+      assertFalse(atlas.contains("Europe-Spain"));
+   }
+
+   @Test
+   public void slicesDontMoveEachOther() throws Exception {
+      FlagAtlasWriter writer = new FlagAtlasWriter(96);
+      writer.add("Asia-Laos", bytes("laos"), bytes("l"));
+      FlagAtlas atlas = FlagAtlas.read(pack(writer));
+
+      ByteBuffer first = atlas.getImage("Asia-Laos");
+      first.get();
+      assertEquals("laos", text(atlas.getImage("Asia-Laos")));
+      assertTrue(first.isReadOnly());
+   }
+
+   @Test(expected = IOException.class)
+   public void otherFilesAreRejected() throws Exception {
+      FlagAtlas.read(ByteBuffer.wrap(bytes("PNG and more bytes")));
+   }
+
+   @Test(expected = IOException.class)
+   public void truncatedAtlasIsRejected() throws Exception {
+      FlagAtlasWriter writer = new FlagAtlasWriter(96);
+      writer.add("Asia-Laos", bytes("laos"), bytes("l"));
+      ByteBuffer atlas = pack(writer);
+      atlas.limit(atlas.limit() - 1);
+      FlagAtlas.read(atlas.slice());
+   }
+
+   @Test
+   public void streamReadsAndResets() throws Exception {
+      InputStream stream = new ByteBufferInputStream(ByteBuffer.wrap(bytes("abcdef")));
+      assertEquals('a', stream.read());
+      stream.mark(0);
+      byte[] read = new byte[10];
+      assertEquals(5, stream.read(read, 0, 10));
+      assertEquals(-1, stream.read(read, 0, 10));
+      stream.reset();
+      assertEquals(2, stream.skip(2));
+      assertEquals('d', stream.read());
+      assertEquals(2, stream.available());
+   }
+}
@@ -0,0 +1,42 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class FlagCatalogTest {
+   private final FlagCatalog catalog = FlagCatalog.of(Arrays.asList(
+           "Europe-France", "Asia-Laos", "Europe-Andorra", "Asia-Bhutan", "Oceania-Fiji"));
+
+   @Test
+   public void catalogSortsEachRegion() {
+      assertEquals("[Asia-Bhutan, Asia-Laos]", catalog.getFlags("Asia").toString());
+      assertEquals("[Europe-Andorra, Europe-France]", catalog.getFlags("Europe").toString());
+      assertEquals(5, catalog.size());
+   }
+
+   @Test
+   public void idsFollowCatalogOrder() {
+      for (int id = 0; id < catalog.size(); id++)
+         assertEquals(id, catalog.getFlag(id).getId());
+      assertSame(catalog.getFlag(0), catalog.find(catalog.getFlag(0).getFileName()));
+      assertNull(catalog.find("Europe-Atlantis"));
+   }
+
+   @Test
+   public void flagNamesAreParsedOnce() {
+      FlagCatalog named = FlagCatalog.of(Arrays.asList("Asia-Timor-Leste", "Africa-Burkina_Faso",
+              "Africa-Chad", "Africa-Chad"));
+      Flag timor = named.find("Asia-Timor-Leste");
+      assertEquals("Timor-Leste", timor.getCountryName());
+      assertEquals("Asia", timor.getRegion());
+      assertEquals("Asia/Asia-Timor-Leste.png", timor.getAssetPath());
+      assertEquals("Burkina Faso", named.find("Africa-Burkina_Faso").getCountryName());
+
+      // a file name listed twice is one flag, and a region is one String
+      assertEquals(3, named.size());
+      assertSame(named.getFlag(1).getRegion(), named.getFlag(2).getRegion());
+   }
+}
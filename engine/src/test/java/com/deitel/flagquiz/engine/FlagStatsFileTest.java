@@ -0,0 +1,168 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class FlagStatsFileTest {
+   private final FlagCatalog catalog =
+           FlagCatalog.of(Arrays.asList("Asia-Laos", "Europe-France", "Europe-Spain"));
+   private File file;
+
+   @Before
+   public void createFile() throws Exception {
+      file = File.createTempFile("flag_stats", null);
+   }
+
+   @After
+   public void deleteFile() {
+      file.delete();
+   }
+
+   @Test
+   public void historySurvivesReopening() throws Exception {
+      FlagStats stats = new FlagStats(catalog.size());
+      try (FlagStatsFile statsFile = new FlagStatsFile(file)) {
+         statsFile.read(catalog, stats);
+         record(statsFile, stats, catalog.getFlag(2), false, 1000);
+         record(statsFile, stats, catalog.getFlag(0), true, 2000);
+         record(statsFile, stats, catalog.getFlag(0), true, 3000);
+      }
+
+      FlagStats reread = new FlagStats(catalog.size());
+      try (FlagStatsFile statsFile = new FlagStatsFile(file)) {
+         statsFile.read(catalog, reread);
+      }
+      for (int id = 0; id < catalog.size(); id++) {
+         assertEquals(stats.getAttempts(id), reread.getAttempts(id));
+         assertEquals(stats.getMisses(id), reread.getMisses(id));
+         assertEquals(stats.getLastSeen(id), reread.getLastSeen(id));
+         assertEquals(stats.getEase(id), reread.getEase(id), 0f);
+         assertEquals(stats.getIntervalMillis(id), reread.getIntervalMillis(id));
+      }
+   }
+
+   @Test
+   public void answerRewritesOnlyItsRecord() throws Exception {
+      FlagStats stats = new FlagStats(catalog.size());
+      try (FlagStatsFile statsFile = new FlagStatsFile(file)) {
+         statsFile.read(catalog, stats);
+         for (int id = 0; id < catalog.size(); id++)
+            record(statsFile, stats, catalog.getFlag(id), true, 1000);
+      }
+      byte[] before = Files.readAllBytes(file.toPath());
+
+      try (FlagStatsFile statsFile = new FlagStatsFile(file)) {
+         statsFile.read(catalog, stats);
+         record(statsFile, stats, catalog.getFlag(1), false, 2000);
+      }
+      byte[] after = Files.readAllBytes(file.toPath());
+
+      assertEquals(before.length, after.length);
+      int start = FlagStatsFile.HEADER_SIZE + FlagStatsFile.RECORD_SIZE;
+      for (int i = 0; i < before.length; i++)
+         if (i < start || i >= start + FlagStatsFile.RECORD_SIZE)
+            assertEquals("byte " + i, before[i], after[i]);
+   }
+
+   @Test
+   public void historyFollowsItsFlagToANewId() throws Exception {
+      FlagStats stats = new FlagStats(catalog.size());
+      try (FlagStatsFile statsFile = new FlagStatsFile(file)) {
+         statsFile.read(catalog, stats);
+         record(statsFile, stats, catalog.getFlag(1), true, 1000);
+         record(statsFile, stats, catalog.getFlag(0), false, 2000);
+      }
+
+      // Europe-France's id now belongs to Europe-Andorra, Asia-Laos is gone
+      FlagCatalog changed = FlagCatalog.of(
+              Arrays.asList("Europe-Andorra", "Europe-France", "Europe-Spain"));
+      for (int reopened = 0; reopened < 2; reopened++) {
+         FlagStats reread = new FlagStats(changed.size());
+         try (FlagStatsFile statsFile = new FlagStatsFile(file)) {
+            statsFile.read(changed, reread);
+         }
+         assertEquals(0, reread.getAttempts(0));
+         assertEquals(1, reread.getAttempts(1));
+         assertEquals(1000, reread.getLastSeen(1));
+         assertEquals(0, reread.getAttempts(2));
+      }
+      assertEquals(FlagStatsFile.HEADER_SIZE + 3 * FlagStatsFile.RECORD_SIZE, file.length());
+   }
+
+   @Test
+   public void historySurvivesAPackInstall() throws Exception {
+      FlagStats stats = new FlagStats(catalog.size());
+      try (FlagStatsFile statsFile = new FlagStatsFile(file)) {
+         statsFile.read(catalog, stats);
+         for (int id = 0; id < catalog.size(); id++)
+            record(statsFile, stats, catalog.getFlag(id), id != 1, 1000 * (id + 1));
+      }
+
+      // the pack's flags sort in among the bundled ones and move their ids
+      FlagCatalog withPack = catalog.plus(
+              Arrays.asList("Asia-Burma", "Europe-Bavaria", "Europe-Prussia"));
+      FlagStats reread = new FlagStats(withPack.size());
+      try (FlagStatsFile statsFile = new FlagStatsFile(file)) {
+         statsFile.read(withPack, reread);
+      }
+      for (int id = 0; id < catalog.size(); id++) {
+         int newId = withPack.find(catalog.getFlag(id).getFileName()).getId();
+         assertNotEquals(id, newId);
+         assertEquals(stats.getAttempts(id), reread.getAttempts(newId));
+         assertEquals(stats.getMisses(id), reread.getMisses(newId));
+         assertEquals(stats.getLastSeen(id), reread.getLastSeen(newId));
+         assertEquals(stats.getEase(id), reread.getEase(newId), 0f);
+      }
+      assertEquals(0, reread.getAttempts(withPack.find("Europe-Prussia").getId()));
+   }
+
+   @Test
+   public void filesWithoutTheChecksumAreMovedOver() throws Exception {
+      // "FST1": no checksum, records straight after the record size
+      Flag spain = catalog.find("Europe-Spain");
+      FlagStats stats = new FlagStats(catalog.size());
+      stats.record(spain.getId(), true, 1000);
+      try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+         raw.writeInt(0x46535431);
+         raw.writeInt(FlagStatsFile.RECORD_SIZE);
+         raw.seek(8 + spain.getId() * FlagStatsFile.RECORD_SIZE);
+         raw.write(FlagStatsFile.encode(spain, stats));
+      }
+
+      FlagStats reread = new FlagStats(catalog.size());
+      try (FlagStatsFile statsFile = new FlagStatsFile(file)) {
+         statsFile.read(catalog, reread);
+      }
+      assertEquals(1, reread.getAttempts(spain.getId()));
+      try (RandomAccessFile raw = new RandomAccessFile(file, "r")) {
+         assertEquals(FlagStatsFile.MAGIC, raw.readInt());
+      }
+   }
+
+   @Test
+   public void otherFormatStartsOver() throws Exception {
+      try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+         raw.writeBytes("not flag stats at all");
+      }
+      FlagStats stats = new FlagStats(catalog.size());
+      try (FlagStatsFile statsFile = new FlagStatsFile(file)) {
+         statsFile.read(catalog, stats);
+      }
+      assertEquals(FlagStatsFile.HEADER_SIZE, file.length());
+      assertEquals(0, stats.getAttempts(0));
+   }
+
+   private static void record(FlagStatsFile statsFile, FlagStats stats, Flag flag,
+                              boolean correct, long now) throws Exception {
+      stats.record(flag.getId(), correct, now);
+      statsFile.write(flag.getId(), FlagStatsFile.encode(flag, stats));
+   }
+}
@@ -0,0 +1,86 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+   @After
+   public void resetMetrics() {
+      QuizMetrics.setEnabled(false);
+      QuizMetrics.reset();
+   }
+
+   @Test
+   public void bucketsArePowersOfTwoMicroseconds() {
+      assertEquals(0, LatencyHistogram.bucketFor(0));
+      assertEquals(0, LatencyHistogram.bucketFor(999));
+      assertEquals(1, LatencyHistogram.bucketFor(1000));
+      assertEquals(1, LatencyHistogram.bucketFor(1999));
+      assertEquals(2, LatencyHistogram.bucketFor(2000));
+      assertEquals(2, LatencyHistogram.bucketFor(3999));
+      assertEquals(3, LatencyHistogram.bucketFor(4000));
+      assertEquals(11, LatencyHistogram.bucketFor(1024000));
+      assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucketFor(Long.MAX_VALUE));
+   }
+
+   @Test
+   public void everyDurationIsBelowItsBucketLimit() {
+      for (long micros = 0; micros < 100000; micros += 7) {
+         int bucket = LatencyHistogram.bucketFor(micros * 1000);
+         assertTrue(micros < LatencyHistogram.bucketLimitMicros(bucket));
+         if (bucket > 0)
+            assertTrue(micros >= LatencyHistogram.bucketLimitMicros(bucket - 1));
+      }
+   }
+
+   @Test
+   public void summarizesRecordedDurations() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      for (int i = 0; i < 90; i++)
+         histogram.record(3000); // 3 us, bucket [2, 4)
+      for (int i = 0; i < 10; i++)
+         histogram.record(100000); // 100 us, bucket [64, 128)
+
+      assertEquals(100, histogram.getCount());
+      assertEquals(90, histogram.getBucketCount(2));
+      assertEquals(10, histogram.getBucketCount(7));
+      assertEquals(12, histogram.getMeanMicros()); // (270 + 1000) / 100
+      assertEquals(100, histogram.getMaxMicros());
+      assertEquals(4, histogram.getPercentileMicros(0.5));
+      assertEquals(4, histogram.getPercentileMicros(0.9));
+      assertEquals(128, histogram.getPercentileMicros(0.91));
+      assertEquals(128, histogram.getPercentileMicros(1.0));
+   }
+
+   @Test
+   public void emptyHistogramReportsZero() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      assertEquals(0, histogram.getMeanMicros());
+      assertEquals(0, histogram.getPercentileMicros(0.99));
+   }
+
+   @Test
+   public void disabledMetricsRecordNothing() {
+      QuizMetrics.setEnabled(false);
+      long start = QuizMetrics.start();
+      assertEquals(0, start);
+      QuizMetrics.stop(QuizMetrics.Timer.LOAD_NEXT_FLAG, start);
+      QuizMetrics.increment(QuizMetrics.Counter.QUESTIONS);
+
+      assertEquals(0, QuizMetrics.get(QuizMetrics.Timer.LOAD_NEXT_FLAG).getCount());
+      assertEquals(0, QuizMetrics.get(QuizMetrics.Counter.QUESTIONS));
+   }
+
+   @Test
+   public void enabledMetricsRecordTimersAndCounters() {
+      QuizMetrics.setEnabled(true);
+      QuizMetrics.stop(QuizMetrics.Timer.INIT_FLAGS, QuizMetrics.start());
+      QuizMetrics.increment(QuizMetrics.Counter.WRONG_GUESSES);
+
+      assertEquals(1, QuizMetrics.get(QuizMetrics.Timer.INIT_FLAGS).getCount());
+      assertEquals(1, QuizMetrics.get(QuizMetrics.Counter.WRONG_GUESSES));
+      assertTrue(QuizMetrics.dump().contains("INIT_FLAGS: n=1"));
+   }
+}
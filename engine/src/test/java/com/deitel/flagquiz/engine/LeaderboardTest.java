@@ -0,0 +1,119 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class LeaderboardTest {
+   private static final int RESULTS = 50000;
+   private static final int PLAYERS = 20000;
+   private static final int TOP = 10;
+
+   // results from PLAYERS players, several each, in random order
+   private static List<QuizResult> syntheticResults() {
+      SplitMix64 random = new SplitMix64(21);
+      List<QuizResult> results = new ArrayList<>(RESULTS);
+      for (int i = 0; i < RESULTS; i++) {
+         int correct = 1 + random.nextInt(10);
+         long millis = random.nextInt(8) == 0 ? QuizResult.UNTIMED : 20000 + random.nextInt(200000);
+         results.add(new QuizResult("player" + random.nextInt(PLAYERS), correct,
+                 correct + random.nextInt(15), millis, 1000L * i));
+      }
+      return results;
+   }
+
+   // the top count players by each one's best result, the slow way
+   private static List<QuizResult> bestOfEachPlayer(List<QuizResult> results,
+                                                     Comparator<QuizResult> order,
+                                                     boolean timedOnly, int count) {
+      Map<String, QuizResult> best = new HashMap<>();
+      for (QuizResult result : results) {
+         if (timedOnly && !result.isTimed())
+            continue;
+         QuizResult old = best.get(result.getPlayer());
+         if (old == null || order.compare(result, old) < 0)
+            best.put(result.getPlayer(), result);
+      }
+      List<QuizResult> sorted = new ArrayList<>(best.values());
+      Collections.sort(sorted, order);
+      return sorted.subList(0, Math.min(count, sorted.size()));
+   }
+
+   @Test
+   public void boardsMatchEveryPlayersBest() {
+      List<QuizResult> results = syntheticResults();
+      Leaderboard byScore = Leaderboard.byScore(TOP);
+      Leaderboard bySpeed = Leaderboard.bySpeed(TOP);
+      for (QuizResult result : results) {
+         byScore.offer(result);
+         bySpeed.offer(result);
+      }
+
+      assertEquals(bestOfEachPlayer(results, QuizResult.BY_SCORE, false, TOP), byScore.top(TOP));
+      assertEquals(bestOfEachPlayer(results, QuizResult.BY_SPEED, true, TOP), bySpeed.top(TOP));
+      assertEquals(TOP, byScore.size());
+   }
+
+   @Test
+   public void topQueriesStayFastWithManyPlayers() {
+      Leaderboard byScore = Leaderboard.byScore(100);
+      long start = System.nanoTime();
+      for (QuizResult result : syntheticResults())
+         byScore.offer(result);
+      long loadNanos = System.nanoTime() - start;
+
+      int queries = 10000;
+      int seen = 0;
+      start = System.nanoTime();
+      for (int i = 0; i < queries; i++)
+         seen += byScore.top(TOP).size();
+      long queryNanos = (System.nanoTime() - start) / queries;
+
+      assertEquals(queries * TOP, seen);
+      // generous bounds: a top-10 query reads ten entries, whatever the
+      // number of players; a full scan per query would take milliseconds
+      assertTrue("loading took " + loadNanos / 1000000 + "ms", loadNanos < 5000000000L);
+      assertTrue("a query took " + queryNanos + "ns", queryNanos < 200000);
+   }
+
+   @Test
+   public void onlyAPlayersBestIsKept() {
+      Leaderboard board = Leaderboard.byScore(3);
+      assertTrue(board.offer(new QuizResult("ann", 8, 10, 1000, 1)));
+      assertFalse(board.offer(new QuizResult("ann", 6, 10, 1000, 2)));
+      assertTrue(board.offer(new QuizResult("ann", 10, 10, 1000, 3)));
+
+      assertEquals(1, board.size());
+      assertEquals(3, board.get("ann").getFinishedAt());
+   }
+
+   @Test
+   public void lastPlayerMakesWayForABetterOne() {
+      Leaderboard board = Leaderboard.byScore(2);
+      board.offer(new QuizResult("ann", 10, 10, 1000, 1));
+      board.offer(new QuizResult("bob", 5, 10, 1000, 2));
+      assertFalse(board.offer(new QuizResult("cat", 4, 10, 1000, 3)));
+      assertTrue(board.offer(new QuizResult("cat", 9, 10, 1000, 4)));
+
+      assertNull(board.get("bob"));
+      assertEquals("cat", board.top(2).get(1).getPlayer());
+   }
+
+   @Test
+   public void speedBoardSkipsUntimedQuizzes() {
+      Leaderboard board = Leaderboard.bySpeed(5);
+      assertFalse(board.offer(new QuizResult("ann", 10, 10, QuizResult.UNTIMED, 1)));
+      assertTrue(board.offer(new QuizResult("bob", 5, 10, 90000, 2)));
+      assertTrue(board.offer(new QuizResult("cat", 5, 10, 30000, 3)));
+
+      assertEquals("cat", board.top(5).get(0).getPlayer());
+      assertEquals(2, board.size());
+   }
+}
@@ -0,0 +1,89 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class QuizBatchGeneratorTest {
+   private static final int MASK = Region.AFRICA.bit() | Region.EUROPE.bit() | Region.OCEANIA.bit();
+
+   private FlagCatalog catalog;
+
+   @Before
+   public void createCatalog() {
+      List<String> fileNames = new ArrayList<>();
+      for (Region region : Region.values())
+         for (int i = 0; i < 12; i++)
+            fileNames.add(String.format("%s-Country_%02d", region.getFolder(), i));
+      catalog = FlagCatalog.of(fileNames);
+   }
+
+   private List<GeneratedQuiz> generate(long seed, int quizzes, int threads) throws Exception {
+      final List<GeneratedQuiz> generated = new ArrayList<>();
+      new QuizBatchGenerator(catalog, MASK, 6, seed).generate(quizzes, 10, threads,
+              new QuizBatchGenerator.Sink() {
+                 @Override
+                 public void accept(GeneratedQuiz quiz) {
+                    generated.add(quiz);
+                 }
+              });
+      return generated;
+   }
+
+   @Test
+   public void sameSeedGivesSameQuizzesOnAnyThreads() throws Exception {
+      List<GeneratedQuiz> oneThread = generate(7, 500, 1);
+      assertEquals(oneThread, generate(7, 500, 4));
+      assertEquals(oneThread, generate(7, 500, 13));
+   }
+
+   @Test
+   public void quizzesArriveInOrder() throws Exception {
+      List<GeneratedQuiz> quizzes = generate(7, 1000, 8);
+      assertEquals(1000, quizzes.size());
+      for (int i = 0; i < quizzes.size(); i++)
+         assertEquals(i, quizzes.get(i).getIndex());
+   }
+
+   @Test
+   public void otherSeedsGiveOtherQuizzes() throws Exception {
+      assertNotEquals(generate(7, 20, 2), generate(8, 20, 2));
+   }
+
+   @Test
+   public void quizIsIndependentOfTheBatch() throws Exception {
+      QuizBatchGenerator generator = new QuizBatchGenerator(catalog, MASK, 6, 7);
+      List<GeneratedQuiz> quizzes = generate(7, 100, 3);
+      assertEquals(quizzes.get(42), generator.generate(42, 10));
+   }
+
+   @Test
+   public void everyQuestionIsComplete() throws Exception {
+      for (GeneratedQuiz quiz : generate(3, 200, 4)) {
+         assertEquals(10, quiz.getQuestionCount());
+         Set<Flag> answers = new HashSet<>();
+         for (int question = 0; question < quiz.getQuestionCount(); question++) {
+            Flag answer = quiz.getAnswer(question);
+            assertTrue(answers.add(answer));
+            List<Flag> choices = quiz.getChoices(question);
+            assertEquals(6, choices.size());
+            assertEquals(6, new HashSet<>(choices).size());
+            assertTrue(choices.contains(answer));
+            for (Flag choice : choices)
+               assertTrue(Region.forFolder(choice.getRegion()).isIn(MASK));
+         }
+      }
+   }
+
+   @Test
+   public void smallPoolGivesShorterQuizzes() {
+      GeneratedQuiz quiz = new QuizBatchGenerator(catalog, Region.ASIA.bit(), 8, 1).generate(0, 20);
+      assertEquals(12, quiz.getQuestionCount());
+   }
+}
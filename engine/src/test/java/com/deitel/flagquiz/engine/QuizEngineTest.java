@@ -0,0 +1,814 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class QuizEngineTest {
+   private static final int QUESTIONS = 10;
+   private static final QuizSettings SETTINGS =
+           new QuizSettings(6, 3, Region.ASIA.bit() | Region.EUROPE.bit());
+
+   // runs engine tasks only when the test says so, like a background thread
+   private final Queue<Runnable> engineTasks = new ArrayDeque<>();
+   private final Executor engineExecutor = new Executor() {
+      @Override
+      public void execute(Runnable task) {
+         engineTasks.add(task);
+      }
+   };
+   private final Executor direct = new Executor() {
+      @Override
+      public void execute(Runnable task) {
+         task.run();
+      }
+   };
+
+   private final List<QuestionView> views = new ArrayList<>();
+   private final List<QuestionView> preloaded = new ArrayList<>();
+   private final List<Exception> errors = new ArrayList<>();
+   private final MemoryStorage storage = new MemoryStorage();
+   private QuizEngine engine;
+
+   private static class MemoryStorage implements QuizEngine.Storage {
+      FlagCatalog catalog;
+      FlagStats stats;
+      QuizState state;
+      int catalogLoads;
+      SimilarityIndex similarity;
+      int similarityLoads;
+
+      @Override
+      public FlagCatalog loadCatalog() throws IOException {
+         ++catalogLoads;
+         return catalog;
+      }
+
+      @Override
+      public FlagStats loadStats(FlagCatalog catalog) {
+         stats = new FlagStats(catalog.size());
+         return stats;
+      }
+
+      @Override
+      public void saveStats(Flag flag, FlagStats stats) {
+      }
+
+      @Override
+      public SimilarityIndex loadSimilarityIndex(FlagCatalog catalog) {
+         ++similarityLoads;
+         return similarity;
+      }
+
+      @Override
+      public QuizState loadState() {
+         return state == null ? null : QuizStateCodec.decode(QuizStateCodec.encode(state));
+      }
+
+      @Override
+      public void saveState(QuizState state) {
+         this.state = state;
+      }
+   }
+
+   @Before
+   public void createEngine() {
+      List<String> fileNames = new ArrayList<>();
+      for (String region : Arrays.asList("Africa", "Asia", "Europe"))
+         for (int i = 0; i < 15; i++)
+            fileNames.add(String.format("%s-Country_%02d", region, i));
+      storage.catalog = FlagCatalog.of(fileNames);
+      engine = createEngine(SplitMix64.source(5));
+      engine.setSettings(SETTINGS);
+   }
+
+   private QuizEngine createEngine(RandomSource randomSource) {
+      return createEngine(storage, randomSource);
+   }
+
+   private QuizEngine createEngine(QuizEngine.Storage storage, RandomSource randomSource) {
+      QuizEngine.Preloader preloader = new QuizEngine.Preloader() {
+         @Override
+         public void preload(QuestionView view, Flag next) {
+            preloaded.add(view);
+         }
+      };
+      QuizEngine.Listener listener = new QuizEngine.Listener() {
+         @Override
+         public void onQuestionView(QuestionView view) {
+            views.add(view);
+         }
+
+         @Override
+         public void onError(Exception exception) {
+            errors.add(exception);
+         }
+      };
+      return new QuizEngine(storage, preloader, engineExecutor, direct, listener, randomSource,
+              QUESTIONS);
+   }
+
+   private void runEngine() {
+      while (!engineTasks.isEmpty())
+         engineTasks.remove().run();
+      assertEquals(new ArrayList<Exception>(), errors);
+   }
+
+   private QuestionView last() {
+      return views.get(views.size() - 1);
+   }
+
+   private int answerChoice(QuestionView view) {
+      for (int i = 0; i < view.getChoiceCount(); i++)
+         if (view.getChoice(i) == view.getAnswer())
+            return i;
+      throw new AssertionError("answer missing from " + view);
+   }
+
+   private int wrongChoice(QuestionView view) {
+      for (int i = 0; i < view.getChoiceCount(); i++)
+         if (view.getChoice(i) != view.getAnswer() && !view.isChoiceDisabled(i))
+            return i;
+      throw new AssertionError("no wrong choice left in " + view);
+   }
+
+   private int wrongId(QuestionView view) {
+      return view.getChoice(wrongChoice(view)).getId();
+   }
+
+   @Test
+   public void workWaitsForTheEngineThread() {
+      engine.reset();
+      engine.guess(0);
+      assertTrue(views.isEmpty());
+      assertEquals(0, storage.catalogLoads);
+
+      runEngine();
+      assertEquals(1, storage.catalogLoads);
+      assertFalse(views.isEmpty());
+   }
+
+   @Test
+   public void newQuestionIsPreloadedThenPublished() {
+      engine.reset();
+      runEngine();
+
+      QuestionView view = last();
+      assertSame(view, preloaded.get(0));
+      assertEquals(QuestionView.Event.QUESTION, view.getEvent());
+      assertEquals(0, view.getQuestionNumber());
+      assertEquals(6, view.getChoiceCount());
+      answerChoice(view);
+      assertTrue(Arrays.asList("Asia", "Europe").contains(view.getAnswer().getRegion()));
+   }
+
+   @Test
+   public void correctGuessEndsTheQuestion() {
+      engine.reset();
+      runEngine();
+      QuestionView question = last();
+
+      engine.guess(question.getAnswer().getId());
+      engine.guess(wrongId(question)); // too late, ignored
+      runEngine();
+
+      assertEquals(2, views.size());
+      assertEquals(QuestionView.Event.CORRECT, last().getEvent());
+      assertEquals(0, last().getQuestionNumber());
+      assertEquals(1, last().getCorrectAnswers());
+      assertEquals(1, storage.stats.getAttempts(question.getAnswer().getId()));
+      assertEquals(0, storage.stats.getMisses(question.getAnswer().getId()));
+   }
+
+   @Test
+   public void wrongGuessesRunOut() {
+      engine.reset();
+      runEngine();
+
+      int first = wrongChoice(last());
+      engine.guess(last().getChoice(first).getId());
+      engine.guess(last().getChoice(first).getId()); // already disabled, ignored
+      runEngine();
+      assertEquals(QuestionView.Event.WRONG_GUESS, last().getEvent());
+      assertTrue(last().isChoiceDisabled(first));
+      assertEquals(1, storage.state.getGuessForQuestion());
+
+      engine.guess(wrongId(last()));
+      runEngine();
+      engine.guess(wrongId(last()));
+      runEngine();
+      assertEquals(QuestionView.Event.OUT_OF_GUESSES, last().getEvent());
+      assertEquals(3, last().getTotalGuesses());
+      assertEquals(1, storage.stats.getMisses(last().getAnswer().getId()));
+   }
+
+   @Test
+   public void flagsOutsideTheChoicesAreIgnored() {
+      engine.reset();
+      runEngine();
+      QuestionView question = last();
+
+      engine.guess(-1);
+      engine.guess(storage.catalog.getFlags("Africa").get(0).getId()); // not in the pool
+      runEngine();
+      assertSame(question, last());
+   }
+
+   @Test
+   public void sameNamedChoicesAreToldApart() {
+      // two choices both shown as "Georgia"
+      storage.catalog = FlagCatalog.of(Arrays.asList("Asia-Georgia", "Europe-Georgia"));
+      engine.setSettings(new QuizSettings(2, 2, Region.ASIA.bit() | Region.EUROPE.bit()));
+      engine.reset();
+      runEngine();
+      QuestionView question = last();
+      assertEquals(question.getChoice(0).getCountryName(), question.getChoice(1).getCountryName());
+
+      engine.guess(wrongId(question));
+      runEngine();
+      assertEquals(QuestionView.Event.WRONG_GUESS, last().getEvent());
+      engine.guess(question.getAnswer().getId());
+      runEngine();
+      assertEquals(QuestionView.Event.CORRECT, last().getEvent());
+   }
+
+   @Test
+   public void quizEndsAfterEveryQuestion() {
+      engine.reset();
+      runEngine();
+      for (int question = 0; question < QUESTIONS; question++) {
+         assertEquals(question, last().getQuestionNumber());
+         engine.guess(last().getAnswer().getId());
+         engine.next();
+         runEngine();
+      }
+      assertEquals(QuestionView.Event.QUIZ_OVER, last().getEvent());
+      assertEquals(QUESTIONS, last().getCorrectAnswers());
+      assertEquals(QUESTIONS, last().getTotalGuesses());
+
+      List<Flag> asked = new ArrayList<>();
+      for (QuestionView view : views)
+         if (view.getEvent() == QuestionView.Event.QUESTION)
+            asked.add(view.getAnswer());
+      assertEquals(QUESTIONS, new HashSet<>(asked).size());
+   }
+
+   @Test
+   public void questionsDoNotRebuildTheQuiz() {
+      QuizMetrics.setEnabled(true);
+      QuizMetrics.reset();
+      try {
+         engine.reset();
+         runEngine();
+         for (int question = 0; question < QUESTIONS; question++) {
+            engine.guess(wrongId(last()));
+            engine.guess(last().getAnswer().getId());
+            engine.next();
+            runEngine();
+         }
+         assertEquals(QuestionView.Event.QUIZ_OVER, last().getEvent());
+         assertEquals(QUESTIONS, QuizMetrics.get(QuizMetrics.Counter.QUESTIONS));
+         assertEquals(1, QuizMetrics.get(QuizMetrics.Counter.INIT_FLAGS));
+      } finally {
+         QuizMetrics.setEnabled(false);
+         QuizMetrics.reset();
+      }
+   }
+
+   @Test
+   public void nextWaitsForAnAnswer() {
+      engine.reset();
+      engine.next();
+      runEngine();
+      assertEquals(1, views.size());
+   }
+
+   @Test
+   public void settingsApplyFromTheNextQuestion() {
+      engine.reset();
+      runEngine();
+      engine.setSettings(new QuizSettings(2, 1, SETTINGS.getRegionMask()));
+      assertEquals(6, last().getChoiceCount());
+
+      engine.guess(last().getAnswer().getId());
+      engine.next();
+      runEngine();
+      assertEquals(2, last().getChoiceCount());
+
+      // a single wrong guess is now the last one
+      engine.guess(wrongId(last()));
+      runEngine();
+      assertEquals(QuestionView.Event.OUT_OF_GUESSES, last().getEvent());
+   }
+
+   // answers every question at the first try; returns each question's
+   // answer and choices by file name
+   private List<String> playQuiz(QuizEngine engine) {
+      views.clear();
+      engine.reset();
+      runEngine();
+      List<String> played = new ArrayList<>();
+      while (last().getEvent() != QuestionView.Event.QUIZ_OVER)
+         playQuestion(engine, played);
+      return played;
+   }
+
+   // answers the question on screen and moves on; adds the question's
+   // answer and choices to played
+   private void playQuestion(QuizEngine engine, List<String> played) {
+      QuestionView view = last();
+      played.add(describe(view));
+      engine.guess(view.getAnswer().getId());
+      engine.next();
+      runEngine();
+   }
+
+   private static String describe(QuestionView view) {
+      StringBuilder question = new StringBuilder(view.getAnswer().getFileName());
+      for (int i = 0; i < view.getChoiceCount(); i++)
+         question.append(' ').append(view.getChoice(i).getFileName());
+      return question.toString();
+   }
+
+   @Test
+   public void adaptiveQuizGetsHarderWithFastCorrectAnswers() {
+      engine.setSettings(new QuizSettings(4, 3, SETTINGS.getRegionMask(), true));
+      engine.reset();
+      runEngine();
+      assertEquals(4, last().getChoiceCount());
+      assertEquals(ResponseTimes.UNTIMED, last().getMeanResponseMillis());
+
+      for (int question = 0; question < DifficultyController.MIN_ANSWERS; question++) {
+         engine.guess(last().getAnswer().getId(), 1000 + 500 * question);
+         engine.next();
+         runEngine();
+      }
+
+      // one rung up: more choices, but from other regions than the answer's
+      QuestionView view = last();
+      assertEquals(6, view.getChoiceCount());
+      for (int i = 0; i < view.getChoiceCount(); i++)
+         if (view.getChoice(i) != view.getAnswer())
+            assertNotEquals(view.getAnswer().getRegion(), view.getChoice(i).getRegion());
+      assertEquals(1750, view.getMeanResponseMillis());
+   }
+
+   @Test
+   public void fixedSettingsIgnoreResponseTimes() {
+      engine.reset();
+      runEngine();
+      for (int question = 0; question < QUESTIONS - 1; question++) {
+         engine.guess(last().getAnswer().getId(), 500);
+         engine.next();
+         runEngine();
+         assertEquals(SETTINGS.getChoices(), last().getChoiceCount());
+      }
+   }
+
+   @Test
+   public void hardModeAsksWithLookalikes() throws IOException {
+      // flag id's lookalikes are the six flags after it, some of them
+      // outside the quiz's regions
+      FlagCatalog catalog = storage.catalog;
+      SimilarityIndexWriter writer = new SimilarityIndexWriter(6);
+      for (int id = 0; id < catalog.size(); id++) {
+         int[] neighbours = new int[6];
+         for (int i = 0; i < neighbours.length; i++)
+            neighbours[i] = (id + 1 + i) % catalog.size();
+         writer.add(catalog.getFlag(id).getFileName(), neighbours);
+      }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      writer.writeTo(bytes);
+      storage.similarity = SimilarityIndex.read(ByteBuffer.wrap(bytes.toByteArray()), catalog);
+
+      engine.reset();
+      runEngine();
+      assertEquals(0, storage.similarityLoads); // not without hard mode
+
+      engine.setSettings(new QuizSettings(4, 3, SETTINGS.getRegionMask(), false, true));
+      for (int question = 0; question < QUESTIONS - 1; question++) {
+         engine.guess(last().getAnswer().getId());
+         engine.next();
+         runEngine();
+
+         QuestionView view = last();
+         Set<Flag> expected = new HashSet<>();
+         expected.add(view.getAnswer());
+         for (Flag flag : storage.similarity.getLookalikes(view.getAnswer()))
+            if (Region.forFolder(flag.getRegion()).isIn(SETTINGS.getRegionMask()) &&
+                    expected.size() < 4)
+               expected.add(flag);
+         if (expected.size() < 4)
+            continue; // topped up at random
+         Set<Flag> shown = new HashSet<>();
+         for (int i = 0; i < view.getChoiceCount(); i++)
+            shown.add(view.getChoice(i));
+         assertEquals(expected, shown);
+      }
+      assertEquals(1, storage.similarityLoads);
+   }
+
+   @Test
+   public void sameSeedReplaysTheQuiz() {
+      List<String> played = playQuiz(engine);
+      assertEquals(QUESTIONS, played.size());
+
+      QuizEngine replay = createEngine(SplitMix64.source(5));
+      replay.setSettings(SETTINGS);
+      assertEquals(played, playQuiz(replay));
+
+      QuizEngine other = createEngine(SplitMix64.source(6));
+      other.setSettings(SETTINGS);
+      assertNotEquals(played, playQuiz(other));
+   }
+
+   @Test
+   public void savedSeedRebuildsTheChoices() {
+      engine.reset();
+      runEngine();
+      engine.guess(last().getAnswer().getId());
+      engine.next();
+      runEngine();
+
+      // the saved state's seed and question number are enough to pick the
+      // same choices again
+      QuizState state = storage.state;
+      DistractorEngine distractors =
+              new RegionPools(storage.catalog).getDistractors(SETTINGS.getRegionMask());
+      int[] choices = new int[QuizEngine.MAX_CHOICES];
+      int count = distractors.pickChoices(
+              distractors.indexOf(storage.catalog.find(state.getAnswer())), SETTINGS.getChoices(),
+              new SplitMix64(QuizEngine.questionSeed(state.getSeed(), state.getQuestionNumber())),
+              choices);
+      assertEquals(state.getChoiceCount(), count);
+      List<Flag> pool = new RegionPools(storage.catalog).getPool(SETTINGS.getRegionMask());
+      for (int i = 0; i < count; i++)
+         assertEquals(state.getChoice(i), pool.get(choices[i]).getFileName());
+   }
+
+   @Test
+   public void savedQuestionIsRestored() {
+      engine.reset();
+      runEngine();
+      engine.guess(wrongId(last()));
+      runEngine();
+      QuestionView saved = last();
+
+      views.clear();
+      QuizEngine restarted = createEngine(SplitMix64.source(99));
+      restarted.setSettings(SETTINGS);
+      restarted.restore();
+      runEngine();
+
+      QuestionView restored = last();
+      assertEquals(QuestionView.Event.QUESTION, restored.getEvent());
+      assertSame(saved.getAnswer(), restored.getAnswer());
+      for (int i = 0; i < saved.getChoiceCount(); i++) {
+         assertSame(saved.getChoice(i), restored.getChoice(i));
+         assertEquals(saved.isChoiceDisabled(i), restored.isChoiceDisabled(i));
+      }
+      assertEquals(1, restored.getTotalGuesses());
+   }
+
+   // plays killedAt questions and guesses the next one wrong on an engine
+   // over storage, whose state is then all a restarted engine gets
+   private List<String> playUntilKilled(MemoryStorage storage, int killedAt) {
+      QuizEngine killed = createEngine(storage, SplitMix64.source(5));
+      killed.setSettings(SETTINGS);
+      views.clear();
+      killed.reset();
+      runEngine();
+      List<String> played = new ArrayList<>();
+      for (int question = 0; question < killedAt; question++)
+         playQuestion(killed, played);
+      killed.guess(wrongId(last()));
+      runEngine();
+      return played;
+   }
+
+   // storage as a new process finds it: the saved state, and the flags'
+   // history with the answers given before the kill
+   private static MemoryStorage relaunch(final MemoryStorage before, FlagCatalog catalog) {
+      MemoryStorage after = new MemoryStorage() {
+         @Override
+         public FlagStats loadStats(FlagCatalog catalog) {
+            stats = catalog == before.catalog ? before.stats : new FlagStats(catalog.size());
+            return stats;
+         }
+      };
+      after.catalog = catalog;
+      after.state = before.state;
+      return after;
+   }
+
+   @Test
+   public void quizKilledAtAnyQuestionGoesOnAsSaved() {
+      List<String> uninterrupted = playQuiz(engine);
+      QuizMetrics.setEnabled(true);
+      try {
+         for (int killedAt = 0; killedAt < QUESTIONS; killedAt++) {
+            MemoryStorage before = new MemoryStorage();
+            before.catalog = storage.catalog;
+            List<String> played = playUntilKilled(before, killedAt);
+
+            MemoryStorage after = relaunch(before, storage.catalog);
+            QuizEngine restarted = createEngine(after, SplitMix64.source(99));
+            restarted.setSettings(SETTINGS);
+            QuizMetrics.reset();
+            restarted.restore();
+            runEngine();
+
+            // the rest of the quiz is read back, not picked again
+            assertEquals(0, QuizMetrics.get(QuizMetrics.Counter.INIT_FLAGS));
+            assertEquals(killedAt, last().getQuestionNumber());
+            assertEquals(killedAt + 1, last().getTotalGuesses());
+            while (last().getEvent() != QuestionView.Event.QUIZ_OVER)
+               playQuestion(restarted, played);
+            assertEquals("killed at question " + killedAt, uninterrupted, played);
+         }
+      } finally {
+         QuizMetrics.setEnabled(false);
+         QuizMetrics.reset();
+      }
+   }
+
+   // plays killedAt questions and answers the next one, correctly or out
+   // of guesses, without moving on; the answered question is in played
+   private List<String> playUntilAnswered(MemoryStorage storage, int killedAt, boolean correct) {
+      QuizEngine killed = createEngine(storage, SplitMix64.source(5));
+      killed.setSettings(SETTINGS);
+      views.clear();
+      killed.reset();
+      runEngine();
+      List<String> played = new ArrayList<>();
+      for (int question = 0; question < killedAt; question++)
+         playQuestion(killed, played);
+      if (correct) {
+         played.add(describe(last()));
+         killed.guess(last().getAnswer().getId());
+         runEngine();
+         return played;
+      }
+      while (last().getEvent() != QuestionView.Event.OUT_OF_GUESSES) {
+         killed.guess(wrongId(last()));
+         runEngine();
+      }
+      return played;
+   }
+
+   private static int attempts(FlagStats stats) {
+      int attempts = 0;
+      for (int id = 0; id < stats.size(); id++)
+         attempts += stats.getAttempts(id);
+      return attempts;
+   }
+
+   @Test
+   public void quizKilledRightAfterAnAnswerGoesOnFromIt() {
+      List<String> uninterrupted = playQuiz(engine);
+      for (int killedAt = 0; killedAt < QUESTIONS; killedAt++) {
+         MemoryStorage before = new MemoryStorage();
+         before.catalog = storage.catalog;
+         List<String> played = playUntilAnswered(before, killedAt, true);
+         assertEquals(killedAt + 1, attempts(before.stats));
+
+         QuizEngine restarted = createEngine(relaunch(before, storage.catalog),
+                 SplitMix64.source(99));
+         restarted.setSettings(SETTINGS);
+         views.clear();
+         restarted.restore();
+         runEngine();
+
+         // the answer stands: its outcome is shown, and next() goes on
+         assertEquals(QuestionView.Event.CORRECT, last().getEvent());
+         assertEquals(killedAt, last().getQuestionNumber());
+         assertEquals(killedAt + 1, last().getCorrectAnswers());
+         restarted.next();
+         runEngine();
+         while (last().getEvent() != QuestionView.Event.QUIZ_OVER)
+            playQuestion(restarted, played);
+         assertEquals("killed at question " + killedAt, uninterrupted, played);
+         assertEquals(QUESTIONS, attempts(before.stats));
+         assertEquals(QUESTIONS, last().getCorrectAnswers());
+      }
+   }
+
+   @Test
+   public void quizKilledRightAfterTheLastGuessShowsTheAnswer() {
+      MemoryStorage before = new MemoryStorage();
+      before.catalog = storage.catalog;
+      playUntilAnswered(before, 4, false);
+      QuestionView answered = last();
+      assertEquals(5, attempts(before.stats));
+
+      QuizEngine restarted = createEngine(relaunch(before, storage.catalog),
+              SplitMix64.source(99));
+      restarted.setSettings(SETTINGS);
+      restarted.restore();
+      runEngine();
+
+      assertEquals(QuestionView.Event.OUT_OF_GUESSES, last().getEvent());
+      assertSame(answered.getAnswer(), last().getAnswer());
+      assertTrue(last().isChoiceDisabled(last().getGuessedChoice()));
+      assertEquals(4, last().getQuestionNumber());
+      assertEquals(4, last().getCorrectAnswers());
+
+      // guesses are over; next() asks question 5
+      restarted.guess(last().getAnswer().getId());
+      restarted.next();
+      runEngine();
+      assertEquals(QuestionView.Event.QUESTION, last().getEvent());
+      assertEquals(5, last().getQuestionNumber());
+      assertEquals(5, attempts(before.stats));
+   }
+
+   @Test
+   public void finishedQuizIsNotRestored() {
+      playQuiz(engine);
+      assertEquals(QuestionView.Event.QUIZ_OVER, last().getEvent());
+      assertNull(storage.state);
+
+      views.clear();
+      QuizEngine restarted = createEngine(relaunch(storage, storage.catalog),
+              SplitMix64.source(99));
+      restarted.setSettings(SETTINGS);
+      restarted.restore();
+      runEngine();
+      assertEquals(1, views.size());
+      assertEquals(QuestionView.Event.QUESTION, last().getEvent());
+      assertEquals(0, last().getQuestionNumber());
+      assertEquals(0, last().getTotalGuesses());
+   }
+
+   @Test
+   public void restoredQuizAsksTheSavedFlagsInOrder() {
+      MemoryStorage before = new MemoryStorage();
+      before.catalog = storage.catalog;
+      playUntilKilled(before, 2);
+      int[] saved = before.state.getRemaining();
+      assertEquals(QUESTIONS - 3, saved.length);
+
+      // whatever a new pick would give, the saved ids are asked
+      int[] reversed = new int[saved.length];
+      for (int i = 0; i < saved.length; i++)
+         reversed[i] = saved[saved.length - 1 - i];
+      before.state.setRemaining(before.state.getCatalogChecksum(), reversed);
+      QuizEngine restarted = createEngine(relaunch(before, storage.catalog),
+              SplitMix64.source(99));
+      restarted.setSettings(SETTINGS);
+      restarted.restore();
+      runEngine();
+
+      restarted.guess(last().getAnswer().getId());
+      restarted.next();
+      runEngine();
+      for (int id : reversed) {
+         assertEquals(id, last().getAnswer().getId());
+         restarted.guess(id);
+         restarted.next();
+         runEngine();
+      }
+      assertEquals(QuestionView.Event.QUIZ_OVER, last().getEvent());
+   }
+
+   @Test
+   public void quizSavedWithAnotherCatalogPicksTheRestAgain() {
+      MemoryStorage before = new MemoryStorage();
+      before.catalog = storage.catalog;
+      List<String> played = playUntilKilled(before, 3);
+      QuestionView saved = last();
+
+      // a new flag sorted first in Asia moves every saved id
+      MemoryStorage after =
+              relaunch(before, storage.catalog.plus(Arrays.asList("Asia-Another_Country")));
+      assertNotEquals(before.catalog.getChecksum(), after.catalog.getChecksum());
+      QuizEngine restarted = createEngine(after, SplitMix64.source(99));
+      restarted.setSettings(SETTINGS);
+      restarted.restore();
+      runEngine();
+
+      assertEquals(saved.getAnswer().getFileName(), last().getAnswer().getFileName());
+      assertEquals(3, last().getQuestionNumber());
+      while (last().getEvent() != QuestionView.Event.QUIZ_OVER)
+         playQuestion(restarted, played);
+      assertEquals(QUESTIONS, played.size());
+   }
+
+   @Test
+   public void savedQuestionIsShownBeforeTheCatalogLoads() {
+      engine.reset();
+      runEngine();
+      QuestionView saved = last();
+
+      views.clear();
+      MemoryStorage relaunched = new MemoryStorage() {
+         @Override
+         public FlagCatalog loadCatalog() throws IOException {
+            assertEquals(1, views.size()); // the saved question is on screen
+            return super.loadCatalog();
+         }
+      };
+      relaunched.catalog = storage.catalog;
+      relaunched.state = storage.state;
+      QuizEngine restarted = createEngine(relaunched, SplitMix64.source(99));
+      restarted.setSettings(SETTINGS);
+      restarted.restore();
+      runEngine();
+
+      assertEquals(2, views.size());
+      QuestionView first = views.get(0);
+      assertEquals(saved.getAnswer().getFileName(), first.getAnswer().getFileName());
+      assertEquals(-1, first.getAnswer().getId());
+      assertEquals(saved.getChoiceCount(), first.getChoiceCount());
+      for (int i = 0; i < saved.getChoiceCount(); i++)
+         assertEquals(saved.getChoice(i).getCountryName(), first.getChoice(i).getCountryName());
+      assertSame(saved.getAnswer(), last().getAnswer());
+      assertEquals(1, relaunched.catalogLoads);
+   }
+
+   @Test
+   public void smallPoolShortensTheQuiz() {
+      storage.catalog = FlagCatalog.of(Arrays.asList("Asia-Laos", "Asia-Nepal", "Europe-Malta"));
+      List<String> played = playQuiz(engine);
+
+      // every flag once, and the quiz says it's three questions long
+      assertEquals(3, played.size());
+      Set<String> answers = new HashSet<>();
+      for (String question : played)
+         answers.add(question.substring(0, question.indexOf(' ')));
+      assertEquals(3, answers.size());
+      assertEquals(3, last().getQuestionCount());
+      assertEquals(3, last().getCorrectAnswers());
+   }
+
+   @Test
+   public void emptyPoolPublishesNoFlags() {
+      engine.setSettings(new QuizSettings(6, 3, Region.OCEANIA.bit()));
+      engine.reset();
+      runEngine();
+      assertEquals(QuestionView.Event.NO_FLAGS, last().getEvent());
+      assertNull(last().getAnswer());
+      assertEquals(0, last().getChoiceCount());
+      assertEquals(0, last().getQuestionCount());
+      assertTrue(preloaded.isEmpty());
+
+      // nothing to guess or move on to, until regions with flags are enabled
+      int published = views.size();
+      engine.guess(0);
+      engine.next();
+      runEngine();
+      assertEquals(published, views.size());
+      engine.setSettings(SETTINGS);
+      engine.reset();
+      runEngine();
+      assertEquals(QuestionView.Event.QUESTION, last().getEvent());
+      assertEquals(QUESTIONS, last().getQuestionCount());
+   }
+
+   @Test
+   public void questionFromRemovedRegionStartsOver() {
+      engine.reset();
+      runEngine();
+
+      engine.setSettings(new QuizSettings(6, 3, Region.AFRICA.bit()));
+      engine.restore();
+      runEngine();
+      assertEquals(0, last().getQuestionNumber());
+      assertEquals("Africa", last().getAnswer().getRegion());
+   }
+
+   @Test
+   public void catalogErrorsReachTheListener() {
+      QuizEngine failing = new QuizEngine(new MemoryStorage() {
+         @Override
+         public FlagCatalog loadCatalog() throws IOException {
+            throw new IOException("no catalog");
+         }
+      }, null, direct, direct, new QuizEngine.Listener() {
+         @Override
+         public void onQuestionView(QuestionView view) {
+            fail();
+         }
+
+         @Override
+         public void onError(Exception exception) {
+            errors.add(exception);
+         }
+      }, SplitMix64.source(), QUESTIONS);
+      failing.reset();
+      assertEquals("no catalog", errors.get(0).getMessage());
+   }
+}
@@ -0,0 +1,86 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class QuizSchedulerTest {
+   private static final long DAY = FlagStats.FIRST_INTERVAL_MILLIS;
+   private static final long NOW = 100 * DAY;
+
+   private final FlagCatalog catalog = createCatalog(20);
+   private final FlagStats stats = new FlagStats(catalog.size());
+   private final QuizScheduler scheduler = new QuizScheduler(stats);
+   private final List<Flag> pool = new ArrayList<>(catalog.getFlags("Europe"));
+   private final List<Flag> quiz = new ArrayList<>();
+   private final Random random = new Random(3);
+
+   private static FlagCatalog createCatalog(int size) {
+      List<String> fileNames = new ArrayList<>();
+      for (int i = 0; i < size; i++)
+         fileNames.add(String.format("Europe-Country_%02d", i));
+      return FlagCatalog.of(fileNames);
+   }
+
+   @Test
+   public void missesComeFirstThenNewFlagsThenReviews() {
+      // every flag but 0..3 was answered correctly yesterday and isn't due
+      for (int id = 4; id < 20; id++) {
+         stats.record(id, true, NOW - 2 * DAY);
+         stats.record(id, true, NOW - DAY / 2);
+      }
+      stats.record(0, false, NOW - DAY); // missed yesterday
+      stats.record(1, false, NOW - 60 * 60 * 1000L); // missed an hour ago
+      stats.record(7, true, NOW - 20 * DAY); // overdue review
+
+      scheduler.pickQuiz(pool, 6, NOW, random, quiz);
+      assertEquals(0, quiz.get(0).getId());
+      assertEquals(1, quiz.get(1).getId());
+      assertEquals(7, quiz.get(2).getId());
+      assertEquals(new HashSet<>(catalog.getFlags("Europe").subList(2, 4)),
+              new HashSet<>(quiz.subList(3, 5)));
+   }
+
+   @Test
+   public void quizFollowsPriorityOrder() {
+      for (int id = 0; id < 20; id++)
+         stats.record(id, random.nextBoolean(), NOW - random.nextInt(1000) * 60 * 1000L);
+
+      scheduler.pickQuiz(pool, 20, NOW, random, quiz);
+      for (int i = 1; i < quiz.size(); i++)
+         assertTrue(stats.priority(quiz.get(i - 1).getId(), NOW) >=
+                 stats.priority(quiz.get(i).getId(), NOW));
+      assertEquals(20, new HashSet<>(quiz).size());
+   }
+
+   @Test
+   public void newFlagsAreShuffled() {
+      scheduler.pickQuiz(pool, 10, NOW, random, quiz);
+      List<Flag> first = new ArrayList<>(quiz);
+      scheduler.pickQuiz(pool, 10, NOW, random, quiz);
+      assertNotEquals(first, quiz);
+   }
+
+   @Test
+   public void easeFollowsAnswers() {
+      stats.record(0, true, NOW);
+      stats.record(0, true, NOW + DAY);
+      assertEquals(DAY * 2.6, stats.getIntervalMillis(0), 1000);
+      for (int i = 0; i < 10; i++)
+         stats.record(0, false, NOW);
+      assertEquals(FlagStats.MIN_EASE, stats.getEase(0), 0.0001f);
+      assertEquals(0, stats.getIntervalMillis(0));
+      assertEquals(12, stats.getAttempts(0));
+      assertEquals(10, stats.getMisses(0));
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void poolTooSmall() {
+      scheduler.pickQuiz(pool, 21, NOW, random, quiz);
+   }
+}
@@ -0,0 +1,42 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class QuizSettingsTest {
+   @Test
+   public void regionsAreNamedInRegionOrder() {
+      QuizSettings settings = new QuizSettings(4, 2,
+              Region.GAME_OF_THRONES.bit() | Region.AFRICA.bit() | Region.OCEANIA.bit());
+      assertTrue(settings.toString(),
+              settings.toString().contains("regions=[Africa, Oceania, Game_of_Thrones]"));
+   }
+
+   @Test
+   public void valuesAreClamped() {
+      QuizSettings settings = new QuizSettings(20, 0, -1);
+      assertEquals(QuizEngine.MAX_CHOICES, settings.getChoices());
+      assertEquals(1, settings.getGuesses());
+      assertEquals(Region.ALL, settings.getRegionMask());
+   }
+
+   @Test
+   public void maskIgnoresUnknownRegions() {
+      assertEquals(Region.ASIA.bit() | Region.NORTH_AMERICA.bit(),
+              Region.maskOf(Arrays.asList("North_America", "Atlantis", "Asia")));
+      assertEquals(Region.ALL, Region.maskOf(Arrays.asList("Africa", "Asia", "Europe",
+              "North_America", "Oceania", "South_America", "Game_of_Thrones")));
+   }
+
+   @Test
+   public void equalSettingsAreEqual() {
+      QuizSettings settings = new QuizSettings(6, 3, Region.EUROPE.bit());
+      assertEquals(settings, new QuizSettings(6, 3, Region.EUROPE.bit()));
+      assertEquals(settings.hashCode(), new QuizSettings(6, 3, Region.EUROPE.bit()).hashCode());
+      assertNotEquals(settings, new QuizSettings(6, 4, Region.EUROPE.bit()));
+      assertNotEquals(settings, new QuizSettings(6, 3, Region.EUROPE.bit(), true));
+   }
+}
@@ -0,0 +1,161 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class QuizStateCodecTest {
+   private static QuizState sampleState() {
+      return new QuizState(-4962768465676381896L, "Asia-Timor-Leste",
+              new String[]{"Asia-Bhutan", "Asia-Timor-Leste", "Asia-Brunei", "Asia-Laos"},
+              3, 2, 1, 5);
+   }
+
+   @Test
+   public void roundTripsEveryField() {
+      QuizState state = sampleState();
+      state.disableChoice(0);
+      state.disableChoice(3);
+
+      QuizState decoded = QuizStateCodec.decode(QuizStateCodec.encode(state));
+      assertEquals(state, decoded);
+      assertEquals("Asia-Timor-Leste", decoded.getAnswer());
+      assertEquals(4, decoded.getChoiceCount());
+      assertEquals("Asia-Brunei", decoded.getChoice(2));
+      assertTrue(decoded.isChoiceDisabled(0));
+      assertFalse(decoded.isChoiceDisabled(1));
+      assertTrue(decoded.isChoiceDisabled(3));
+      assertEquals(3, decoded.getQuestionNumber());
+      assertEquals(2, decoded.getCorrectAnswers());
+      assertEquals(1, decoded.getGuessForQuestion());
+      assertEquals(5, decoded.getTotalGuesses());
+      assertEquals(-4962768465676381896L, decoded.getSeed());
+   }
+
+   @Test
+   public void questionsToComeSurvive() {
+      QuizState state = sampleState();
+      state.setRemaining(-1083315743, new int[]{17, 4, 0, 232});
+
+      QuizState decoded = QuizStateCodec.decode(QuizStateCodec.encode(state));
+      assertEquals(state, decoded);
+      assertEquals(-1083315743, decoded.getCatalogChecksum());
+      assertArrayEquals(new int[]{17, 4, 0, 232}, decoded.getRemaining());
+
+      state.setRemaining(7, new int[0]);
+      assertArrayEquals(new int[0],
+              QuizStateCodec.decode(QuizStateCodec.encode(state)).getRemaining());
+      assertNull(QuizStateCodec.decode(QuizStateCodec.encode(sampleState())).getRemaining());
+   }
+
+   @Test
+   public void statesSavedBeforeTheQuestionsToComeAreRead() {
+      QuizState state = QuizStateCodec.decode(
+              "Q2;-4962768465676381896;3;2;1;5;1;2;11:Asia-Bhutan11:Asia-Brunei11:Asia-Bhutan");
+      assertEquals(-4962768465676381896L, state.getSeed());
+      assertEquals("Asia-Brunei", state.getChoice(0));
+      assertNull(state.getRemaining());
+   }
+
+   @Test
+   public void answeredQuestionsSurvive() {
+      QuizState state = sampleState();
+      state.setAnswered(true);
+      state.setRemaining(-1083315743, new int[]{17, 4});
+      QuizState decoded = QuizStateCodec.decode(QuizStateCodec.encode(state));
+      assertEquals(state, decoded);
+      assertTrue(decoded.isAnswered());
+
+      // answered without the questions to come
+      state = sampleState();
+      state.setAnswered(true);
+      decoded = QuizStateCodec.decode(QuizStateCodec.encode(state));
+      assertEquals(state, decoded);
+      assertNull(decoded.getRemaining());
+      assertFalse(QuizStateCodec.decode(QuizStateCodec.encode(sampleState())).isAnswered());
+   }
+
+   @Test
+   public void statesSavedBeforeAnswersWereSavedAreRead() {
+      QuizState state = QuizStateCodec.decode(
+              "Q3;-4962768465676381896;3;2;1;5;1;2;-1083315743;2;17;4;" +
+                      "11:Asia-Bhutan11:Asia-Brunei11:Asia-Bhutan");
+      assertFalse(state.isAnswered());
+      assertEquals(3, state.getQuestionNumber());
+      assertArrayEquals(new int[]{17, 4}, state.getRemaining());
+   }
+
+   @Test
+   public void extremeSeedsSurvive() {
+      for (long seed : new long[]{Long.MIN_VALUE, -1, 0, 1, Long.MAX_VALUE}) {
+         QuizState state = new QuizState(seed, "Asia-Laos", new String[]{"Asia-Laos"}, 0, 0, 0, 0);
+         assertEquals(seed, QuizStateCodec.decode(QuizStateCodec.encode(state)).getSeed());
+      }
+   }
+
+   @Test
+   public void statesSavedBeforeSeedsAreRead() {
+      QuizState state = QuizStateCodec.decode("Q1;3;2;1;5;1;2;11:Asia-Bhutan11:Asia-Brunei11:Asia-Bhutan");
+      QuizState expected = new QuizState("Asia-Bhutan", new String[]{"Asia-Brunei", "Asia-Bhutan"},
+              3, 2, 1, 5);
+      expected.disableChoice(0);
+      assertEquals(expected, state);
+      assertEquals(0, state.getSeed());
+   }
+
+   @Test
+   public void namesWithSeparatorsSurvive() {
+      QuizState state = new QuizState("Odd-A,B:T",
+              new String[]{"Odd-A,B:T", "Odd-;12:x", ",QuestionNum:9", ""}, 0, 0, 0, 0);
+      assertEquals(state, QuizStateCodec.decode(QuizStateCodec.encode(state)));
+   }
+
+   @Test
+   public void guessesUpdateWithoutLeavingQuestion() {
+      QuizState state = sampleState();
+      state.disableChoice(2);
+      state.setGuesses(2, 6);
+
+      QuizState decoded = QuizStateCodec.decode(QuizStateCodec.encode(state));
+      assertTrue(decoded.isChoiceDisabled(2));
+      assertEquals(2, decoded.getGuessForQuestion());
+      assertEquals(6, decoded.getTotalGuesses());
+   }
+
+   @Test
+   public void rejectsLegacyAndUnknownFormats() {
+      assertNull(QuizStateCodec.decode(null));
+      assertNull(QuizStateCodec.decode(""));
+      assertNull(QuizStateCodec.decode(" "));
+      assertNull(QuizStateCodec.decode("Asia-Laos,Laos:T,Bhutan:F," +
+              "QuestionNum:1,CorrectAnswers:0,NumCurrentGuess:1,TotalGuess:1"));
+      assertNull(QuizStateCodec.decode("Q9;0;0;0;0;0;0;1:x"));
+   }
+
+   @Test
+   public void rejectsDamagedStates() {
+      String encoded = QuizStateCodec.encode(sampleState());
+      for (int length = 0; length < encoded.length(); length++)
+         assertNull(QuizStateCodec.decode(encoded.substring(0, length)));
+      assertNull(QuizStateCodec.decode(encoded + "x"));
+      assertNull(QuizStateCodec.decode("Q1;a;0;0;0;0;0;1:x"));
+      assertNull(QuizStateCodec.decode("Q2;0;0;0;0;0;0;-1;1:a"));
+      assertNull(QuizStateCodec.decode("Q4;0;0;0;0;0;0;-3;0;12;-1;1:a"));
+      assertNull(QuizStateCodec.decode("Q2;12345678901234567890;0;0;0;0;0;0;1:x"));
+
+      QuizState state = sampleState();
+      state.setRemaining(12, new int[]{3, 1});
+      encoded = QuizStateCodec.encode(state);
+      for (int length = 0; length < encoded.length(); length++)
+         assertNull(QuizStateCodec.decode(encoded.substring(0, length)));
+      assertNull(QuizStateCodec.decode("Q3;0;0;0;0;0;0;0;12;-1;1:x"));
+      assertNull(QuizStateCodec.decode("Q3;0;0;0;0;0;0;0;12;999999999;1:x"));
+
+      state.setAnswered(true);
+      encoded = QuizStateCodec.encode(state);
+      for (int length = 0; length < encoded.length(); length++)
+         assertNull(QuizStateCodec.decode(encoded.substring(0, length)));
+      assertNull(QuizStateCodec.decode("Q4;0;0;0;0;0;0;0;2;12;-1;1:x"));
+      assertNull(QuizStateCodec.decode("Q4;0;0;0;0;0;0;0;1;12;-2;1:x"));
+   }
+}
@@ -0,0 +1,74 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RegionPoolsTest {
+   private FlagCatalog catalog;
+   private RegionPools pools;
+
+   @Before
+   public void createPools() {
+      // every region a different size, listed in an order unlike Region's,
+      // plus a region the enum doesn't know
+      List<String> fileNames = new ArrayList<>();
+      Region[] regions = Region.values();
+      for (int i = regions.length - 1; i >= 0; i--)
+         for (int flag = 0; flag < 3 + i * 2; flag++)
+            fileNames.add(String.format("%s-Country_%02d", regions[i].getFolder(), flag));
+      fileNames.add("Atlantis-Poseidonia");
+      catalog = FlagCatalog.of(fileNames);
+      pools = new RegionPools(catalog);
+   }
+
+   @Test
+   public void everyMaskHasItsRegionsFlags() {
+      for (int mask = 1; mask <= Region.ALL; mask++) {
+         List<Flag> expected = new ArrayList<>();
+         for (Region region : Region.values())
+            if (region.isIn(mask))
+               expected.addAll(catalog.getFlags(region.getFolder()));
+
+         List<Flag> pool = pools.getPool(mask);
+         assertEquals("mask " + mask, expected, pool);
+         DistractorEngine distractors = pools.getDistractors(mask);
+         assertEquals(pool.size(), distractors.size());
+         for (int i = 0; i < pool.size(); i++)
+            assertEquals(i, distractors.indexOf(pool.get(i)));
+      }
+   }
+
+   @Test
+   public void poolsAreCached() {
+      for (int mask = 1; mask <= Region.ALL; mask++) {
+         assertSame(pools.getPool(mask), pools.getPool(mask));
+         assertSame(pools.getDistractors(mask), pools.getDistractors(mask));
+      }
+   }
+
+   @Test
+   public void emptyMaskHasNoFlags() {
+      assertTrue(pools.getPool(0).isEmpty());
+   }
+
+   @Test
+   public void regionSizesComeFromIdRanges() {
+      for (Region region : Region.values())
+         assertEquals(catalog.getFlags(region.getFolder()).size(), pools.size(region));
+   }
+
+   @Test
+   public void regionsMissingFromTheCatalogAreEmpty() {
+      List<String> fileNames = new ArrayList<>();
+      fileNames.add("Europe-France");
+      fileNames.add("Europe-Spain");
+      RegionPools europe = new RegionPools(FlagCatalog.of(fileNames));
+      assertEquals(2, europe.getPool(Region.ALL).size());
+      assertTrue(europe.getPool(Region.ALL & ~Region.EUROPE.bit()).isEmpty());
+   }
+}
@@ -0,0 +1,82 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ResponseTimesTest {
+   @Test
+   public void emptyBufferHasNoTimes() {
+      ResponseTimes times = new ResponseTimes(4);
+      assertEquals(0, times.size());
+      assertEquals(0, times.getAccuracy(), 0);
+      assertEquals(ResponseTimes.UNTIMED, times.getMeanMillis());
+   }
+
+   @Test
+   public void oldestAnswersAreReplaced() {
+      ResponseTimes times = new ResponseTimes(3);
+      times.record(1000, true);
+      times.record(2000, false);
+      times.record(3000, true);
+      times.record(7000, true); // replaces 1000
+
+      assertEquals(3, times.size());
+      assertEquals(4000, times.getMeanMillis());
+      assertEquals(2, times.getCorrectCount());
+      assertEquals(7000, times.getMillis(0));
+      assertEquals(2000, times.getMillis(2));
+      assertFalse(times.wasCorrect(2));
+   }
+
+   @Test
+   public void sumsMatchTheHeldAnswers() {
+      ResponseTimes times = new ResponseTimes(5);
+      SplitMix64 random = new SplitMix64(3);
+      for (int i = 0; i < 1000; i++) {
+         times.record(random.nextInt(4) == 0 ? ResponseTimes.UNTIMED : random.nextInt(20000),
+                 random.nextBoolean());
+
+         long sum = 0;
+         int timed = 0;
+         int correct = 0;
+         for (int age = 0; age < times.size(); age++) {
+            if (times.getMillis(age) != ResponseTimes.UNTIMED) {
+               sum += times.getMillis(age);
+               ++timed;
+            }
+            if (times.wasCorrect(age))
+               ++correct;
+         }
+         assertEquals(timed == 0 ? ResponseTimes.UNTIMED : sum / timed, times.getMeanMillis());
+         assertEquals(correct, times.getCorrectCount());
+      }
+   }
+
+   @Test
+   public void untimedAnswersStillCountTowardAccuracy() {
+      ResponseTimes times = new ResponseTimes(4);
+      times.record(ResponseTimes.UNTIMED, true);
+      times.record(-5, false);
+      assertEquals(0.5, times.getAccuracy(), 0);
+      assertEquals(ResponseTimes.UNTIMED, times.getMeanMillis());
+   }
+
+   @Test
+   public void clearEmptiesTheBuffer() {
+      ResponseTimes times = new ResponseTimes(2);
+      times.record(1000, true);
+      times.clear();
+      times.record(3000, false);
+      assertEquals(1, times.size());
+      assertEquals(3000, times.getMeanMillis());
+      assertEquals(0, times.getCorrectCount());
+   }
+
+   @Test(expected = IndexOutOfBoundsException.class)
+   public void onlyHeldAnswersCanBeRead() {
+      ResponseTimes times = new ResponseTimes(4);
+      times.record(1000, true);
+      times.getMillis(1);
+   }
+}
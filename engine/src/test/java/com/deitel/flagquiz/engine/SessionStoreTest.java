@@ -0,0 +1,106 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SessionStoreTest {
+   private File directory;
+
+   @Before
+   public void createDirectory() throws IOException {
+      directory = Files.createTempDirectory("sessions").toFile();
+   }
+
+   @After
+   public void deleteDirectory() {
+      delete(directory);
+   }
+
+   private static void delete(File file) {
+      File[] children = file.listFiles();
+      if (children != null)
+         for (File child : children)
+            delete(child);
+      file.delete();
+   }
+
+   private SessionStore open() {
+      return new SessionStore(directory, 5);
+   }
+
+   @Test
+   public void historyKeepsEveryQuizInOrder() throws IOException {
+      SessionStore store = open();
+      QuizResult first = new QuizResult("ann", 6, 12, 60000, 1);
+      QuizResult second = new QuizResult("ann", 9, 10, 45000, 2);
+      store.record(first);
+      store.record(new QuizResult("bob", 10, 10, 30000, 3));
+      store.record(second);
+
+      assertEquals(Arrays.asList(first, second), store.getHistory("ann"));
+      assertEquals(Arrays.asList(first, second), open().getHistory("ann"));
+      assertTrue(store.getHistory("cat").isEmpty());
+   }
+
+   @Test
+   public void boardsSurviveReopening() throws IOException {
+      SessionStore store = open();
+      store.record(new QuizResult("ann", 9, 10, 45000, 1));
+      store.record(new QuizResult("bob", 10, 10, 90000, 2));
+      store.record(new QuizResult("cat", 10, 12, QuizResult.UNTIMED, 3));
+
+      SessionStore reopened = open();
+      assertEquals(store.getTopByScore(5), reopened.getTopByScore(5));
+      assertEquals(store.getTopBySpeed(5), reopened.getTopBySpeed(5));
+      assertEquals("bob", reopened.getTopByScore(1).get(0).getPlayer());
+      assertEquals("ann", reopened.getTopBySpeed(1).get(0).getPlayer());
+      assertEquals(2, reopened.getTopBySpeed(5).size());
+   }
+
+   @Test
+   public void lostBoardsAreRebuiltFromTheLogs() throws IOException {
+      SessionStore store = open();
+      for (int i = 0; i < 20; i++)
+         store.record(new QuizResult("player " + i % 7, i % 11, 10, 1000 * (50 - i), i));
+      assertTrue(new File(directory, SessionStore.BOARDS_FILE).delete());
+
+      SessionStore reopened = open();
+      assertEquals(store.getTopByScore(5), reopened.getTopByScore(5));
+      assertEquals(store.getTopBySpeed(5), reopened.getTopBySpeed(5));
+   }
+
+   @Test
+   public void linesCutShortAreSkipped() throws IOException {
+      SessionStore store = open();
+      QuizResult result = new QuizResult("ann", 7, 10, 40000, 1);
+      store.record(result);
+      FileOutputStream log = new FileOutputStream(
+              new File(new File(directory, SessionStore.PLAYERS_DIRECTORY), "ann.log"), true);
+      log.write("R1;2;10;1".getBytes(StandardCharsets.UTF_8));
+      log.close();
+
+      assertEquals(Arrays.asList(result), open().getHistory("ann"));
+   }
+
+   @Test
+   public void anyNameIsAFileName() throws IOException {
+      for (String name : Arrays.asList("ann", "Ann Lee", "../x;y%", "\u00e9l\u00e8ve", ""))
+         assertEquals(name, SessionStore.unescape(SessionStore.escape(name)));
+      assertFalse(SessionStore.escape("../x;y").contains("/"));
+      assertNull(SessionStore.unescape("bad%12"));
+
+      SessionStore store = open();
+      store.record(new QuizResult("../x;y", 5, 10, 1000, 1));
+      assertEquals("../x;y", open().getTopByScore(1).get(0).getPlayer());
+   }
+}
@@ -0,0 +1,68 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SimilarityIndexTest {
+   private final FlagCatalog catalog = FlagCatalog.of(Arrays.asList(
+           "Africa-Chad", "Asia-Indonesia", "Europe-Monaco", "Europe-Poland", "Europe-Romania"));
+
+   private byte[] write(SimilarityIndexWriter writer) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      writer.writeTo(bytes);
+      return bytes.toByteArray();
+   }
+
+   // entries: 0 Europe-Monaco, 1 Asia-Indonesia, 2 Europe-Romania,
+   // 3 Africa-Chad, 4 Europe-Atlantis (not in the catalog)
+   private byte[] writeIndex() throws IOException {
+      SimilarityIndexWriter writer = new SimilarityIndexWriter(3);
+      writer.add("Europe-Monaco", new int[] {1, 4, 2});
+      writer.add("Asia-Indonesia", new int[] {0});
+      writer.add("Europe-Romania", new int[] {3, 4, 0, 1}); // only three are kept
+      writer.add("Africa-Chad", new int[] {2, 0, 1});
+      writer.add("Europe-Atlantis", new int[] {0, 1, 2});
+      return write(writer);
+   }
+
+   private Flag flag(String fileName) {
+      return catalog.find(fileName);
+   }
+
+   @Test
+   public void lookalikesAreCatalogFlagsInOrder() throws IOException {
+      SimilarityIndex index = SimilarityIndex.read(ByteBuffer.wrap(writeIndex()), catalog);
+      assertArrayEquals(new Flag[] {flag("Asia-Indonesia"), flag("Europe-Romania")},
+              index.getLookalikes(flag("Europe-Monaco")));
+      assertArrayEquals(new Flag[] {flag("Europe-Monaco")},
+              index.getLookalikes(flag("Asia-Indonesia")));
+      assertArrayEquals(new Flag[] {flag("Africa-Chad"), flag("Europe-Monaco")},
+              index.getLookalikes(flag("Europe-Romania")));
+   }
+
+   @Test
+   public void flagsMissingFromTheIndexHaveNoLookalikes() throws IOException {
+      SimilarityIndex index = SimilarityIndex.read(
+              new ByteArrayInputStream(writeIndex()), catalog);
+      assertEquals(0, index.getLookalikes(flag("Europe-Poland")).length);
+      assertEquals(0, index.getLookalikes(FlagCatalog.unindexed("Asia-Nepal")).length);
+   }
+
+   @Test(expected = IOException.class)
+   public void otherFilesAreRejected() throws IOException {
+      SimilarityIndex.read(ByteBuffer.wrap(new byte[] {'F', 'L', 'A', '1', 0, 0, 0, 0}), catalog);
+   }
+
+   @Test(expected = IOException.class)
+   public void truncatedIndexIsRejected() throws IOException {
+      byte[] bytes = writeIndex();
+      SimilarityIndex.read(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 1)), catalog);
+   }
+}
@@ -0,0 +1,73 @@
+package com.deitel.flagquiz.engine;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SplitMix64Test {
+   @Test
+   public void matchesTheReferenceOutput() {
+      // the first values of the reference implementation seeded with 0
+      SplitMix64 random = new SplitMix64(0);
+      assertEquals(0xE220A8397B1DCDAFL, random.nextLong());
+      assertEquals(0x6E789E6AA1B965F4L, random.nextLong());
+      assertEquals(0x06C45D188009454FL, random.nextLong());
+   }
+
+   @Test
+   public void sameSeedGivesSameSequence() {
+      Random first = new SplitMix64(1234);
+      Random second = new SplitMix64(1234);
+      for (int i = 0; i < 1000; i++)
+         assertEquals(first.nextInt(i + 1), second.nextInt(i + 1));
+   }
+
+   @Test
+   public void setSeedRestartsTheSequence() {
+      Random random = new SplitMix64(99);
+      long value = random.nextLong();
+      random.setSeed(99);
+      assertEquals(value, random.nextLong());
+   }
+
+   @Test
+   public void boundedValuesCoverTheRange() {
+      Random random = new SplitMix64(7);
+      int[] counts = new int[6];
+      for (int i = 0; i < 60000; i++)
+         ++counts[random.nextInt(6)];
+      for (int count : counts)
+         assertTrue(String.valueOf(count), count > 9000 && count < 11000);
+   }
+
+   @Test
+   public void splitGivesAnotherSequence() {
+      SplitMix64 random = new SplitMix64(5);
+      SplitMix64 split = new SplitMix64(5).split();
+      int same = 0;
+      for (int i = 0; i < 100; i++)
+         if (random.nextLong() == split.nextLong())
+            ++same;
+      assertEquals(0, same);
+   }
+
+   @Test
+   public void sourceReplaysItsSeeds() {
+      RandomSource first = SplitMix64.source(42);
+      RandomSource second = SplitMix64.source(42);
+      for (int i = 0; i < 10; i++) {
+         long seed = first.nextSeed();
+         assertEquals(seed, second.nextSeed());
+         assertEquals(first.forSeed(seed).nextLong(), second.forSeed(seed).nextLong());
+      }
+   }
+
+   @Test
+   public void derivedSeedsDiffer() {
+      assertNotEquals(SplitMix64.derive(1, 0), SplitMix64.derive(1, 1));
+      assertNotEquals(SplitMix64.derive(1, 0), SplitMix64.derive(2, 0));
+      assertEquals(SplitMix64.derive(1, 3), SplitMix64.derive(1, 3));
+   }
+}
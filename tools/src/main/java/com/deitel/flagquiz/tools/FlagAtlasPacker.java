@@ -0,0 +1,101 @@
+// FlagAtlasPacker.java
+// Packs every region's flag PNGs into one FlagAtlas file per region
+package com.deitel.flagquiz.tools;
+
+import com.deitel.flagquiz.engine.FlagAtlas;
+import com.deitel.flagquiz.engine.FlagAtlasWriter;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+// Usage: FlagAtlasPacker <assets dir> <output dir> <thumbnail height>
+// Each "<Region>/<Region>-<Country>.png" under the assets directory becomes
+// an entry of "<output dir>/<Region>.atlas" holding the PNG's bytes as they
+// are and a thumbnail scaled to the thumbnail height. A file that can't be
+// decoded as an image keeps its original bytes as its thumbnail.
+public final class FlagAtlasPacker {
+    private FlagAtlasPacker() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println(
+                    "Usage: FlagAtlasPacker <assets dir> <output dir> <thumbnail height>");
+            System.exit(2);
+        }
+        pack(new File(args[0]), new File(args[1]), Integer.parseInt(args[2]));
+    }
+
+    // packs every region directory under assetsDir; returns the number of flags packed
+    public static int pack(File assetsDir, File outputDir, int thumbnailHeight)
+            throws IOException {
+        File[] regions = assetsDir.listFiles();
+        if (regions == null)
+            throw new IOException("Cannot list " + assetsDir);
+        if (!outputDir.isDirectory() && !outputDir.mkdirs())
+            throw new IOException("Cannot create " + outputDir);
+
+        int packed = 0;
+        for (File region : regions) {
+            if (!region.isDirectory())
+                continue;
+            File[] flags = region.listFiles();
+            if (flags == null)
+                throw new IOException("Cannot list " + region);
+            Arrays.sort(flags);
+
+            FlagAtlasWriter writer = new FlagAtlasWriter(thumbnailHeight);
+            for (File flag : flags) {
+                String name = flag.getName();
+                if (!name.endsWith(".png"))
+                    continue;
+                byte[] image = Files.readAllBytes(flag.toPath());
+                writer.add(name.substring(0, name.length() - ".png".length()),
+                        image, thumbnail(image, thumbnailHeight));
+                ++packed;
+            }
+
+            File atlas = new File(outputDir, region.getName() + FlagAtlas.EXTENSION);
+            try (OutputStream out = new FileOutputStream(atlas)) {
+                writer.writeTo(out);
+            }
+        }
+        return packed;
+    }
+
+    // image scaled to height pixels high, as a PNG
+    static byte[] thumbnail(byte[] image, int height) throws IOException {
+        BufferedImage source;
+        try {
+            source = ImageIO.read(new ByteArrayInputStream(image));
+        } catch (IOException exception) {
+            source = null;
+        }
+        if (source == null || source.getHeight() <= height)
+            return image;
+
+        int width = Math.max(1, source.getWidth() * height / source.getHeight());
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.drawImage(source, 0, 0, width, height, null);
+        graphics.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(scaled, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,86 @@
+// FlagSignature.java
+// A compact perceptual signature of a flag image: its colors and its layout
+package com.deitel.flagquiz.tools;
+
+import java.awt.image.BufferedImage;
+
+// Two parts, both computed with integer arithmetic on the decoded pixels,
+// so a PNG gets the same signature on every JVM:
+//   a 64-bin color histogram, 4 levels per RGB channel, each bin holding
+//   its share of the pixels in 1/65536ths
+//   a 64-bit average hash: the image box-filtered to 8 x 8 gray cells, a
+//   bit per cell set if the cell is brighter than the mean of the cells
+// Transparent pixels count as white. distance() adds the histograms' L1
+// distance and the hashes' Hamming distance, both scaled to 0..131072, so
+// colors and layout weigh the same.
+final class FlagSignature {
+    static final int BINS = 64;
+    static final int SCALE = 1 << 16; // a whole histogram
+    static final int MAX_DISTANCE = 4 * SCALE;
+    private static final int CELLS = 8; // per side of the hash's grid
+
+    private final int[] histogram;
+    private final long hash;
+
+    private FlagSignature(int[] histogram, long hash) {
+        this.histogram = histogram;
+        this.hash = hash;
+    }
+
+    static FlagSignature of(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        for (int i = 0; i < pixels.length; i++)
+            if ((pixels[i] >>> 24) < 0x80)
+                pixels[i] = 0xFFFFFFFF;
+
+        long[] counts = new long[BINS];
+        for (int pixel : pixels)
+            ++counts[((pixel >> 22) & 0x3) << 4 | ((pixel >> 14) & 0x3) << 2 | ((pixel >> 6) & 0x3)];
+        int[] histogram = new int[BINS];
+        for (int bin = 0; bin < BINS; bin++)
+            histogram[bin] = (int) (counts[bin] * SCALE / pixels.length);
+
+        int[] cells = new int[CELLS * CELLS];
+        long total = 0;
+        for (int cellY = 0; cellY < CELLS; cellY++) {
+            for (int cellX = 0; cellX < CELLS; cellX++) {
+                int x0 = cellX * width / CELLS;
+                int x1 = Math.max(x0 + 1, (cellX + 1) * width / CELLS);
+                int y0 = cellY * height / CELLS;
+                int y1 = Math.max(y0 + 1, (cellY + 1) * height / CELLS);
+                long sum = 0;
+                for (int y = y0; y < y1; y++)
+                    for (int x = x0; x < x1; x++)
+                        sum += gray(pixels[y * width + x]);
+                int cell = (int) (sum / ((long) (x1 - x0) * (y1 - y0)));
+                cells[cellY * CELLS + cellX] = cell;
+                total += cell;
+            }
+        }
+        long hash = 0;
+        for (int i = 0; i < cells.length; i++)
+            if ((long) cells[i] * cells.length > total)
+                hash |= 1L << i;
+        return new FlagSignature(histogram, hash);
+    }
+
+    // luma in 0..255000
+    private static int gray(int pixel) {
+        return ((pixel >> 16) & 0xFF) * 299 + ((pixel >> 8) & 0xFF) * 587 + (pixel & 0xFF) * 114;
+    }
+
+    // 0 for alike signatures, up to MAX_DISTANCE
+    static int distance(FlagSignature a, FlagSignature b) {
+        int colors = 0;
+        for (int bin = 0; bin < BINS; bin++)
+            colors += Math.abs(a.histogram[bin] - b.histogram[bin]);
+        int layout = Long.bitCount(a.hash ^ b.hash) * (2 * SCALE / Long.SIZE);
+        return colors + layout;
+    }
+
+    long getHash() {
+        return hash;
+    }
+}
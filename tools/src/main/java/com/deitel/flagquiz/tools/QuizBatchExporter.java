@@ -0,0 +1,98 @@
+// QuizBatchExporter.java
+// Writes a batch of generated quizzes as JSON lines
+package com.deitel.flagquiz.tools;
+
+import com.deitel.flagquiz.engine.Flag;
+import com.deitel.flagquiz.engine.FlagCatalog;
+import com.deitel.flagquiz.engine.GeneratedQuiz;
+import com.deitel.flagquiz.engine.QuizBatchGenerator;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Usage: QuizBatchExporter <catalog> <region mask> <choices> <seed> <quizzes>
+//                          <questions> <output> [threads]
+// The catalog is a flag_catalog.txt as written by the app's
+// generateFlagCatalog task and the region mask has one bit per Region, in
+// declaration order (127 for all). Each line of the output is one quiz:
+//   {"quiz":0,"questions":[{"answer":"Europe-France","choices":["Europe-Spain",...]},...]}
+// with flags by file name and choices in Button order. The same arguments
+// always write the same file, whatever the number of threads.
+public final class QuizBatchExporter {
+    private QuizBatchExporter() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length != 7 && args.length != 8) {
+            System.err.println("Usage: QuizBatchExporter <catalog> <region mask> <choices> " +
+                    "<seed> <quizzes> <questions> <output> [threads]");
+            System.exit(2);
+        }
+        FlagCatalog catalog;
+        try (InputStream in = new FileInputStream(args[0])) {
+            catalog = FlagCatalog.read(in);
+        }
+        int threads = args.length == 8 ?
+                Integer.parseInt(args[7]) : Runtime.getRuntime().availableProcessors();
+        export(new QuizBatchGenerator(catalog, Integer.parseInt(args[1]),
+                        Integer.parseInt(args[2]), Long.parseLong(args[3])),
+                Integer.parseInt(args[4]), Integer.parseInt(args[5]), threads, new File(args[6]));
+    }
+
+    public static void export(QuizBatchGenerator generator, int quizzes, int questions,
+                              int threads, File output) throws IOException, InterruptedException {
+        try (final Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(output), StandardCharsets.UTF_8))) {
+            final StringBuilder line = new StringBuilder();
+            generator.generate(quizzes, questions, threads, new QuizBatchGenerator.Sink() {
+                @Override
+                public void accept(GeneratedQuiz quiz) throws IOException {
+                    line.setLength(0);
+                    appendJson(quiz, line);
+                    writer.append(line).append('\n');
+                }
+            });
+        }
+    }
+
+    static void appendJson(GeneratedQuiz quiz, StringBuilder json) {
+        json.append("{\"quiz\":").append(quiz.getIndex()).append(",\"questions\":[");
+        for (int question = 0; question < quiz.getQuestionCount(); question++) {
+            if (question > 0)
+                json.append(',');
+            json.append("{\"answer\":");
+            appendString(quiz.getAnswer(question).getFileName(), json);
+            json.append(",\"choices\":[");
+            List<Flag> choices = quiz.getChoices(question);
+            for (int i = 0; i < choices.size(); i++) {
+                if (i > 0)
+                    json.append(',');
+                appendString(choices.get(i).getFileName(), json);
+            }
+            json.append("]}");
+        }
+        json.append("]}");
+    }
+
+    private static void appendString(String value, StringBuilder json) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\')
+                json.append('\\').append(c);
+            else if (c < 0x20)
+                json.append(String.format("\\u%04x", (int) c));
+            else
+                json.append(c);
+        }
+        json.append('"');
+    }
+}
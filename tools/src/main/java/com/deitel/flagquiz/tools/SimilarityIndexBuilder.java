@@ -0,0 +1,111 @@
+// SimilarityIndexBuilder.java
+// Finds every flag's most similar-looking flags and writes a SimilarityIndex
+package com.deitel.flagquiz.tools;
+
+import com.deitel.flagquiz.engine.SimilarityIndexWriter;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+// Usage: SimilarityIndexBuilder <assets dir> <output file> <neighbours>
+// Takes a FlagSignature of each "<Region>/<Region>-<Country>.png" under the
+// assets directory and compares every pair of flags, which is fine for the
+// few hundred flags of the app, and lists each flag's neighbours nearest
+// first. Flags are numbered in file name order and ties go to the lower
+// number, so the same images always give the same bytes. A file that can't
+// be decoded as an image is left out.
+public final class SimilarityIndexBuilder {
+    private SimilarityIndexBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println(
+                    "Usage: SimilarityIndexBuilder <assets dir> <output file> <neighbours>");
+            System.exit(2);
+        }
+        build(new File(args[0]), new File(args[1]), Integer.parseInt(args[2]));
+    }
+
+    // indexes every region directory under assetsDir; returns the number of
+    // flags indexed
+    public static int build(File assetsDir, File output, int neighbours) throws IOException {
+        File[] regions = assetsDir.listFiles();
+        if (regions == null)
+            throw new IOException("Cannot list " + assetsDir);
+        List<File> flags = new ArrayList<>();
+        for (File region : regions) {
+            File[] files = region.isDirectory() ? region.listFiles() : null;
+            if (files != null)
+                for (File file : files)
+                    if (file.getName().endsWith(".png"))
+                        flags.add(file);
+        }
+        Collections.sort(flags, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return a.getName().compareTo(b.getName());
+            }
+        });
+
+        List<String> names = new ArrayList<>();
+        List<FlagSignature> signatures = new ArrayList<>();
+        for (File flag : flags) {
+            BufferedImage image;
+            try {
+                image = ImageIO.read(flag);
+            } catch (IOException exception) {
+                image = null;
+            }
+            if (image == null)
+                continue;
+            String name = flag.getName();
+            names.add(name.substring(0, name.length() - ".png".length()));
+            signatures.add(FlagSignature.of(image));
+        }
+
+        File directory = output.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Cannot create " + directory);
+        try (OutputStream out = new FileOutputStream(output)) {
+            write(names, signatures, neighbours, out);
+        }
+        return names.size();
+    }
+
+    static void write(List<String> names, List<FlagSignature> signatures, int neighbours,
+                      OutputStream out) throws IOException {
+        SimilarityIndexWriter writer = new SimilarityIndexWriter(neighbours);
+        for (int i = 0; i < signatures.size(); i++)
+            writer.add(names.get(i), nearest(signatures, i, neighbours));
+        writer.writeTo(out);
+    }
+
+    // numbers of the count flags nearest to flag, nearest first
+    static int[] nearest(List<FlagSignature> signatures, int flag, int count) {
+        int others = signatures.size() - 1;
+        // distance in the high bits and flag number in the low ones, so a
+        // plain sort orders by distance and then number
+        long[] keys = new long[others];
+        for (int i = 0, key = 0; i < signatures.size(); i++)
+            if (i != flag)
+                keys[key++] = (long) FlagSignature.distance(signatures.get(flag),
+                        signatures.get(i)) << 32 | i;
+        Arrays.sort(keys);
+
+        int[] nearest = new int[Math.min(count, others)];
+        for (int i = 0; i < nearest.length; i++)
+            nearest[i] = (int) keys[i];
+        return nearest;
+    }
+}
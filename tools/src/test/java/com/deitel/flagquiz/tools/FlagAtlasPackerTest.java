@@ -0,0 +1,92 @@
+package com.deitel.flagquiz.tools;
+
+import com.deitel.flagquiz.engine.ByteBufferInputStream;
+import com.deitel.flagquiz.engine.FlagAtlas;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.*;
+
+/**
+ * Packs the app's flags and checks every entry, read through a memory map,
+ * against its source PNG.
+ */
+public class FlagAtlasPackerTest {
+   private static final int THUMBNAIL_HEIGHT = 96;
+   private static final File ASSETS =
+           new File(System.getProperty("flagquiz.flags", "../app/src/main/flags"));
+
+   private File outputDir;
+
+   @Before
+   public void createOutputDir() throws Exception {
+      outputDir = Files.createTempDirectory("atlas").toFile();
+   }
+
+   @After
+   public void deleteOutputDir() {
+      for (File file : outputDir.listFiles())
+         file.delete();
+      outputDir.delete();
+   }
+
+   @Test
+   public void everyEntryMatchesItsSourcePng() throws Exception {
+      int packed = FlagAtlasPacker.pack(ASSETS, outputDir, THUMBNAIL_HEIGHT);
+
+      int checked = 0;
+      for (File region : ASSETS.listFiles()) {
+         if (!region.isDirectory())
+            continue;
+         File atlasFile = new File(outputDir, region.getName() + FlagAtlas.EXTENSION);
+         try (RandomAccessFile file = new RandomAccessFile(atlasFile, "r")) {
+            FlagAtlas atlas = FlagAtlas.read(
+                    file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length()));
+            assertEquals(THUMBNAIL_HEIGHT, atlas.getThumbnailHeight());
+
+            for (File png : region.listFiles()) {
+               String name = png.getName().replace(".png", "");
+               byte[] source = Files.readAllBytes(png.toPath());
+               assertArrayEquals(name, source, bytes(atlas.getImage(name)));
+               checkThumbnail(name, source, atlas.getThumbnail(name));
+               ++checked;
+            }
+            assertEquals(region.listFiles().length, atlas.size());
+         }
+      }
+      assertEquals(packed, checked);
+      assertTrue(checked > 200);
+   }
+
+   private static void checkThumbnail(String name, byte[] source, ByteBuffer thumbnail)
+           throws Exception {
+      BufferedImage image = ImageIO.read(new ByteArrayInputStream(source));
+      if (image == null) { // not really a PNG, so packed as it is
+         assertArrayEquals(name, source, bytes(thumbnail));
+         return;
+      }
+
+      BufferedImage scaled = ImageIO.read(new ByteBufferInputStream(thumbnail));
+      assertEquals(name, Math.min(THUMBNAIL_HEIGHT, image.getHeight()), scaled.getHeight());
+      assertEquals(name, (double) image.getWidth() / image.getHeight(),
+              (double) scaled.getWidth() / scaled.getHeight(), 0.05);
+   }
+
+   private static byte[] bytes(ByteBuffer buffer) {
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.duplicate().get(bytes);
+      return bytes;
+   }
+}
@@ -0,0 +1,84 @@
+package com.deitel.flagquiz.tools;
+
+import com.deitel.flagquiz.engine.Flag;
+import com.deitel.flagquiz.engine.FlagCatalog;
+import com.deitel.flagquiz.engine.GeneratedQuiz;
+import com.deitel.flagquiz.engine.QuizBatchGenerator;
+import com.deitel.flagquiz.engine.Region;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Exports batches of a small catalog and checks the JSON lines written.
+ */
+public class QuizBatchExporterTest {
+   private FlagCatalog catalog;
+   private final List<File> files = new ArrayList<>();
+
+   @Before
+   public void createCatalog() {
+      List<String> fileNames = new ArrayList<>();
+      for (Region region : Region.values())
+         for (int i = 0; i < 8; i++)
+            fileNames.add(String.format("%s-Country_%d", region.getFolder(), i));
+      catalog = FlagCatalog.of(fileNames);
+   }
+
+   @After
+   public void deleteFiles() {
+      for (File file : files)
+         assertTrue(file.delete());
+   }
+
+   private List<String> export(long seed, int threads) throws Exception {
+      File output = File.createTempFile("quizzes", ".jsonl");
+      files.add(output);
+      QuizBatchExporter.export(new QuizBatchGenerator(catalog, Region.ALL, 4, seed),
+              300, 10, threads, output);
+      return Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+   }
+
+   @Test
+   public void outputIsOneQuizPerLine() throws Exception {
+      List<String> lines = export(11, 4);
+      assertEquals(300, lines.size());
+      for (int i = 0; i < lines.size(); i++) {
+         String line = lines.get(i);
+         assertTrue(line, line.startsWith("{\"quiz\":" + i + ",\"questions\":[{\"answer\":\""));
+         assertTrue(line, line.endsWith("]}]}"));
+         assertEquals(line, 10, line.split("\"answer\"").length - 1);
+      }
+   }
+
+   @Test
+   public void outputDependsOnlyOnTheSeed() throws Exception {
+      List<String> lines = export(11, 1);
+      assertEquals(lines, export(11, 6));
+      assertNotEquals(lines, export(12, 6));
+   }
+
+   @Test
+   public void questionIsWrittenWithItsChoices() {
+      List<String> fileNames = Arrays.asList("Europe-France", "Europe-Spain", "Asia-Japan");
+      GeneratedQuiz quiz =
+              new QuizBatchGenerator(FlagCatalog.of(fileNames), Region.ALL, 3, 5).generate(3, 1);
+      List<Flag> choices = quiz.getChoices(0);
+      StringBuilder json = new StringBuilder();
+      QuizBatchExporter.appendJson(quiz, json);
+      assertEquals("{\"quiz\":3,\"questions\":[{\"answer\":\"" +
+              quiz.getAnswer(0).getFileName() + "\",\"choices\":[\"" +
+              choices.get(0).getFileName() + "\",\"" + choices.get(1).getFileName() + "\",\"" +
+              choices.get(2).getFileName() + "\"]}]}", json.toString());
+   }
+}
@@ -0,0 +1,161 @@
+package com.deitel.flagquiz.tools;
+
+import com.deitel.flagquiz.engine.Flag;
+import com.deitel.flagquiz.engine.FlagCatalog;
+import com.deitel.flagquiz.engine.SimilarityIndex;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.*;
+
+/**
+ * Indexes made-up flags whose nearest neighbours are known, and the app's
+ * real flags.
+ */
+public class SimilarityIndexBuilderTest {
+   private static final File ASSETS =
+           new File(System.getProperty("flagquiz.flags", "../app/src/main/flags"));
+
+   private File directory;
+
+   @Before
+   public void createDirectory() throws Exception {
+      directory = Files.createTempDirectory("similarity").toFile();
+   }
+
+   @After
+   public void deleteDirectory() {
+      delete(directory);
+   }
+
+   private static void delete(File file) {
+      File[] children = file.listFiles();
+      if (children != null)
+         for (File child : children)
+            delete(child);
+      file.delete();
+   }
+
+   // a flag of two stripes, top and bottom or left and right
+   private void writeFlag(String fileName, Color first, Color second, boolean vertical)
+           throws IOException {
+      BufferedImage image = new BufferedImage(90, 60, BufferedImage.TYPE_INT_RGB);
+      Graphics2D graphics = image.createGraphics();
+      graphics.setColor(first);
+      graphics.fillRect(0, 0, 90, 60);
+      graphics.setColor(second);
+      if (vertical)
+         graphics.fillRect(45, 0, 45, 60);
+      else
+         graphics.fillRect(0, 30, 90, 30);
+      graphics.dispose();
+
+      File region = new File(directory, "assets/" + fileName.substring(0, fileName.indexOf('-')));
+      region.mkdirs();
+      ImageIO.write(image, "png", new File(region, fileName + ".png"));
+   }
+
+   private void writeFlags() throws IOException {
+      writeFlag("Europe-Red_White", new Color(220, 20, 60), Color.WHITE, false);
+      writeFlag("Asia-Dark_Red_White", new Color(200, 16, 46), Color.WHITE, false);
+      writeFlag("Asia-White_Red", Color.WHITE, new Color(220, 20, 60), false);
+      writeFlag("Africa-Green_Yellow", new Color(0, 150, 60), new Color(250, 210, 0), true);
+   }
+
+   private static SimilarityIndex read(File file, FlagCatalog catalog) throws IOException {
+      try (InputStream in = new FileInputStream(file)) {
+         return SimilarityIndex.read(in, catalog);
+      }
+   }
+
+   private static List<String> names(Flag[] flags) {
+      List<String> names = new ArrayList<>();
+      for (Flag flag : flags)
+         names.add(flag.getFileName());
+      return names;
+   }
+
+   @Test
+   public void neighboursAreNearestFirst() throws IOException {
+      writeFlags();
+      File index = new File(directory, "index.bin");
+      assertEquals(4, SimilarityIndexBuilder.build(new File(directory, "assets"), index, 3));
+
+      FlagCatalog catalog = FlagCatalog.of(Arrays.asList("Africa-Green_Yellow",
+              "Asia-Dark_Red_White", "Asia-White_Red", "Europe-Red_White"));
+      SimilarityIndex similarity = read(index, catalog);
+      // same colors, then same colors upside down, then other colors
+      assertEquals(Arrays.asList("Asia-Dark_Red_White", "Asia-White_Red",
+              "Africa-Green_Yellow"),
+              names(similarity.getLookalikes(catalog.find("Europe-Red_White"))));
+   }
+
+   @Test
+   public void sameImagesGiveTheSameBytes() throws IOException {
+      writeFlags();
+      File first = new File(directory, "first.bin");
+      File second = new File(directory, "second.bin");
+      SimilarityIndexBuilder.build(new File(directory, "assets"), first, 2);
+      SimilarityIndexBuilder.build(new File(directory, "assets"), second, 2);
+      assertArrayEquals(Files.readAllBytes(first.toPath()), Files.readAllBytes(second.toPath()));
+   }
+
+   @Test
+   public void signaturesIgnoreScale() throws IOException {
+      BufferedImage large = new BufferedImage(160, 80, BufferedImage.TYPE_INT_RGB);
+      BufferedImage small = new BufferedImage(40, 20, BufferedImage.TYPE_INT_RGB);
+      for (BufferedImage image : Arrays.asList(large, small)) {
+         Graphics2D graphics = image.createGraphics();
+         graphics.setColor(Color.BLUE);
+         graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+         graphics.setColor(Color.YELLOW);
+         graphics.fillRect(0, 0, image.getWidth() / 2, image.getHeight() / 2);
+         graphics.dispose();
+      }
+      assertEquals(0, FlagSignature.distance(FlagSignature.of(large), FlagSignature.of(small)));
+   }
+
+   @Test
+   public void everyRealFlagHasNeighbours() throws IOException {
+      File index = new File(directory, "flags.bin");
+      int indexed = SimilarityIndexBuilder.build(ASSETS, index, 8);
+      assertTrue(indexed > 200);
+
+      List<String> fileNames = new ArrayList<>();
+      for (File region : ASSETS.listFiles())
+         if (region.isDirectory())
+            for (File png : region.listFiles())
+               fileNames.add(png.getName().replace(".png", ""));
+      FlagCatalog catalog = FlagCatalog.of(fileNames);
+      SimilarityIndex similarity = read(index, catalog);
+
+      int withNeighbours = 0;
+      for (int id = 0; id < catalog.size(); id++) {
+         Flag[] lookalikes = similarity.getLookalikes(catalog.getFlag(id));
+         if (lookalikes.length > 0)
+            ++withNeighbours;
+         for (Flag lookalike : lookalikes)
+            assertNotSame(catalog.getFlag(id), lookalike);
+      }
+      assertEquals(indexed, withNeighbours);
+      // the same red over white, only in other proportions
+      assertEquals("Asia-Indonesia",
+              similarity.getLookalikes(catalog.find("Europe-Monaco"))[0].getFileName());
+   }
+}